@@ -0,0 +1,53 @@
+package com.lindar.dotmailer.api;
+
+import com.lindar.dotmailer.util.DefaultEndpoints;
+import com.lindar.dotmailer.vo.internal.DMAccessCredentials;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * URL building done for every request and every page. Lives in the api package because addAttrAndValueToPath is
+ * package private; validatePath is measured through it, on a relative path and on a full url.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UrlBuildingBenchmark {
+
+    private ContactResource resource;
+    private String contactsUrl;
+    private String contactsPath;
+
+    @Setup
+    public void setUp() {
+        DMAccessCredentials credentials = new DMAccessCredentials();
+        credentials.setApiUrl(DefaultEndpoints.API_URL.getPath());
+        credentials.setVersion(DefaultEndpoints.VERSION.getPath());
+        resource = new ContactResource(credentials);
+        contactsUrl = DefaultEndpoints.API_URL.getPath() + DefaultEndpoints.VERSION.getPath() + "/" + DefaultEndpoints.CONTACTS.getPath();
+        contactsPath = DefaultEndpoints.CONTACTS.getPath();
+    }
+
+    @Benchmark
+    public String addAttrAndValueToPath() {
+        return resource.addAttrAndValueToPath(contactsPath, AbstractResource.WITH_FULL_DATA_ATTR, "true");
+    }
+
+    @Benchmark
+    public String addAttrAndValueToUrl() {
+        return resource.addAttrAndValueToPath(contactsUrl, AbstractResource.WITH_FULL_DATA_ATTR, "true");
+    }
+}
@@ -0,0 +1,87 @@
+package com.lindar.dotmailer.benchmark;
+
+import com.lindar.dotmailer.util.CsvUtil;
+import com.lindar.dotmailer.vo.internal.ContactDetails;
+import com.lindar.wellrested.vo.Result;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CsvUtil.writeCsv for an import sized list of beans, with the field names discovered from the getters and given up
+ * front
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CsvWriteBenchmark {
+
+    private static final List<String> FIELD_NAMES = Arrays.asList("ref", "uid", "firstName", "lastName", "fullName", "username", "postcode");
+
+    @Param({"100000"})
+    public int rows;
+
+    private List<ContactDetails> contacts;
+    private String lastFile;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        contacts = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            ContactDetails contact = new ContactDetails();
+            contact.setRef(String.valueOf(100000 + i));
+            contact.setUid(String.valueOf(7000000 + i));
+            contact.setFirstName("First" + i);
+            contact.setLastName("Last" + i);
+            contact.setFullName("First" + i + " Last" + i);
+            contact.setUsername("user" + i);
+            contact.setPostcode("EC1A 1BB");
+            contacts.add(contact);
+        }
+    }
+
+    @Benchmark
+    public Result<String> discoveredFields() {
+        return keep(CsvUtil.writeCsv(contacts));
+    }
+
+    @Benchmark
+    public Result<String> givenFields() {
+        return keep(CsvUtil.writeCsv(contacts, FIELD_NAMES, FIELD_NAMES));
+    }
+
+    private Result<String> keep(Result<String> result) {
+        lastFile = result.getData();
+        return result;
+    }
+
+    /**
+     * writeCsv leaves a file in the user's home for every call
+     */
+    @TearDown(Level.Invocation)
+    public void deleteFile() {
+        if (lastFile != null) {
+            new File(lastFile).delete();
+            lastFile = null;
+        }
+    }
+}
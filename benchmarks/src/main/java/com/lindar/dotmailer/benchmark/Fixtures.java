@@ -0,0 +1,45 @@
+package com.lindar.dotmailer.benchmark;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Loads the recorded (anonymised) API payloads from src/main/resources/fixtures
+ */
+final class Fixtures {
+
+    static final String CONTACTS_PAGE = "contacts-page.json";
+    static final String CONTACTS_PAGE_FULL_DATA = "contacts-page-full-data.json";
+
+    private Fixtures() {
+    }
+
+    /**
+     * Builds a page of <b>records</b> elements by repeating the recorded ones, serialized compactly the way the API
+     * sends it
+     */
+    static byte[] page(String fixture, int records) {
+        JsonArray recorded = load(fixture);
+        JsonArray page = new JsonArray();
+        for (int i = 0; i < records; i++) {
+            page.add(recorded.get(i % recorded.size()));
+        }
+        return page.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static JsonArray load(String fixture) {
+        try (InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + fixture);
+             Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            return new JsonParser().parse(reader).getAsJsonArray();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.lindar.dotmailer.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.reflect.TypeToken;
+import com.lindar.dotmailer.util.GsonProvider;
+import com.lindar.dotmailer.util.JsonStreamDecoder;
+import com.lindar.dotmailer.vo.api.Contact;
+import com.lindar.dotmailer.vo.api.PersonalisedContact;
+import com.lindar.dotmailer.vo.internal.ContactDetails;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding of a full contacts page, with and without withFullData, into Contact and PersonalisedContact. The streaming
+ * decoder used by the list calls is measured against reading the whole body into a String and parsing that, which is
+ * what the castToList path did.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PageDecodeBenchmark {
+
+    private static final TypeToken<List<Contact>> CONTACTS_TYPE = new TypeToken<List<Contact>>() {};
+    private static final TypeToken<List<PersonalisedContact<ContactDetails>>> PERSONALISED_CONTACTS_TYPE =
+            new TypeToken<List<PersonalisedContact<ContactDetails>>>() {};
+
+    @Param({"false", "true"})
+    public boolean withFullData;
+
+    @Param({"1000"})
+    public int pageSize;
+
+    private byte[] page;
+    private Gson contactGson;
+    private Gson personalisedContactGson;
+    private Type contactType;
+    private Type personalisedContactType;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        page = Fixtures.page(withFullData ? Fixtures.CONTACTS_PAGE_FULL_DATA : Fixtures.CONTACTS_PAGE, pageSize);
+        contactGson = GsonProvider.responseGson();
+        personalisedContactGson = GsonProvider.responseGson(ContactDetails.class, contactDetailsDeserializer());
+        contactType = JsonStreamDecoder.elementType(CONTACTS_TYPE);
+        personalisedContactType = JsonStreamDecoder.elementType(PERSONALISED_CONTACTS_TYPE);
+    }
+
+    @Benchmark
+    public int streamContacts(Blackhole blackhole) throws IOException {
+        return JsonStreamDecoder.decodeArray(reader(), contactGson, contactType, blackhole::consume);
+    }
+
+    @Benchmark
+    public List<Contact> stringContacts() {
+        return contactGson.fromJson(new String(page, StandardCharsets.UTF_8), CONTACTS_TYPE.getType());
+    }
+
+    @Benchmark
+    public int streamPersonalisedContacts(Blackhole blackhole) throws IOException {
+        return JsonStreamDecoder.decodeArray(reader(), personalisedContactGson, personalisedContactType, blackhole::consume);
+    }
+
+    @Benchmark
+    public List<PersonalisedContact<ContactDetails>> stringPersonalisedContacts() {
+        return personalisedContactGson.fromJson(new String(page, StandardCharsets.UTF_8), PERSONALISED_CONTACTS_TYPE.getType());
+    }
+
+    private InputStreamReader reader() {
+        return new InputStreamReader(new ByteArrayInputStream(page), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The usual way of mapping the dataFields key/value pairs onto a POJO
+     */
+    private static JsonDeserializer<ContactDetails> contactDetailsDeserializer() {
+        return (json, typeOfT, context) -> {
+            ContactDetails details = new ContactDetails();
+            if (json == null || !json.isJsonArray()) {
+                return details;
+            }
+            JsonArray dataFields = json.getAsJsonArray();
+            for (JsonElement dataField : dataFields) {
+                JsonObject keyVal = dataField.getAsJsonObject();
+                JsonElement value = keyVal.get("value");
+                String stringValue = value == null || value.isJsonNull() ? null : value.getAsString();
+                switch (keyVal.get("key").getAsString()) {
+                    case "FIRSTNAME":
+                        details.setFirstName(stringValue);
+                        break;
+                    case "LASTNAME":
+                        details.setLastName(stringValue);
+                        break;
+                    case "FULLNAME":
+                        details.setFullName(stringValue);
+                        break;
+                    case "POSTCODE":
+                        details.setPostcode(stringValue);
+                        break;
+                    case "REF":
+                        details.setRef(stringValue);
+                        break;
+                    case "UID":
+                        details.setUid(stringValue);
+                        break;
+                    case "USERNAME":
+                        details.setUsername(stringValue);
+                        break;
+                    default:
+                        break;
+                }
+            }
+            return details;
+        };
+    }
+}
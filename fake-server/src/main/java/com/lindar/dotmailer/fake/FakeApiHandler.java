@@ -0,0 +1,568 @@
+package com.lindar.dotmailer.fake;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import com.lindar.dotmailer.util.DefaultEndpoints;
+import com.lindar.dotmailer.util.GsonProvider;
+import com.lindar.dotmailer.vo.api.AccountInfo;
+import com.lindar.dotmailer.vo.api.AddressBook;
+import com.lindar.dotmailer.vo.api.CampaignInfo;
+import com.lindar.dotmailer.vo.api.Contact;
+import com.lindar.dotmailer.vo.api.DMProperty;
+import com.lindar.dotmailer.vo.api.DataField;
+import com.lindar.dotmailer.vo.api.JobReport;
+import com.lindar.dotmailer.vo.api.JobStatus;
+import com.lindar.dotmailer.vo.api.KeyVal;
+import com.lindar.dotmailer.vo.api.TransactionalEmailStatistics;
+import com.lindar.dotmailer.vo.internal.EmailTriggeredCampaignRequest;
+import com.lindar.dotmailer.vo.internal.ErrorResponse;
+import com.lindar.dotmailer.vo.internal.NameValue;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.supercsv.io.CsvListReader;
+import org.supercsv.prefs.CsvPreference;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serves the endpoints in DefaultEndpoints from a FakeDataStore, applying the latency, error and throttling settings of
+ * the server first
+ */
+class FakeApiHandler implements HttpHandler {
+
+    private static final int MAX_SELECT = 1000;
+    private static final String GET = "GET";
+    private static final String POST = "POST";
+    private static final String PUT = "PUT";
+    private static final String DELETE = "DELETE";
+    private static final int GZIP_MIN_BYTES = 256;
+    private static final String JSON_CONTENT_TYPE = "application/json; charset=utf-8";
+    private static final String DATE_FORMAT = "yyyy-MM-dd";
+    private static final String DATE_TIME_FORMAT = "yyyy-MM-dd HH:mm:ss";
+
+    private final FakeDotmailerServer server;
+    private final FakeDataStore data;
+    private final Gson gson = GsonProvider.requestGson();
+
+    FakeApiHandler(FakeDotmailerServer server, FakeDataStore data) {
+        this.server = server;
+        this.data = data;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            server.requestReceived();
+            Response response = respond(exchange);
+            send(exchange, response);
+        } catch (ApiError error) {
+            send(exchange, new Response(error.status, errorBody(error.code)));
+        } catch (RuntimeException ex) {
+            send(exchange, new Response(500, errorBody("ERROR_UNKNOWN")));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private Response respond(HttpExchange exchange) throws IOException {
+        sleep(server.nextLatencyMillis());
+
+        if (exchange.getRequestHeaders().getFirst("Authorization") == null) {
+            return new Response(401, message("Authorization has been denied for this request."));
+        }
+        long retryAfterSeconds = server.throttle();
+        if (retryAfterSeconds > 0) {
+            Response throttled = new Response(429, errorBody("ERROR_APIUSAGE_EXCEEDED"));
+            throttled.headers.put("Retry-After", String.valueOf(retryAfterSeconds));
+            return throttled;
+        }
+        if (server.injectError()) {
+            return new Response(server.getErrorStatus(), errorBody("ERROR_SYSTEM_SERVICETEMPORARILYUNAVAILABLE"));
+        }
+
+        String rawPath = exchange.getRequestURI().getRawPath();
+        String version = server.getVersion();
+        if (!rawPath.startsWith(version + "/")) {
+            throw new ApiError(404, "ERROR_PARAMETER_INVALID");
+        }
+        String path = rawPath.substring(version.length());
+        DefaultEndpoints endpoint = DefaultEndpoints.fromPath(path);
+        if (endpoint == null) {
+            throw new ApiError(404, "ERROR_PARAMETER_INVALID");
+        }
+        List<String> params = pathParams(endpoint, path);
+        Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+        InputStream body = exchange.getRequestBody();
+        if ("gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+            body = new GZIPInputStream(body);
+        }
+        return route(exchange.getRequestMethod(), endpoint, params, query, body, exchange.getRequestHeaders().getFirst("Content-Type"));
+    }
+
+    private Response route(String method, DefaultEndpoints endpoint, List<String> params, Map<String, String> query, InputStream body, String contentType)
+            throws IOException {
+        boolean withFullData = Boolean.parseBoolean(query.get("withFullData"));
+        switch (endpoint) {
+            case ACCOUNT_INFO:
+                return ok(accountInfo());
+
+            case CONTACTS:
+                if (POST.equals(method)) {
+                    return ok(data.saveContact(read(body, Contact.class)));
+                }
+                return ok(page(data.contacts(withFullData), query));
+            case CONTACT:
+                return contact(method, params.get(0), body);
+            case CONTACT_ADDRESS_BOOKS:
+                return ok(page(data.addressBooksOf(id(params.get(0))), query));
+            case CONTACTS_SINCE_DATE:
+                return ok(page(data.contactsCreatedSince(date(params.get(0)), withFullData), query));
+            case CONTACTS_UNSUBSCRIBED_SINCE_DATE:
+                return ok(page(data.unsubscribedSince(date(params.get(0))), query));
+            case CONTACTS_SUPPRESSED_SINCE_DATE:
+                return ok(page(data.suppressedSince(date(params.get(0))), query));
+            case CONTACTS_IMPORT:
+                return startImport(null, body, contentType);
+            case CONTACTS_IMPORT_STATUS:
+                JobStatus status = data.importStatus(params.get(0));
+                if (status == null) {
+                    throw new ApiError(404, "ERROR_IMPORT_NOT_FOUND");
+                }
+                return ok(status);
+            case CONTACTS_IMPORT_REPORT:
+            case CONTACTS_IMPORT_REPORT_FAULTS:
+                return importReport(params.get(0));
+
+            case ADDRESS_BOOKS:
+                if (POST.equals(method)) {
+                    return ok(data.createAddressBook(read(body, AddressBook.class)));
+                }
+                return ok(page(data.addressBooks(), query));
+            case ADDRESS_BOOK:
+                return ok(addressBook(params.get(0)));
+            case ADDRESS_BOOK_CONTACTS:
+                long addressBookId = addressBook(params.get(0)).getId();
+                if (POST.equals(method)) {
+                    return ok(data.addToAddressBook(addressBookId, read(body, Contact.class)));
+                }
+                return ok(page(data.addressBookContacts(addressBookId, withFullData), query));
+            case ADDRESS_BOOK_CONTACTS_DELETE:
+                List<Long> contactIds = read(body, new TypeToken<List<Long>>() {}.getType());
+                data.removeFromAddressBook(addressBook(params.get(0)).getId(), contactIds);
+                JobStatus deleted = new JobStatus();
+                deleted.setStatus(FakeDataStore.JOB_FINISHED);
+                return ok(deleted);
+            case ADDRESS_BOOK_CONTACTS_IMPORT:
+                return startImport(addressBook(params.get(0)).getId(), body, contentType);
+            case ADDRESS_BOOK_CONTACTS_UNSUBSCRIBED_SINCE_DATE:
+                return ok(page(data.addressBookUnsubscribedSince(addressBook(params.get(0)).getId(), date(params.get(1))), query));
+
+            case CAMPAIGNS:
+            case CAMPAIGNS_WITH_ACTIVITY_SINCE:
+                return ok(page(data.campaigns(), query));
+            case CAMPAIGN_INFO:
+                CampaignInfo campaign = campaign(params.get(0));
+                if (PUT.equals(method)) {
+                    return ok(data.updateCampaign(campaign.getId(), read(body, CampaignInfo.class)));
+                }
+                return ok(campaign);
+            case CAMPAIGN_SUMMARY:
+                return ok(data.campaignSummary(campaign(params.get(0)).getId()));
+            case CAMPAIGN_ACTIVITY:
+                return ok(page(data.campaignActivities(campaign(params.get(0)).getId(), null), query));
+            case CAMPAIGN_ACTIVITY_SINCE:
+                return ok(page(data.campaignActivities(campaign(params.get(0)).getId(), date(params.get(1))), query));
+
+            case DATA_FIELDS:
+                if (POST.equals(method)) {
+                    DataField dataField = read(body, DataField.class);
+                    if (dataField.getName() == null) {
+                        throw new ApiError(400, "ERROR_DATAFIELD_INVALID");
+                    }
+                    if (!data.createDataField(dataField)) {
+                        throw new ApiError(400, "ERROR_NON_UNIQUE_DATAFIELD");
+                    }
+                    return ok(dataField);
+                }
+                return ok(data.dataFields());
+            case DATA_FIELD:
+                if (!DELETE.equals(method) || !data.deleteDataField(params.get(0))) {
+                    throw new ApiError(404, "ERROR_DATAFIELD_NOTFOUND");
+                }
+                return ok(Collections.emptyMap());
+
+            case EMAIL_TRIGGERED_CAMPAIGN:
+                return triggeredSend(body);
+            case TRANSACTIONAL_EMAIL_STATS_SINCE_DATE:
+                return ok(transactionalStatistics(date(params.get(0))));
+
+            default:
+                throw new ApiError(404, "ERROR_PARAMETER_INVALID");
+        }
+    }
+
+    private Response contact(String method, String idOrEmail, InputStream body) throws IOException {
+        Contact contact = data.contact(idOrEmail);
+        if (contact == null) {
+            throw new ApiError(404, "ERROR_CONTACT_NOT_FOUND");
+        }
+        switch (method) {
+            case PUT:
+                Contact update = read(body, Contact.class);
+                update.setId(contact.getId());
+                return ok(data.saveContact(update));
+            case DELETE:
+                data.deleteContact(Long.parseLong(contact.getId()));
+                return new Response(204, null);
+            default:
+                return ok(contact);
+        }
+    }
+
+    private AccountInfo accountInfo() {
+        DMProperty apiEndpoint = new DMProperty();
+        apiEndpoint.setName("ApiEndpoint");
+        apiEndpoint.setType("String");
+        apiEndpoint.setValue(server.getUrl());
+        AccountInfo accountInfo = new AccountInfo();
+        accountInfo.setId(1L);
+        accountInfo.setProperties(Collections.singletonList(apiEndpoint));
+        return accountInfo;
+    }
+
+    private AddressBook addressBook(String id) {
+        AddressBook addressBook = data.addressBook(id(id));
+        if (addressBook == null) {
+            throw new ApiError(404, "ERROR_ADDRESSBOOK_NOT_FOUND");
+        }
+        return addressBook;
+    }
+
+    private CampaignInfo campaign(String id) {
+        CampaignInfo campaign = data.campaign(id(id));
+        if (campaign == null) {
+            throw new ApiError(404, "ERROR_CAMPAIGN_NOT_FOUND");
+        }
+        return campaign;
+    }
+
+    private Response importReport(String guid) {
+        if (!data.importExists(guid)) {
+            throw new ApiError(404, "ERROR_IMPORT_NOT_FOUND");
+        }
+        JobReport report = data.importReport(guid);
+        if (report == null) {
+            throw new ApiError(404, "ERROR_IMPORT_REPORT_NOT_FOUND");
+        }
+        return ok(report);
+    }
+
+    /**
+     * Reads the CSV file of a multipart upload. The email column is required, every other column becomes a data field.
+     */
+    private Response startImport(Long addressBookId, InputStream body, String contentType) throws IOException {
+        if (contentType == null || !contentType.startsWith("multipart/form-data") || !contentType.contains("boundary=")) {
+            throw new ApiError(400, "ERROR_CONTENT_TYPE_IS_NOT_SUPPORTED");
+        }
+        String boundary = contentType.substring(contentType.indexOf("boundary=") + "boundary=".length()).replace("\"", "");
+        String csv = filePart(new String(readAll(body), StandardCharsets.UTF_8), boundary);
+
+        List<Contact> contacts = new ArrayList<>();
+        int invalidEntries = 0;
+        try (CsvListReader reader = new CsvListReader(new StringReader(csv), CsvPreference.STANDARD_PREFERENCE)) {
+            String[] header = reader.getHeader(true);
+            int emailColumn = header == null ? -1 : indexOfIgnoreCase(header, "email");
+            if (emailColumn < 0) {
+                throw new ApiError(400, "ERROR_NO_EMAIL_COLUMN");
+            }
+            List<String> row;
+            while ((row = reader.read()) != null) {
+                String email = row.size() > emailColumn ? row.get(emailColumn) : null;
+                if (email == null || !email.contains("@")) {
+                    invalidEntries++;
+                    continue;
+                }
+                Contact contact = new Contact();
+                contact.setEmail(email);
+                List<KeyVal> dataFields = new ArrayList<>();
+                for (int i = 0; i < header.length && i < row.size(); i++) {
+                    if (i != emailColumn) {
+                        dataFields.add(new KeyVal(header[i].toUpperCase(), row.get(i)));
+                    }
+                }
+                contact.setDataFields(dataFields);
+                contacts.add(contact);
+            }
+        }
+        return ok(data.startImport(addressBookId, contacts, invalidEntries));
+    }
+
+    private String filePart(String multipart, String boundary) {
+        int partStart = multipart.indexOf("--" + boundary);
+        int contentStart = partStart < 0 ? -1 : multipart.indexOf("\r\n\r\n", partStart);
+        if (contentStart < 0) {
+            throw new ApiError(400, "ERROR_MALFORMED_REQUEST");
+        }
+        int contentEnd = multipart.indexOf("\r\n--" + boundary, contentStart);
+        return multipart.substring(contentStart + 4, contentEnd < 0 ? multipart.length() : contentEnd);
+    }
+
+    private Response triggeredSend(InputStream body) throws IOException {
+        EmailTriggeredCampaignRequest request = read(body, EmailTriggeredCampaignRequest.class);
+        if (request.getToAddresses() == null || request.getToAddresses().isEmpty()) {
+            throw new ApiError(400, "ERROR_CONTACTS_ARE_NOT_SPECIFIED");
+        }
+        for (String address : request.getToAddresses()) {
+            if (address == null || !address.contains("@")) {
+                throw new ApiError(400, "ERROR_INVALID_EMAIL");
+            }
+        }
+        if (data.campaign(request.getCampaignId()) == null) {
+            throw new ApiError(404, "ERROR_CAMPAIGN_NOT_FOUND");
+        }
+        Map<String, String> personalisation = new LinkedHashMap<>();
+        if (request.getPersonalizationValues() != null) {
+            for (NameValue value : request.getPersonalizationValues()) {
+                personalisation.put(value.getName(), value.getValue());
+            }
+        }
+        data.recordTriggeredSend(new TriggeredSend(request.getCampaignId(), request.getToAddresses(), personalisation));
+        return new Response(202, null);
+    }
+
+    private TransactionalEmailStatistics transactionalStatistics(Date since) {
+        int sent = data.recipientsSentSince(since);
+        TransactionalEmailStatistics statistics = new TransactionalEmailStatistics();
+        statistics.setStartDate(since.toInstant());
+        statistics.setEndDate(Instant.now());
+        statistics.setNumSent(sent);
+        statistics.setNumDelivered(sent);
+        return statistics;
+    }
+
+    private <T> List<T> page(List<T> all, Map<String, String> query) {
+        int select = intParam(query, "select", MAX_SELECT);
+        int skip = intParam(query, "skip", 0);
+        if (select < 1 || select > MAX_SELECT || skip < 0) {
+            throw new ApiError(400, "ERROR_PARAMETER_INVALID");
+        }
+        if (skip >= all.size()) {
+            return Collections.emptyList();
+        }
+        return all.subList(skip, Math.min(all.size(), skip + select));
+    }
+
+    private int intParam(Map<String, String> query, String name, int defaultValue) {
+        String value = query.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException ex) {
+            throw new ApiError(400, "ERROR_PARAMETER_INVALID");
+        }
+    }
+
+    private long id(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException ex) {
+            throw new ApiError(400, "ERROR_PARAMETER_INVALID");
+        }
+    }
+
+    private Date date(String value) {
+        String pattern = value.length() > DATE_FORMAT.length() ? DATE_TIME_FORMAT : DATE_FORMAT;
+        try {
+            return new SimpleDateFormat(pattern).parse(value);
+        } catch (ParseException ex) {
+            throw new ApiError(400, "ERROR_PARAMETER_INVALID");
+        }
+    }
+
+    private <T> T read(InputStream body, java.lang.reflect.Type type) throws IOException {
+        try {
+            T value = gson.fromJson(new String(readAll(body), StandardCharsets.UTF_8), type);
+            if (value == null) {
+                throw new ApiError(400, "ERROR_MALFORMED_REQUEST");
+            }
+            return value;
+        } catch (JsonParseException ex) {
+            throw new ApiError(400, "ERROR_MALFORMED_REQUEST");
+        }
+    }
+
+    private List<String> pathParams(DefaultEndpoints endpoint, String path) throws UnsupportedEncodingException {
+        String[] templateSegments = endpoint.getPath().split("/");
+        String[] pathSegments = path.split("/");
+        List<String> params = new ArrayList<>();
+        for (int i = 0; i < templateSegments.length && i < pathSegments.length; i++) {
+            if ("%s".equals(templateSegments[i])) {
+                params.add(URLDecoder.decode(pathSegments[i], StandardCharsets.UTF_8.name()));
+            }
+        }
+        return params;
+    }
+
+    private Map<String, String> query(String rawQuery) throws UnsupportedEncodingException {
+        Map<String, String> query = new LinkedHashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                query.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8.name()),
+                          URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8.name()));
+            }
+        }
+        return query;
+    }
+
+    private static int indexOfIgnoreCase(String[] values, String value) {
+        for (int i = 0; i < values.length; i++) {
+            if (value.equalsIgnoreCase(values[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void send(HttpExchange exchange, Response response) throws IOException {
+        response.headers.forEach((name, value) -> exchange.getResponseHeaders().set(name, value));
+        if (response.body == null) {
+            exchange.sendResponseHeaders(response.status, -1);
+            return;
+        }
+        byte[] bytes = gson.toJson(serializable(response.body)).getBytes(StandardCharsets.UTF_8);
+        if (GET.equals(exchange.getRequestMethod()) && response.status == 200) {
+            String etag = "\"" + Integer.toHexString(Arrays.hashCode(bytes)) + "\"";
+            exchange.getResponseHeaders().set("ETag", etag);
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                // the JDK server leaves the connection unusable after a 304, don't let the client keep it alive
+                exchange.getResponseHeaders().set("Connection", "close");
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+        }
+        exchange.getResponseHeaders().set("Content-Type", JSON_CONTENT_TYPE);
+        if (bytes.length >= GZIP_MIN_BYTES && acceptsGzip(exchange)) {
+            bytes = gzip(bytes);
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.sendResponseHeaders(response.status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Gson can't reflect into the JDK's internal collections (empty lists, sub lists) on recent JVMs, so they're copied
+     */
+    private static Object serializable(Object body) {
+        if (body instanceof Collection) {
+            return new ArrayList<>((Collection<?>) body);
+        }
+        if (body instanceof Map) {
+            return new LinkedHashMap<>((Map<?, ?>) body);
+        }
+        return body;
+    }
+
+    private static boolean acceptsGzip(HttpExchange exchange) {
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(bytes.length / 4 + 32);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+            gzip.write(bytes);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static Response ok(Object body) {
+        return new Response(200, body);
+    }
+
+    private static ErrorResponse errorBody(String code) {
+        return message("Error: " + code);
+    }
+
+    private static ErrorResponse message(String message) {
+        ErrorResponse error = new ErrorResponse();
+        error.setMessage(message);
+        return error;
+    }
+
+    private static class Response {
+        private final int status;
+        private final Object body;
+        private final Map<String, String> headers = new LinkedHashMap<>();
+
+        private Response(int status, Object body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    /**
+     * Turned into an API style error body: {"message": "Error: CODE"}
+     */
+    private static class ApiError extends RuntimeException {
+        private final int status;
+        private final String code;
+
+        private ApiError(int status, String code) {
+            super(code);
+            this.status = status;
+            this.code = code;
+        }
+    }
+}
@@ -0,0 +1,436 @@
+package com.lindar.dotmailer.fake;
+
+import com.lindar.dotmailer.vo.api.AddressBook;
+import com.lindar.dotmailer.vo.api.CampaignContactActivity;
+import com.lindar.dotmailer.vo.api.CampaignInfo;
+import com.lindar.dotmailer.vo.api.CampaignSummary;
+import com.lindar.dotmailer.vo.api.Contact;
+import com.lindar.dotmailer.vo.api.DataField;
+import com.lindar.dotmailer.vo.api.JobReport;
+import com.lindar.dotmailer.vo.api.JobStatus;
+import com.lindar.dotmailer.vo.api.KeyVal;
+import com.lindar.dotmailer.vo.api.SuppressedContact;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * In memory account behind the fake server. Seed it before running the client against the server, inspect it
+ * afterwards. All methods are thread safe.
+ */
+public class FakeDataStore {
+
+    static final String JOB_FINISHED = "Finished";
+    static final String JOB_NOT_FINISHED = "NotFinished";
+
+    private final AtomicLong ids = new AtomicLong(100000);
+
+    private final Map<Long, Contact> contacts = new LinkedHashMap<>();
+    private final Map<Long, Date> contactCreatedDates = new LinkedHashMap<>();
+    private final Map<Long, AddressBook> addressBooks = new LinkedHashMap<>();
+    private final Map<Long, Set<Long>> addressBookContacts = new LinkedHashMap<>();
+    private final List<SuppressedContact> unsubscribed = new ArrayList<>();
+    private final List<SuppressedContact> suppressed = new ArrayList<>();
+    private final Map<Long, CampaignInfo> campaigns = new LinkedHashMap<>();
+    private final Map<Long, List<CampaignContactActivity>> campaignActivities = new LinkedHashMap<>();
+    private final Map<String, DataField> dataFields = new LinkedHashMap<>();
+    private final Map<String, ImportJob> imports = new LinkedHashMap<>();
+    private final List<TriggeredSend> triggeredSends = new ArrayList<>();
+
+    private volatile long importDurationMillis = 2000L;
+
+    /**
+     * How long an import stays NotFinished after it was posted
+     */
+    public void setImportDurationMillis(long importDurationMillis) {
+        this.importDurationMillis = importDurationMillis;
+    }
+
+    // ------------------------------------------------------------------ seeding
+
+    /**
+     * Adds <b>count</b> subscribed contacts with FIRSTNAME/LASTNAME data fields, created over the last 30 days
+     *
+     * @return the ids of the new contacts
+     */
+    public synchronized List<Long> seedContacts(int count) {
+        List<Long> newIds = new ArrayList<>(count);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < count; i++) {
+            long id = ids.incrementAndGet();
+            Contact contact = new Contact();
+            contact.setId(String.valueOf(id));
+            contact.setEmail("contact" + id + "@example.com");
+            contact.setStatus("Subscribed");
+            contact.setOptInType("Single");
+            contact.setEmailType("Html");
+            List<KeyVal> fields = new ArrayList<>();
+            fields.add(new KeyVal("FIRSTNAME", "First" + id));
+            fields.add(new KeyVal("LASTNAME", "Last" + id));
+            contact.setDataFields(fields);
+            contacts.put(id, contact);
+            contactCreatedDates.put(id, new Date(now - (count - i) * 30L * 24 * 3600 * 1000 / Math.max(count, 1)));
+            newIds.add(id);
+        }
+        return newIds;
+    }
+
+    /**
+     * Creates an address book holding the given contacts
+     *
+     * @return the id of the address book
+     */
+    public synchronized long seedAddressBook(String name, Collection<Long> contactIds) {
+        AddressBook addressBook = new AddressBook();
+        addressBook.setName(name);
+        addressBook.setVisibility("Private");
+        long id = createAddressBook(addressBook).getId();
+        addressBookContacts.get(id).addAll(contactIds);
+        return id;
+    }
+
+    /**
+     * Moves contacts to the unsubscribed (and suppressed) lists, as if they unsubscribed now
+     */
+    public synchronized void unsubscribe(Collection<Long> contactIds) {
+        Date now = new Date();
+        for (Long contactId : contactIds) {
+            Contact contact = contacts.get(contactId);
+            if (contact == null) {
+                continue;
+            }
+            contact.setStatus("Unsubscribed");
+            SuppressedContact suppressedContact = new SuppressedContact();
+            suppressedContact.setSuppressedContact(contact);
+            suppressedContact.setDateRemoved(now);
+            suppressedContact.setReason("Unsubscribed");
+            unsubscribed.add(suppressedContact);
+            suppressed.add(suppressedContact);
+        }
+    }
+
+    /**
+     * Creates a sent campaign with one activity per contact
+     *
+     * @return the id of the campaign
+     */
+    public synchronized long seedCampaign(String name, Collection<Long> sentToContactIds) {
+        long id = ids.incrementAndGet();
+        CampaignInfo campaign = new CampaignInfo();
+        campaign.setId(id);
+        campaign.setName(name);
+        campaign.setSubject(name);
+        campaign.setFromName("Fake Dotmailer");
+        campaign.setStatus("Sent");
+        campaign.setIsSplitTest(false);
+        campaigns.put(id, campaign);
+
+        Date sent = new Date();
+        List<CampaignContactActivity> activities = new ArrayList<>();
+        for (Long contactId : sentToContactIds) {
+            Contact contact = contacts.get(contactId);
+            if (contact == null) {
+                continue;
+            }
+            CampaignContactActivity activity = new CampaignContactActivity();
+            activity.setContactId(contactId);
+            activity.setEmail(contact.getEmail());
+            activity.setDateSent(sent);
+            activity.setNumOpens(ThreadLocalRandom.current().nextInt(3));
+            activity.setNumClicks(ThreadLocalRandom.current().nextInt(2));
+            activity.setNumPageViews(0);
+            activity.setNumForwards(0);
+            activity.setNumEstimatedForwards(0);
+            activity.setNumReplies(0);
+            activity.setUnsubscribed(false);
+            activity.setSoftBounced(false);
+            activity.setHardBounced(false);
+            activities.add(activity);
+        }
+        campaignActivities.put(id, activities);
+        return id;
+    }
+
+    // ------------------------------------------------------------------ contacts
+
+    synchronized List<Contact> contacts(boolean withFullData) {
+        return contacts.values().stream().map(contact -> withFullData ? contact : withoutDataFields(contact)).collect(Collectors.toList());
+    }
+
+    synchronized List<Contact> contactsCreatedSince(Date since, boolean withFullData) {
+        return contacts.entrySet().stream()
+                .filter(entry -> !contactCreatedDates.get(entry.getKey()).before(since))
+                .map(entry -> withFullData ? entry.getValue() : withoutDataFields(entry.getValue()))
+                .collect(Collectors.toList());
+    }
+
+    synchronized Contact contact(String idOrEmail) {
+        if (idOrEmail.contains("@")) {
+            return contacts.values().stream().filter(contact -> idOrEmail.equalsIgnoreCase(contact.getEmail())).findFirst().orElse(null);
+        }
+        try {
+            return contacts.get(Long.parseLong(idOrEmail));
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Creates the contact or, like the API, updates the existing one with the same email
+     */
+    public synchronized Contact saveContact(Contact contact) {
+        Contact existing = contact.getId() != null ? contact(contact.getId()) : contact(contact.getEmail());
+        if (existing != null) {
+            existing.setEmail(contact.getEmail() != null ? contact.getEmail() : existing.getEmail());
+            existing.setOptInType(contact.getOptInType() != null ? contact.getOptInType() : existing.getOptInType());
+            existing.setEmailType(contact.getEmailType() != null ? contact.getEmailType() : existing.getEmailType());
+            existing.setDataFields(contact.getDataFields() != null ? contact.getDataFields() : existing.getDataFields());
+            return existing;
+        }
+        long id = ids.incrementAndGet();
+        contact.setId(String.valueOf(id));
+        if (contact.getStatus() == null) {
+            contact.setStatus("Subscribed");
+        }
+        contacts.put(id, contact);
+        contactCreatedDates.put(id, new Date());
+        return contact;
+    }
+
+    synchronized boolean deleteContact(long id) {
+        addressBookContacts.values().forEach(members -> members.remove(id));
+        contactCreatedDates.remove(id);
+        return contacts.remove(id) != null;
+    }
+
+    synchronized List<SuppressedContact> unsubscribedSince(Date since) {
+        return unsubscribed.stream().filter(contact -> !contact.getDateRemoved().before(since)).collect(Collectors.toList());
+    }
+
+    synchronized List<SuppressedContact> suppressedSince(Date since) {
+        return suppressed.stream().filter(contact -> !contact.getDateRemoved().before(since)).collect(Collectors.toList());
+    }
+
+    synchronized List<AddressBook> addressBooksOf(long contactId) {
+        return addressBookContacts.entrySet().stream()
+                .filter(entry -> entry.getValue().contains(contactId))
+                .map(entry -> addressBook(entry.getKey()))
+                .collect(Collectors.toList());
+    }
+
+    // ------------------------------------------------------------------ address books
+
+    synchronized List<AddressBook> addressBooks() {
+        return addressBooks.keySet().stream().map(this::addressBook).collect(Collectors.toList());
+    }
+
+    synchronized AddressBook addressBook(long id) {
+        AddressBook addressBook = addressBooks.get(id);
+        if (addressBook != null) {
+            addressBook.setContacts(addressBookContacts.get(id).size());
+        }
+        return addressBook;
+    }
+
+    synchronized AddressBook createAddressBook(AddressBook addressBook) {
+        long id = ids.incrementAndGet();
+        addressBook.setId(id);
+        addressBooks.put(id, addressBook);
+        addressBookContacts.put(id, new LinkedHashSet<>());
+        return addressBook;
+    }
+
+    synchronized List<Contact> addressBookContacts(long addressBookId, boolean withFullData) {
+        return addressBookContacts.get(addressBookId).stream()
+                .map(contacts::get)
+                .map(contact -> withFullData ? contact : withoutDataFields(contact))
+                .collect(Collectors.toList());
+    }
+
+    synchronized Contact addToAddressBook(long addressBookId, Contact contact) {
+        Contact saved = saveContact(contact);
+        addressBookContacts.get(addressBookId).add(Long.parseLong(saved.getId()));
+        return saved;
+    }
+
+    synchronized void removeFromAddressBook(long addressBookId, Collection<Long> contactIds) {
+        addressBookContacts.get(addressBookId).removeAll(contactIds);
+    }
+
+    synchronized List<SuppressedContact> addressBookUnsubscribedSince(long addressBookId, Date since) {
+        Set<Long> members = addressBookContacts.get(addressBookId);
+        return unsubscribedSince(since).stream()
+                .filter(contact -> members.contains(Long.parseLong(contact.getSuppressedContact().getId())))
+                .collect(Collectors.toList());
+    }
+
+    // ------------------------------------------------------------------ imports
+
+    /**
+     * Registers an import of the given contacts, which are saved straight away but only reported as Finished once
+     * the import duration has passed
+     */
+    synchronized JobStatus startImport(Long addressBookId, List<Contact> importedContacts, int invalidEntries) {
+        JobReport report = new JobReport();
+        int newContacts = 0;
+        int updatedContacts = 0;
+        for (Contact contact : importedContacts) {
+            boolean exists = contact(contact.getEmail()) != null;
+            Contact saved = addressBookId != null ? addToAddressBook(addressBookId, contact) : saveContact(contact);
+            if (exists) {
+                updatedContacts++;
+            } else {
+                newContacts++;
+            }
+            saved.setStatus(saved.getStatus() != null ? saved.getStatus() : "Subscribed");
+        }
+        report.setNewContacts(newContacts);
+        report.setUpdatedContacts(updatedContacts);
+        report.setInvalidEntries(invalidEntries);
+        report.setDuplicateEmails(0);
+        report.setGloballySuppressed(0);
+        report.setBlocked(0);
+        report.setUnsubscribed(0);
+        report.setHardBounced(0);
+        report.setSoftBounced(0);
+        report.setIspComplaints(0);
+        report.setMailBlocked(0);
+        report.setDomainSuppressed(0);
+        report.setPendingDoubleOptin(0);
+        report.setFailures(0);
+
+        String guid = UUID.randomUUID().toString();
+        imports.put(guid, new ImportJob(System.currentTimeMillis() + importDurationMillis, report));
+        return importStatus(guid);
+    }
+
+    synchronized JobStatus importStatus(String guid) {
+        ImportJob job = imports.get(guid);
+        if (job == null) {
+            return null;
+        }
+        JobStatus status = new JobStatus();
+        status.setId(guid);
+        status.setStatus(job.isFinished() ? JOB_FINISHED : JOB_NOT_FINISHED);
+        return status;
+    }
+
+    /**
+     * @return the report, or null if the import doesn't exist or hasn't finished yet
+     */
+    synchronized JobReport importReport(String guid) {
+        ImportJob job = imports.get(guid);
+        return job != null && job.isFinished() ? job.report : null;
+    }
+
+    synchronized boolean importExists(String guid) {
+        return imports.containsKey(guid);
+    }
+
+    // ------------------------------------------------------------------ campaigns
+
+    synchronized List<CampaignInfo> campaigns() {
+        return new ArrayList<>(campaigns.values());
+    }
+
+    synchronized CampaignInfo campaign(long id) {
+        return campaigns.get(id);
+    }
+
+    synchronized CampaignInfo updateCampaign(long id, CampaignInfo campaign) {
+        campaign.setId(id);
+        campaigns.put(id, campaign);
+        return campaign;
+    }
+
+    synchronized List<CampaignContactActivity> campaignActivities(long id, Date since) {
+        return campaignActivities.getOrDefault(id, Collections.emptyList()).stream()
+                .filter(activity -> since == null || !activity.getDateSent().before(since))
+                .collect(Collectors.toList());
+    }
+
+    synchronized CampaignSummary campaignSummary(long id) {
+        List<CampaignContactActivity> activities = campaignActivities.getOrDefault(id, Collections.emptyList());
+        CampaignSummary summary = new CampaignSummary();
+        summary.setDateSent(activities.isEmpty() ? null : activities.get(0).getDateSent());
+        summary.setNumSent(activities.size());
+        summary.setNumTotalSent(activities.size());
+        summary.setNumOpens(activities.stream().mapToInt(CampaignContactActivity::getNumOpens).sum());
+        summary.setNumUniqueOpens((int) activities.stream().filter(activity -> activity.getNumOpens() > 0).count());
+        summary.setNumClicks(activities.stream().mapToInt(CampaignContactActivity::getNumClicks).sum());
+        return summary;
+    }
+
+    // ------------------------------------------------------------------ data fields
+
+    synchronized List<DataField> dataFields() {
+        return new ArrayList<>(dataFields.values());
+    }
+
+    /**
+     * @return false if a data field with the same name already exists
+     */
+    synchronized boolean createDataField(DataField dataField) {
+        return dataFields.putIfAbsent(dataField.getName().toUpperCase(), dataField) == null;
+    }
+
+    synchronized boolean deleteDataField(String name) {
+        return dataFields.remove(name.toUpperCase()) != null;
+    }
+
+    // ------------------------------------------------------------------ transactional
+
+    synchronized void recordTriggeredSend(TriggeredSend send) {
+        triggeredSends.add(send);
+    }
+
+    /**
+     * @return every triggered campaign send received so far
+     */
+    public synchronized List<TriggeredSend> getTriggeredSends() {
+        return new ArrayList<>(triggeredSends);
+    }
+
+    synchronized int recipientsSentSince(Date since) {
+        return triggeredSends.stream().filter(send -> !send.getReceivedAt().before(since)).mapToInt(send -> send.getToAddresses().size()).sum();
+    }
+
+    public synchronized int getContactCount() {
+        return contacts.size();
+    }
+
+    private static Contact withoutDataFields(Contact contact) {
+        Contact copy = new Contact();
+        copy.setId(contact.getId());
+        copy.setEmail(contact.getEmail());
+        copy.setStatus(contact.getStatus());
+        copy.setOptInType(contact.getOptInType());
+        copy.setEmailType(contact.getEmailType());
+        return copy;
+    }
+
+    private static class ImportJob {
+        private final long finishesAt;
+        private final JobReport report;
+
+        private ImportJob(long finishesAt, JobReport report) {
+            this.finishesAt = finishesAt;
+            this.report = report;
+        }
+
+        private boolean isFinished() {
+            return System.currentTimeMillis() >= finishesAt;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.lindar.dotmailer.fake;
+
+import com.lindar.dotmailer.Dotmailer;
+import com.lindar.dotmailer.util.DefaultEndpoints;
+import com.lindar.dotmailer.util.NamedThreadFactory;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Embeddable stand-in for the dotmailer REST API, meant for local runs and CI load tests of code built on this client.
+ * <p>
+ * Serves every endpoint in DefaultEndpoints from an in memory FakeDataStore: select/skip paging (1000 records at
+ * most), contact imports that finish after a while and then have a report, triggered campaign sends and dotmailer
+ * style error bodies. GET responses carry an ETag and honour If-None-Match, responses are gzipped for clients that
+ * accept it and gzipped request bodies are understood.
+ * Latency, injected server errors and 429 throttling can be configured to see how the client behaves under load.
+ * <pre>
+ * try (FakeDotmailerServer server = new FakeDotmailerServer().withLatency(5, 50).withRateLimit(100).start()) {
+ *     server.data().seedContacts(10000);
+ *     Dotmailer dotmailer = server.client();
+ *     ...
+ * }
+ * </pre>
+ */
+public class FakeDotmailerServer implements AutoCloseable {
+
+    public static final String USERNAME = "apiuser-fake@apiconnector.com";
+    public static final String PASSWORD = "fake";
+
+    private static final String THREAD_PREFIX = "fake-dotmailer";
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final String NO_DELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+    static {
+        // without TCP_NODELAY every keep-alive response waits ~40ms for a delayed ACK, which swamps any latency
+        // configured here. The JDK server reads the property once, so this only works if it's set before the first
+        // HttpServer of the JVM is created.
+        if (System.getProperty(NO_DELAY_PROPERTY) == null) {
+            System.setProperty(NO_DELAY_PROPERTY, "true");
+        }
+    }
+
+    private final int port;
+    private final FakeDataStore data = new FakeDataStore();
+
+    private volatile long minLatencyMillis;
+    private volatile long maxLatencyMillis;
+    private volatile double errorRate;
+    private volatile int errorStatus = 503;
+    private volatile int requestsPerSecond;
+
+    private long windowStartNanos = System.nanoTime();
+    private int requestsInWindow;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong throttledRequests = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+
+    private HttpServer httpServer;
+    private ExecutorService executor;
+
+    /**
+     * Listens on a random free port of the loopback interface
+     */
+    public FakeDotmailerServer() {
+        this(0);
+    }
+
+    /**
+     * @param port the port to listen on, 0 picks a free one
+     */
+    public FakeDotmailerServer(int port) {
+        this.port = port;
+    }
+
+    /**
+     * Delays every response by a random time between the two bounds
+     */
+    public FakeDotmailerServer withLatency(long minMillis, long maxMillis) {
+        if (minMillis < 0 || maxMillis < minMillis) {
+            throw new IllegalArgumentException("latency bounds must satisfy 0 <= min <= max");
+        }
+        this.minLatencyMillis = minMillis;
+        this.maxLatencyMillis = maxMillis;
+        return this;
+    }
+
+    /**
+     * Fails the given fraction of the requests (0 to 1) with a 503
+     */
+    public FakeDotmailerServer withErrorRate(double errorRate) {
+        return withErrorRate(errorRate, 503);
+    }
+
+    /**
+     * Fails the given fraction of the requests (0 to 1) with the given status code
+     */
+    public FakeDotmailerServer withErrorRate(double errorRate, int errorStatus) {
+        if (errorRate < 0 || errorRate > 1) {
+            throw new IllegalArgumentException("errorRate must be between 0 and 1");
+        }
+        this.errorRate = errorRate;
+        this.errorStatus = errorStatus;
+        return this;
+    }
+
+    /**
+     * Answers 429 with a Retry-After header once more than <b>requestsPerSecond</b> requests arrive in the same
+     * second. 0 turns throttling off.
+     */
+    public FakeDotmailerServer withRateLimit(int requestsPerSecond) {
+        this.requestsPerSecond = requestsPerSecond;
+        return this;
+    }
+
+    public synchronized FakeDotmailerServer start() throws IOException {
+        if (httpServer != null) {
+            return this;
+        }
+        executor = Executors.newCachedThreadPool(new NamedThreadFactory(THREAD_PREFIX));
+        httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        httpServer.createContext("/", new FakeApiHandler(this, data));
+        httpServer.setExecutor(executor);
+        httpServer.start();
+        return this;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (httpServer != null) {
+            httpServer.stop(0);
+            executor.shutdownNow();
+            httpServer = null;
+        }
+    }
+
+    /**
+     * @return the base url to build the client with, e.g. http://127.0.0.1:54321
+     */
+    public synchronized String getUrl() {
+        if (httpServer == null) {
+            throw new IllegalStateException("The server hasn't been started");
+        }
+        InetSocketAddress address = httpServer.getAddress();
+        return "http://" + address.getAddress().getHostAddress() + ":" + address.getPort();
+    }
+
+    /**
+     * @return a client facade pointing at this server
+     */
+    public Dotmailer client() {
+        return Dotmailer.build(USERNAME, PASSWORD, getUrl());
+    }
+
+    public FakeDataStore data() {
+        return data;
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    public long getThrottledCount() {
+        return throttledRequests.get();
+    }
+
+    public long getInjectedErrorCount() {
+        return injectedErrors.get();
+    }
+
+    String getVersion() {
+        return DefaultEndpoints.VERSION.getPath();
+    }
+
+    int getErrorStatus() {
+        return errorStatus;
+    }
+
+    void requestReceived() {
+        requests.incrementAndGet();
+    }
+
+    long nextLatencyMillis() {
+        long min = minLatencyMillis;
+        long max = maxLatencyMillis;
+        return max <= min ? min : ThreadLocalRandom.current().nextLong(min, max + 1);
+    }
+
+    boolean injectError() {
+        if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+            injectedErrors.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Fixed one second window, like the hourly window of the real API only shorter
+     *
+     * @return 0 if the request is allowed, otherwise the seconds to put in the Retry-After header
+     */
+    synchronized long throttle() {
+        if (requestsPerSecond <= 0) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        if (now - windowStartNanos >= WINDOW_NANOS) {
+            windowStartNanos = now;
+            requestsInWindow = 0;
+        }
+        if (++requestsInWindow <= requestsPerSecond) {
+            return 0;
+        }
+        throttledRequests.incrementAndGet();
+        return 1;
+    }
+
+    /**
+     * Runs the server standalone: java -jar fake-server.jar [port] [contacts]
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8089;
+        int contacts = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+        FakeDotmailerServer server = new FakeDotmailerServer(port).start();
+        server.data().seedAddressBook("Fake address book", server.data().seedContacts(contacts));
+        server.data().seedCampaign("Fake campaign", Collections.emptyList());
+        System.out.println("Fake dotmailer API listening on " + server.getUrl() + " (user " + USERNAME + ", password " + PASSWORD + ")");
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        // the handler threads are daemons, keep the JVM up until it's killed
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,40 @@
+package com.lindar.dotmailer.fake;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A triggered campaign send received by the fake server
+ */
+public class TriggeredSend {
+
+    private final int campaignId;
+    private final List<String> toAddresses;
+    private final Map<String, String> personalisation;
+    private final Date receivedAt;
+
+    TriggeredSend(int campaignId, List<String> toAddresses, Map<String, String> personalisation) {
+        this.campaignId = campaignId;
+        this.toAddresses = Collections.unmodifiableList(toAddresses);
+        this.personalisation = Collections.unmodifiableMap(personalisation);
+        this.receivedAt = new Date();
+    }
+
+    public int getCampaignId() {
+        return campaignId;
+    }
+
+    public List<String> getToAddresses() {
+        return toAddresses;
+    }
+
+    public Map<String, String> getPersonalisation() {
+        return personalisation;
+    }
+
+    public Date getReceivedAt() {
+        return receivedAt;
+    }
+}
@@ -1,16 +1,29 @@
 package com.lindar.dotmailer;
 
 import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 import com.lindar.dotmailer.api.*;
+import com.lindar.dotmailer.api.async.AsyncDotmailer;
+import com.lindar.dotmailer.cache.LruResponseCache;
+import com.lindar.dotmailer.cache.ResponseCache;
+import com.lindar.dotmailer.index.SuppressionAction;
+import com.lindar.dotmailer.index.SuppressionFilter;
+import com.lindar.dotmailer.metrics.MetricsListener;
 import com.lindar.wellrested.vo.Result;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import com.lindar.dotmailer.transport.DotmailerTransport;
+import com.lindar.dotmailer.util.CircuitBreaker;
 import com.lindar.dotmailer.util.DefaultEndpoints;
 import com.lindar.dotmailer.util.InvalidAccountException;
+import com.lindar.dotmailer.util.RateLimiter;
+import com.lindar.dotmailer.util.RetryPolicy;
 import com.lindar.dotmailer.vo.api.AccountInfo;
 import com.lindar.dotmailer.vo.api.DMProperty;
 import com.lindar.dotmailer.vo.internal.DMAccessCredentials;
+import com.lindar.dotmailer.vo.internal.DMClientConfig;
 
 /**
  * Dotmailer API Client Facade
@@ -18,12 +31,13 @@ import com.lindar.dotmailer.vo.internal.DMAccessCredentials;
  * @author Iulian Dafinoiu
  */
 @Slf4j
-public class Dotmailer {
+public class Dotmailer implements AutoCloseable {
 
     private static final String API_ENDPOINT_PROP = "ApiEndpoint";
     private static final String INVALID_ACCOUNT_MSG = "No account info could be found using the provided credentials. Please check and try again";
 
     private DMAccessCredentials accessCredentials;
+    private DMClientConfig clientConfig;
 
     private AccountInfoResource accountInfoResource;
     private AddressBookResource addressBookResource;
@@ -31,16 +45,20 @@ public class Dotmailer {
     private CampaignResource campaignResource;
     private DataFieldResource dataFieldResource;
     private TransactionalResource transactionalResource;
+    private AsyncDotmailer asyncDotmailer;
 
 
     private Dotmailer(DMAccessCredentials accessCredentials) {
         this.accessCredentials = accessCredentials;
-        this.accountInfoResource = new AccountInfoResource(accessCredentials);
-        this.addressBookResource = new AddressBookResource(accessCredentials);
-        this.contactResource = new ContactResource(accessCredentials);
-        this.campaignResource = new CampaignResource(accessCredentials);
-        this.dataFieldResource = new DataFieldResource(accessCredentials);
-        this.transactionalResource = new TransactionalResource(accessCredentials);
+        this.clientConfig = new DMClientConfig();
+        this.accountInfoResource = new AccountInfoResource(accessCredentials, clientConfig);
+        this.addressBookResource = new AddressBookResource(accessCredentials, clientConfig);
+        this.contactResource = new ContactResource(accessCredentials, clientConfig);
+        this.campaignResource = new CampaignResource(accessCredentials, clientConfig);
+        this.dataFieldResource = new DataFieldResource(accessCredentials, clientConfig);
+        this.transactionalResource = new TransactionalResource(accessCredentials, clientConfig);
+        this.asyncDotmailer = new AsyncDotmailer(accountInfoResource, addressBookResource, contactResource, campaignResource,
+                dataFieldResource, transactionalResource);
     }
 
     /**
@@ -125,6 +143,210 @@ public class Dotmailer {
         return new Dotmailer(dMAccessCredentials);
     }
 
+    /**
+     * Fetches the pages of all full list calls (list, listContacts, listPersonalizedContacts, processFullList etc.)
+     * using up to <b>parallelPageFetches</b> concurrent requests. Pages are still returned in order. Use 1 (the
+     * default) to go back to fetching one page after the other.
+     *
+     * @param parallelPageFetches
+     * @return
+     */
+    public Dotmailer withParallelPagination(int parallelPageFetches) {
+        clientConfig.setParallelPageFetches(parallelPageFetches);
+        return this;
+    }
+
+    /**
+     * Sends all the requests of this facade through the given transport instead of the default pooled
+     * HttpClientTransport. Use WellRestedTransport to go back to the WellRested client. The transport being replaced is
+     * closed, so a transport that wraps another one should wrap a new instance rather than the current one.
+     *
+     * @param transport
+     * @return
+     */
+    public Dotmailer withTransport(DotmailerTransport transport) {
+        clientConfig.setTransport(transport);
+        return this;
+    }
+
+    /**
+     * Turns the gzip/deflate compression of responses on (the default) or off. Full data contact pages and campaign
+     * activities usually shrink to a fraction of their size.
+     *
+     * @param enabled
+     * @return
+     */
+    public Dotmailer withResponseCompression(boolean enabled) {
+        clientConfig.setResponseCompression(enabled);
+        return this;
+    }
+
+    /**
+     * Gzips JSON request bodies (e.g. contact id lists and triggered campaign sends) of at least <b>minBytes</b>
+     * bytes. Use a negative value to send them uncompressed again.
+     *
+     * @param minBytes
+     * @return
+     */
+    public Dotmailer withRequestCompression(int minBytes) {
+        clientConfig.setRequestCompressionMinBytes(minBytes);
+        return this;
+    }
+
+    /**
+     * Turns request coalescing on or off (the default). While it's on, threads asking for the same object at the same
+     * time (e.g. contact().get(email) for the same email) share a single request and all receive the same Result,
+     * so they must not modify its data.
+     *
+     * @param enabled
+     * @return
+     */
+    public Dotmailer withRequestCoalescing(boolean enabled) {
+        clientConfig.setRequestCoalescing(enabled);
+        return this;
+    }
+
+    /**
+     * Caches the responses of AddressBookResource.get, DataFieldResource.list, AccountInfoResource.get and
+     * CampaignResource.info in memory, using the default TTLs of ResponseCachePolicy. Updates made through this
+     * facade invalidate the affected responses; changes made elsewhere show up once the TTL has passed.
+     *
+     * @return
+     */
+    public Dotmailer withResponseCache() {
+        return withResponseCache(new LruResponseCache());
+    }
+
+    /**
+     * Caches the responses of the slow changing GETs in the given cache
+     *
+     * @param responseCache
+     * @return
+     */
+    public Dotmailer withResponseCache(ResponseCache responseCache) {
+        clientConfig.setResponseCache(responseCache);
+        return this;
+    }
+
+    /**
+     * Changes how long the responses of an endpoint are cached. 0 stops caching the endpoint.
+     *
+     * @param endpoint
+     * @param duration
+     * @param unit
+     * @return
+     */
+    public Dotmailer withResponseCacheTtl(DefaultEndpoints endpoint, long duration, TimeUnit unit) {
+        clientConfig.responseCachePolicy().ttl(endpoint, duration, unit);
+        return this;
+    }
+
+    /**
+     * Limits the requests sent by all the resources of this facade to <b>requestsPerSecond</b>. The rate is lowered
+     * automatically when dotmailer answers 429 and raised back once calls succeed again.
+     *
+     * @param requestsPerSecond
+     * @return
+     */
+    public Dotmailer withRateLimit(double requestsPerSecond) {
+        return withRateLimiter(new RateLimiter(requestsPerSecond));
+    }
+
+    /**
+     * Uses the given rate limiter for all the resources of this facade. Pass the same instance to every facade built
+     * for the same account so that together they stay under the account's limit.
+     *
+     * @param rateLimiter
+     * @return
+     */
+    public Dotmailer withRateLimiter(RateLimiter rateLimiter) {
+        clientConfig.setRateLimiter(rateLimiter);
+        return this;
+    }
+
+    /**
+     * Retries GETs that failed with a server error (500, 502, 503, 504) or an I/O error according to the given policy.
+     * Use RetryPolicy.noRetries() to turn retries off.
+     *
+     * @param retryPolicy
+     * @return
+     */
+    public Dotmailer withRetryPolicy(RetryPolicy retryPolicy) {
+        clientConfig.setRetryPolicy(retryPolicy);
+        return this;
+    }
+
+    /**
+     * Uses the given circuit breaker for all the resources of this facade. Use CircuitBreaker.disabled() to always
+     * send requests, even while dotmailer is failing.
+     *
+     * @param circuitBreaker
+     * @return
+     */
+    public Dotmailer withCircuitBreaker(CircuitBreaker circuitBreaker) {
+        clientConfig.setCircuitBreaker(circuitBreaker);
+        return this;
+    }
+
+    /**
+     * Reports the latency, status code, bytes sent and received of every request and the pages and records of every
+     * full list call to the given listener. Use a MetricsRegistry to keep them in memory.
+     *
+     * @param metricsListener
+     * @return
+     */
+    public Dotmailer withMetrics(MetricsListener metricsListener) {
+        clientConfig.setMetricsListener(metricsListener);
+        return this;
+    }
+
+    /**
+     * Counts and logs the recipients of transactional().send the filter reports as suppressed, but still sends to
+     * them (SuppressionAction.FLAG). The filter has false positives and doesn't forget resubscribed contacts, so
+     * dropping recipients has to be asked for with SuppressionAction.DROP.
+     *
+     * @param suppressionFilter
+     * @return
+     */
+    public Dotmailer withSuppressionFilter(SuppressionFilter suppressionFilter) {
+        return withSuppressionFilter(suppressionFilter, SuppressionAction.FLAG);
+    }
+
+    /**
+     * Checks the recipients of transactional().send against the filter and drops or only counts the suppressed ones,
+     * depending on the action. Pass null to stop checking.
+     *
+     * @param suppressionFilter
+     * @param action
+     * @return
+     */
+    public Dotmailer withSuppressionFilter(SuppressionFilter suppressionFilter, SuppressionAction action) {
+        clientConfig.setSuppressionFilter(suppressionFilter);
+        clientConfig.setSuppressionAction(action);
+        return this;
+    }
+
+    /**
+     * Runs the calls made through <b>async()</b> on the given executor instead of the default one (virtual threads
+     * when available, a cached thread pool otherwise)
+     *
+     * @param asyncExecutor
+     * @return
+     */
+    public Dotmailer withAsyncExecutor(Executor asyncExecutor) {
+        clientConfig.setAsyncExecutor(asyncExecutor);
+        return this;
+    }
+
+    /**
+     * Returns the client settings shared by all the resources of this facade
+     *
+     * @return
+     */
+    public DMClientConfig clientConfig() {
+        return clientConfig;
+    }
+
     /**
      * Returns an account info resource that allows you to interact with all account info endpoints
      *
@@ -179,4 +401,22 @@ public class Dotmailer {
         return transactionalResource;
     }
 
+    /**
+     * Returns the non blocking version of this facade. Its resources return CompletableFutures that complete on the
+     * async executor, so no caller thread is held while waiting for dotmailer.
+     *
+     * @return
+     */
+    public AsyncDotmailer async() {
+        return asyncDotmailer;
+    }
+
+    /**
+     * Closes the HTTP transport (and its pooled connections) and shuts down the page fetch and async threads of this
+     * facade. Executors passed to withAsyncExecutor are left to their owner.
+     */
+    @Override
+    public void close() {
+        clientConfig.close();
+    }
 }
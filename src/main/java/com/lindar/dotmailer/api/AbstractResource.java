@@ -1,27 +1,77 @@
 package com.lindar.dotmailer.api;
 
+import com.google.gson.Gson;
 import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonParseException;
 import com.google.gson.reflect.TypeToken;
+import com.lindar.dotmailer.cache.CachedResponse;
+import com.lindar.dotmailer.cache.ResponseCache;
+import com.lindar.dotmailer.transport.ContentEncoding;
+import com.lindar.dotmailer.transport.GzipRequestBody;
+import com.lindar.dotmailer.transport.HttpMethod;
+import com.lindar.dotmailer.transport.RequestBody;
+import com.lindar.dotmailer.transport.TransportRequest;
+import com.lindar.dotmailer.transport.TransportResponse;
+import com.lindar.dotmailer.metrics.MetricsListener;
+import com.lindar.dotmailer.process.Checkpoint;
+import com.lindar.dotmailer.process.ProcessOptions;
+import com.lindar.dotmailer.util.CircuitBreaker;
+import com.lindar.dotmailer.util.CircuitOpenException;
+import com.lindar.dotmailer.util.DefaultEndpoints;
 import com.lindar.dotmailer.util.ErrorTranslator;
+import com.lindar.dotmailer.util.GsonProvider;
+import com.lindar.dotmailer.util.JsonStreamDecoder;
+import com.lindar.dotmailer.util.RateLimiter;
+import com.lindar.dotmailer.util.RetryPolicy;
+import com.lindar.dotmailer.util.SingleFlight;
 import com.lindar.dotmailer.vo.internal.DMAccessCredentials;
+import com.lindar.dotmailer.vo.internal.DMClientConfig;
 import com.lindar.dotmailer.vo.internal.ErrorResponse;
-import com.lindar.wellrested.WellRestedRequest;
 import com.lindar.wellrested.vo.Result;
 import com.lindar.wellrested.vo.ResultBuilder;
-import com.lindar.wellrested.vo.WellRestedResponse;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.utils.DateUtils;
 
+import java.io.EOFException;
 import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Slf4j
 public abstract class AbstractResource {
     private static final String ERROR_INPUT = "ERROR_INPUT";
-    private static final String ERROR_UNKNOWN = "ERROR_UNKNOWN";
+    static final String ERROR_UNKNOWN = "ERROR_UNKNOWN";
+    private static final String ERROR_CIRCUIT_OPEN = "ERROR_CIRCUIT_OPEN";
+    private static final String ERROR_SERVICE_UNAVAILABLE = "ERROR_SERVICE_UNAVAILABLE";
+    private static final String ERROR_INVALID_RESPONSE = "ERROR_INVALID_RESPONSE";
+    private static final String ERROR_UNKNOWN_RESPONSE = "UNKNOWN_ERROR";
+    private static final List<String> TRANSIENT_ERRORS = Arrays.asList(ERROR_UNKNOWN, ERROR_CIRCUIT_OPEN, ERROR_SERVICE_UNAVAILABLE,
+                                                                       "ERROR_APIUSAGE_EXCEEDED", "ERROR_SYSTEM_SERVICETEMPORARILYUNAVAILABLE");
+    static final String ERROR_CHECKPOINT = "ERROR_CHECKPOINT";
 
 
     static final String WITH_FULL_DATA_ATTR = "withFullData";
@@ -35,24 +85,75 @@ public abstract class AbstractResource {
     static final int DEFAULT_MAX_SELECT = 1000;
     static final int DEFAULT_PER_STEP = 1000;
     static final int MAX_CONTACTS_TO_PROCESS_PER_STEP = 50000;
+    static final int UNKNOWN_TOTAL = -1;
+    static final String CSV_UPLOAD_NAME = "dotmailerContacts.csv";
 
-    @Getter
-    private long recordsSynced = 0L;
+    private static final String JSON_CONTENT_TYPE = "application/json";
+    private static final int NOT_MODIFIED = 304;
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final int SERVER_ERROR = 500;
+    private static final long DEFAULT_RETRY_AFTER_MILLIS = 1000L;
+
+    private final AtomicLong recordsSynced = new AtomicLong();
+    private final SingleFlight<String, Result<?>> inFlightGets = new SingleFlight<>();
 
     @Getter
     private final DMAccessCredentials accessCredentials;
 
+    @Getter
+    private final DMClientConfig clientConfig;
+
     AbstractResource(DMAccessCredentials accessCredentials) {
+        this(accessCredentials, new DMClientConfig());
+    }
+
+    AbstractResource(DMAccessCredentials accessCredentials, DMClientConfig clientConfig) {
         this.accessCredentials = accessCredentials;
+        this.clientConfig = clientConfig;
+    }
+
+    /**
+     * @return how many records the full list calls of this resource have processed so far
+     */
+    public long getRecordsSynced() {
+        return recordsSynced.get();
+    }
+
+    /**
+     * @return how many calls were answered with the Result of an identical GET that was already in flight
+     */
+    public long getCoalescedRequests() {
+        return inFlightGets.getSharedCalls();
     }
 
     private String dotmailerUrl() {
         return accessCredentials.getApiUrl() + accessCredentials.getVersion();
     }
 
-    private WellRestedRequest buildRequestFromResourcePath(String resourcePath) {
-        String url = validatePath(dotmailerUrl() + resourcePath);
-        return WellRestedRequest.builder().url(url).credentials(accessCredentials.getUsername(), accessCredentials.getPassword()).build();
+    private TransportRequest buildRequestFromResourcePath(HttpMethod method, String resourcePath, Object objectToSend) {
+        RequestBody body = objectToSend != null ? RequestBody.json(GsonProvider.requestGson().toJson(objectToSend)) : null;
+        int compressionMinBytes = clientConfig.getRequestCompressionMinBytes();
+        if (body != null && compressionMinBytes >= 0 && body.getContentLength() >= compressionMinBytes) {
+            GzipRequestBody gzipBody = RequestBody.gzip(body);
+            return buildRequest(method, validatePath(dotmailerUrl() + resourcePath), gzipBody)
+                    .header(HttpHeaders.CONTENT_ENCODING, gzipBody.getContentEncoding());
+        }
+        return buildRequest(method, validatePath(dotmailerUrl() + resourcePath), body);
+    }
+
+    private TransportRequest buildRequest(HttpMethod method, String url, RequestBody body) {
+        TransportRequest request = new TransportRequest(method, url, body)
+                .header(HttpHeaders.AUTHORIZATION, basicAuthorization())
+                .header(HttpHeaders.ACCEPT, JSON_CONTENT_TYPE);
+        if (clientConfig.isResponseCompression()) {
+            request.header(HttpHeaders.ACCEPT_ENCODING, ContentEncoding.ACCEPTED);
+        }
+        return request;
+    }
+
+    private String basicAuthorization() {
+        String credentials = accessCredentials.getUsername() + ":" + accessCredentials.getPassword();
+        return "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
     }
 
     private String validatePath(String path) {
@@ -73,79 +174,337 @@ public abstract class AbstractResource {
         return newPath.replaceAll(AND + AND, AND);
     }
 
+    /**
+     * Reads a successful response into a Result. Failed responses never get here, they're turned into a failed Result
+     * by execute
+     */
+    @FunctionalInterface
+    private interface ResponseReader<T> {
+        Result<T> read(TransportResponse response) throws IOException;
+    }
+
+    private <T> Result<T> execute(TransportRequest request, ResponseReader<T> responseReader) {
+        try (TransportResponse response = send(request)) {
+            if (!validStatusCode(response.getStatusCode()) && response.getStatusCode() != NOT_MODIFIED) {
+                return parseErrorResponse(response.getStatusCode(), response.bodyAsString());
+            }
+            return responseReader.read(response);
+        } catch (CircuitOpenException ex) {
+            return ResultBuilder.failed().msg(ex.getMessage()).code(ERROR_CIRCUIT_OPEN).buildAndIgnoreData();
+        } catch (IOException | IllegalStateException ex) {
+            log.error("Dotmailer {} {} failed: {}", request.getMethod(), request.getUrl(), ex);
+            return ResultBuilder.failed().msg(ex.getMessage()).code(ERROR_UNKNOWN).buildAndIgnoreData();
+        } catch (JsonParseException ex) {
+            // the API answered, sending the request again wouldn't help
+            log.error("Dotmailer {} {} answered something that isn't the expected JSON: {}", request.getMethod(), request.getUrl(), ex);
+            return ResultBuilder.failed().msg(ex.getMessage()).code(ERROR_INVALID_RESPONSE).buildAndIgnoreData();
+        }
+    }
+
+    /**
+     * Sends the request through the circuit breaker. GETs are idempotent, so when they fail with a server error or an
+     * I/O error they are sent again after a jittered backoff, as allowed by the retry policy. Each page of a list is a
+     * separate request, which means a failing page is retried on its own without restarting the whole walk (see
+     * fetchPage for failures while a page is being read).
+     */
+    private TransportResponse send(TransportRequest request) throws IOException {
+        try {
+            return sendWithRetries(request);
+        } finally {
+            if (request.getMethod() != HttpMethod.GET) {
+                invalidateCachedResponses(request.getUrl());
+            }
+        }
+    }
+
+    private TransportResponse sendWithRetries(TransportRequest request) throws IOException {
+        RetryPolicy retryPolicy = request.getMethod() == HttpMethod.GET ? clientConfig.retryPolicy() : RetryPolicy.noRetries();
+        CircuitBreaker circuitBreaker = clientConfig.circuitBreaker();
+        for (int attempt = 1; ; attempt++) {
+            if (!circuitBreaker.tryAcquire()) {
+                throw new CircuitOpenException("Dotmailer calls are suspended for " + circuitBreaker.remainingOpenMillis() + "ms after repeated failures");
+            }
+            TransportResponse response;
+            try {
+                response = sendThrottled(request);
+            } catch (IOException ex) {
+                if (Thread.currentThread().isInterrupted()) {
+                    // the caller gave up (e.g. while waiting for the rate limiter), which says nothing about the API
+                    circuitBreaker.release();
+                    throw ex;
+                }
+                circuitBreaker.onFailure();
+                // timeouts are InterruptedIOExceptions too, only the caller giving up stops the retries
+                if (!retryPolicy.canRetry(attempt)) {
+                    throw ex;
+                }
+                log.warn("Dotmailer {} {} failed on attempt {}: {}", request.getMethod(), request.getUrl(), attempt, ex.getMessage());
+                backoff(retryPolicy, attempt);
+                continue;
+            } catch (RuntimeException | Error ex) {
+                // not an answer from the API, but a trial request must not stay in flight forever
+                circuitBreaker.release();
+                throw ex;
+            }
+            int statusCode = response.getStatusCode();
+            if (statusCode == TOO_MANY_REQUESTS) {
+                // the API is up but we're over the limit: neither closes a half open circuit nor counts towards opening it
+                circuitBreaker.release();
+                return response;
+            }
+            if (statusCode < SERVER_ERROR) {
+                circuitBreaker.onSuccess();
+                return response;
+            }
+            circuitBreaker.onFailure();
+            if (!retryPolicy.isRetryableStatus(statusCode) || !retryPolicy.canRetry(attempt)) {
+                return response;
+            }
+            response.close();
+            log.warn("Dotmailer {} {} answered {} on attempt {}", request.getMethod(), request.getUrl(), statusCode, attempt);
+            backoff(retryPolicy, attempt);
+        }
+    }
+
+    private void backoff(RetryPolicy retryPolicy, int attempt) throws InterruptedIOException {
+        try {
+            Thread.sleep(retryPolicy.delayMillis(attempt));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry");
+        }
+    }
+
+    /**
+     * Sends the request once the rate limiter allows it. Throttled requests weren't processed by the API, so they're
+     * sent again after the Retry-After delay, up to maxThrottledRetries times. Bodies that can only be written once
+     * (streamed uploads) are not, the 429 is returned as it is.
+     */
+    private TransportResponse sendThrottled(TransportRequest request) throws IOException {
+        RateLimiter rateLimiter = clientConfig.rateLimiter();
+        for (int attempt = 0; ; attempt++) {
+            try {
+                rateLimiter.acquire();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the rate limiter");
+            }
+            TransportResponse response = exchange(request);
+            if (response.getStatusCode() != TOO_MANY_REQUESTS) {
+                rateLimiter.onSuccess();
+                return response;
+            }
+            long retryAfterMillis = retryAfterMillis(response.getHeader(HttpHeaders.RETRY_AFTER));
+            rateLimiter.onThrottled(retryAfterMillis);
+            if (attempt >= clientConfig.getMaxThrottledRetries() || (request.getBody() != null && !request.getBody().isRepeatable())) {
+                return response;
+            }
+            response.close();
+            log.warn("Dotmailer throttled {} {}, retrying in {}ms", request.getMethod(), request.getUrl(), retryAfterMillis);
+        }
+    }
+
+    /**
+     * A single HTTP exchange, reported to the metrics listener once its response has been read and closed. Sizes are
+     * measured on the wire, i.e. after compression.
+     */
+    private TransportResponse exchange(TransportRequest request) throws IOException {
+        MetricsListener metrics = clientConfig.metricsListener();
+        DefaultEndpoints endpoint = endpointOf(request.getUrl());
+        long bytesSent = request.getBody() != null ? Math.max(0, request.getBody().getContentLength()) : 0;
+        long start = System.nanoTime();
+        TransportResponse response;
+        try {
+            response = clientConfig.transport().execute(request);
+        } catch (IOException ex) {
+            metrics.onRequest(endpoint, request.getMethod(), 0, System.nanoTime() - start, bytesSent, 0);
+            throw ex;
+        }
+        if (request.getBody() instanceof GzipRequestBody) {
+            metrics.onCompressedBody(endpoint, request.getMethod(), true, bytesSent, ((GzipRequestBody) request.getBody()).getUncompressedLength());
+        }
+        response.addCloseListener(() -> {
+            metrics.onRequest(endpoint, request.getMethod(), response.getStatusCode(), System.nanoTime() - start, bytesSent, response.getBytesRead());
+            if (response.isCompressed() && response.getBytesRead() > 0) {
+                metrics.onCompressedBody(endpoint, request.getMethod(), false, response.getBytesRead(), response.getDecodedBytesRead());
+            }
+        });
+        return response;
+    }
+
+    private DefaultEndpoints endpointOf(String url) {
+        String version = accessCredentials.getVersion();
+        int versionAt = url.indexOf(version + "/");
+        return DefaultEndpoints.fromPath(versionAt >= 0 ? url.substring(versionAt + version.length()) : url);
+    }
+
+    private void listCompleted(String url, int pages, long records) {
+        recordsSynced.addAndGet(records);
+        clientConfig.metricsListener().onListCompleted(endpointOf(url), pages, records);
+    }
+
+    /**
+     * @return the delay asked for by the Retry-After header, at most maxRetryAfterMillis
+     */
+    private long retryAfterMillis(String retryAfter) {
+        long maxMillis = clientConfig.getMaxRetryAfterMillis();
+        if (StringUtils.isBlank(retryAfter)) {
+            return Math.min(DEFAULT_RETRY_AFTER_MILLIS, maxMillis);
+        }
+        String value = retryAfter.trim();
+        if (StringUtils.isNumeric(value)) {
+            // digits only, so anything too long for a long is too long a wait anyway
+            return value.length() > 15 ? maxMillis : Math.min(Long.parseLong(value) * 1000L, maxMillis);
+        }
+        Date retryAt = DateUtils.parseDate(retryAfter);
+        long millis = retryAt != null ? Math.max(0, retryAt.getTime() - System.currentTimeMillis()) : DEFAULT_RETRY_AFTER_MILLIS;
+        return Math.min(millis, maxMillis);
+    }
+
+    private <T> ResponseReader<T> objectReader(Type type) {
+        return response -> {
+            String body = response.bodyAsString();
+            if (StringUtils.isBlank(body)) {
+                return parseErrorResponse(body);
+            }
+            return ResultBuilder.successful(GsonProvider.responseGson().fromJson(body, type));
+        };
+    }
+
     <T> Result<T> sendAndGet(String resourcePath, Class<T> clazz) {
-        WellRestedRequest request = buildRequestFromResourcePath(resourcePath);
-        WellRestedResponse response = request.get().submit();
-        if (validResponse(response)) {
-            return ResultBuilder.successful(response.fromJson().castTo(clazz));
+        TransportRequest request = buildRequestFromResourcePath(HttpMethod.GET, resourcePath, null);
+        return coalesced(request, () -> cacheTtlMillis(request) > 0 ? sendAndGetCached(request, clazz) : execute(request, objectReader(clazz)));
+    }
+
+    /**
+     * GETs are idempotent, so identical ones made while the first is still in flight wait for it and share its Result
+     * instead of sending their own request
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Result<T> coalesced(TransportRequest request, Supplier<Result<T>> call) {
+        if (!clientConfig.isRequestCoalescing()) {
+            return call.get();
+        }
+        return (Result<T>) inFlightGets.execute(request.getUrl(), call::get);
+    }
+
+    private long cacheTtlMillis(TransportRequest request) {
+        return clientConfig.getResponseCache() != null ? clientConfig.responseCachePolicy().ttlMillis(endpointOf(request.getUrl())) : 0;
+    }
+
+    /**
+     * Serves the response from the cache until its TTL has passed. After that it's revalidated with If-None-Match /
+     * If-Modified-Since when the API sent an ETag or Last-Modified header, otherwise it's fetched again.
+     */
+    private <T> Result<T> sendAndGetCached(TransportRequest request, Type type) {
+        ResponseCache cache = clientConfig.getResponseCache();
+        long ttlMillis = cacheTtlMillis(request);
+        String key = cacheKey(request.getUrl());
+        CachedResponse cached = cache.get(key);
+        if (cached != null && !cached.isExpired()) {
+            return ResultBuilder.successful(GsonProvider.responseGson().fromJson(cached.getBody(), type));
+        }
+        if (cached != null && cached.getEtag() != null) {
+            request.header(HttpHeaders.IF_NONE_MATCH, cached.getEtag());
+        }
+        if (cached != null && cached.getLastModified() != null) {
+            request.header(HttpHeaders.IF_MODIFIED_SINCE, cached.getLastModified());
+        }
+        return execute(request, response -> {
+            if (response.getStatusCode() == NOT_MODIFIED) {
+                if (cached == null) {
+                    return parseErrorResponse(null);
+                }
+                cache.put(key, cached.renew(ttlMillis));
+                return ResultBuilder.successful(GsonProvider.responseGson().fromJson(cached.getBody(), type));
+            }
+            String body = response.bodyAsString();
+            if (StringUtils.isBlank(body)) {
+                return parseErrorResponse(body);
+            }
+            T data = GsonProvider.responseGson().fromJson(body, type);
+            cache.put(key, new CachedResponse(body, response.getHeader(HttpHeaders.ETAG), response.getHeader(HttpHeaders.LAST_MODIFIED),
+                                              System.currentTimeMillis() + ttlMillis));
+            return ResultBuilder.successful(data);
+        });
+    }
+
+    /**
+     * The same cache can be shared by facades of different accounts, so the user is part of the key
+     */
+    private String cacheKey(String url) {
+        return accessCredentials.getUsername() + " " + url;
+    }
+
+    /**
+     * A create, update or delete invalidates the cached responses of its own url and of every parent url, e.g. a
+     * POST to /address-books/1/contacts invalidates /address-books/1 and a DELETE of /data-fields/NAME invalidates
+     * /data-fields.
+     */
+    private void invalidateCachedResponses(String url) {
+        ResponseCache cache = clientConfig.getResponseCache();
+        if (cache == null) {
+            return;
+        }
+        String path = StringUtils.substringBefore(url, QUESTION);
+        int versionAt = path.indexOf(accessCredentials.getVersion() + "/");
+        int minLength = versionAt >= 0 ? versionAt + accessCredentials.getVersion().length() : 0;
+        while (path.length() > minLength) {
+            cache.invalidate(cacheKey(path));
+            int lastSlash = path.lastIndexOf('/');
+            if (lastSlash < minLength) {
+                break;
+            }
+            path = path.substring(0, lastSlash);
         }
-        return parseErrorResponse(response);
     }
 
     <T> Result<T> postAndGet(String resourcePath, T objectToPost) {
-        WellRestedRequest request = buildRequestFromResourcePath(resourcePath);
-        WellRestedResponse response = request.post().jsonContent(objectToPost).submit();
-        if (validResponse(response)) {
-            return ResultBuilder.successful(response.fromJson().castTo(((Class<T>) objectToPost.getClass())));
-        } else {
-            log.error("Dotmailer Error: {} ", request.get().submit().getServerResponse());
+        Result<T> result = execute(buildRequestFromResourcePath(HttpMethod.POST, resourcePath, objectToPost), objectReader(objectToPost.getClass()));
+        if (!result.isSuccess()) {
+            log.error("Dotmailer Error: {} ", result.getMsg());
         }
-        return parseErrorResponse(response);
+        return result;
     }
 
     protected <T> Result<T> postAndGet(String resourcePath, Object objectToPost, Class<T> responseClass) {
-        WellRestedRequest request = buildRequestFromResourcePath(resourcePath);
-        WellRestedResponse response = request.post().jsonContent(objectToPost).submit();
-        if (validResponse(response)) {
-            return ResultBuilder.successful(response.fromJson().castTo(responseClass));
-        }
-        return parseErrorResponse(response);
+        return execute(buildRequestFromResourcePath(HttpMethod.POST, resourcePath, objectToPost), objectReader(responseClass));
     }
 
     protected Result<Void> postAndGetBlankResponse(String resourcePath, Object objectToPost) {
-        WellRestedRequest request = buildRequestFromResourcePath(resourcePath);
-        WellRestedResponse response = request.post().jsonContent(objectToPost).submit();
-        if (validBlankResponse(response)) {
-            return ResultBuilder.successful().buildAndIgnoreData();
-        }
-        return parseErrorResponse(response);
+        return execute(buildRequestFromResourcePath(HttpMethod.POST, resourcePath, objectToPost), response -> ResultBuilder.successful().buildAndIgnoreData());
     }
 
     int post(String resourcePath, Object objectToPost) {
-        WellRestedRequest request = buildRequestFromResourcePath(resourcePath);
-        WellRestedResponse response = request.post().jsonContent(objectToPost).submit();
-        return response.getStatusCode();
+        TransportRequest request = buildRequestFromResourcePath(HttpMethod.POST, resourcePath, objectToPost);
+        try (TransportResponse response = send(request)) {
+            return response.getStatusCode();
+        } catch (IOException ex) {
+            log.error("Dotmailer POST {} failed: {}", request.getUrl(), ex);
+            return 0;
+        }
     }
 
+    /**
+     * Uploads the file as it is. The file is left where it is, it belongs to the caller.
+     */
     <T> Result<T> postFileAndGet(String resourcePath, String filePath, Class<T> responseClass) {
-        WellRestedRequest request = buildRequestFromResourcePath(resourcePath);
-
-        File postedFile = new File(filePath);
-        WellRestedResponse response = request.post().file(postedFile).submit();
-        postedFile.delete();
+        return postBodyAndGet(resourcePath, RequestBody.multipartFile(new File(filePath)), responseClass);
+    }
 
-        if (validResponse(response)) {
-            return ResultBuilder.successful(response.fromJson().castTo(responseClass));
-        }
-        return parseErrorResponse(response);
+    /**
+     * Posts a body written straight to the connection, e.g. a CSV encoded while it's uploaded
+     */
+    <T> Result<T> postBodyAndGet(String resourcePath, RequestBody body, Class<T> responseClass) {
+        return execute(buildRequest(HttpMethod.POST, validatePath(dotmailerUrl() + resourcePath), body), objectReader(responseClass));
     }
 
     <T> Result<T> putAndGet(String resourcePath, T objectToPost) {
-        WellRestedRequest request = buildRequestFromResourcePath(resourcePath);
-        WellRestedResponse response = request.put().jsonContent(objectToPost).submit();
-        if (validResponse(response)) {
-            return ResultBuilder.successful(response.fromJson().castTo((Class<T>) objectToPost.getClass()));
-        }
-        return parseErrorResponse(response);
+        return execute(buildRequestFromResourcePath(HttpMethod.PUT, resourcePath, objectToPost), objectReader(objectToPost.getClass()));
     }
 
     Result delete(String resourcePath) {
-        WellRestedRequest request = buildRequestFromResourcePath(resourcePath);
-        WellRestedResponse response = request.delete().submit();
-        if (validBlankResponse(response)) {
-            return ResultBuilder.successful(true);
-        }
-        return parseErrorResponse(response);
+        return execute(buildRequestFromResourcePath(HttpMethod.DELETE, resourcePath, null), response -> ResultBuilder.successful(true));
     }
 
     <T> Result<List<T>> sendAndGetFullList(String resourcePath, TypeToken<List<T>> typeToken) {
@@ -160,6 +519,10 @@ public abstract class AbstractResource {
         return sendAndGetFullList(resourcePath, null, null, typeToken, maxSelect, limit);
     }
 
+    <T> Result<List<T>> sendAndGetFullList(String resourcePath, TypeToken<List<T>> typeToken, int maxSelect, int limit, int knownTotal) {
+        return sendAndGetFullList(resourcePath, null, null, typeToken, maxSelect, limit, 0, knownTotal);
+    }
+
     <T, K> Result<List<T>> sendAndGetFullList(String resourcePath, Class<K> clazz, JsonDeserializer<K> jsonDeserializer, TypeToken<List<T>> typeToken,
                                               int maxSelect, int limit) {
         return sendAndGetFullList(resourcePath, clazz, jsonDeserializer, typeToken, maxSelect, limit, 0);
@@ -167,6 +530,23 @@ public abstract class AbstractResource {
 
     <T, K> Result<List<T>> sendAndGetFullList(String resourcePath, Class<K> clazz, JsonDeserializer<K> jsonDeserializer, TypeToken<List<T>> typeToken,
                                               int maxSelect, int limit, int initialSkip) {
+        return sendAndGetFullList(resourcePath, clazz, jsonDeserializer, typeToken, maxSelect, limit, initialSkip, UNKNOWN_TOTAL);
+    }
+
+    <T, K> Result<List<T>> sendAndGetFullList(String resourcePath, Class<K> clazz, JsonDeserializer<K> jsonDeserializer, TypeToken<List<T>> typeToken,
+                                              int maxSelect, int limit, int initialSkip, int knownTotal) {
+        return sendAndGetFullList(resourcePath, clazz, jsonDeserializer, typeToken, maxSelect, limit, initialSkip, knownTotal, null);
+    }
+
+    /**
+     * Walks all the pages of a list endpoint. When parallel pagination is enabled in the client config the pages are
+     * fetched concurrently and <b>knownTotal</b> (if not UNKNOWN_TOTAL) is used to decide how many pages are worth
+     * requesting up front; otherwise pages are requested speculatively ahead of the one being read.
+     *
+     * @param bodyBytes if not null, the decompressed size of every page decoded is added to it
+     */
+    <T, K> Result<List<T>> sendAndGetFullList(String resourcePath, Class<K> clazz, JsonDeserializer<K> jsonDeserializer, TypeToken<List<T>> typeToken,
+                                              int maxSelect, int limit, int initialSkip, int knownTotal, LongAdder bodyBytes) {
 
         if (resourcePath.contains("select") && resourcePath.contains("skip")) {
             return ResultBuilder.failed()
@@ -174,63 +554,345 @@ public abstract class AbstractResource {
                     .code(ERROR_INPUT).buildAndIgnoreData();
         }
         String baseUrl = validatePathWithAttributes(dotmailerUrl() + resourcePath);
+        Gson gson = GsonProvider.responseGson(clazz, jsonDeserializer);
+        Type elementType = JsonStreamDecoder.elementType(typeToken);
+
+        if (clientConfig.getParallelPageFetches() > 1) {
+            return sendAndGetFullListInParallel(baseUrl, gson, elementType, maxSelect, limit, initialSkip, knownTotal, bodyBytes);
+        }
 
-        int skip = -maxSelect + initialSkip;
-        int newResultsSize = 0;
+        int skip = initialSkip;
+        int pages = 0;
         List<T> allResults = new ArrayList<>(DEFAULT_MAX_SELECT);
-        do {
-            try {
+        try {
+            while (true) {
+                // records are decoded straight into the list being built, no intermediate page list
+                Result<List<T>> page = this.<T>fetchPage(pageUrl(baseUrl, maxSelect, skip), gson, elementType, maxSelect, bodyBytes);
+                if (!page.isSuccessAndNotNull()) {
+                    return ResultBuilder.of(page).buildAndOverrideData(allResults);
+                }
+                allResults.addAll(page.getData());
+                pages++;
+
+                if (page.getData().size() < maxSelect || (limit > 0 && allResults.size() >= limit)) {
+                    break;
+                }
                 skip += maxSelect;
-                String url = baseUrl + String.format(DM_SELECT_SKIP_ATTRIBUTES, maxSelect, skip);
-                log.trace("GeneratedUrl: {}", url);
-                WellRestedRequest request = WellRestedRequest.builder().url(url).credentials(accessCredentials.getUsername(), accessCredentials.getPassword()).build();
-                WellRestedResponse response = request.get().submit();
-                if (validResponse(response)) {
-                    List<T> newResults;
-                    if (clazz != null && jsonDeserializer != null) {
-                        newResults = response.fromJson().registerDeserializer(clazz, jsonDeserializer).castToList(typeToken);
-                    } else {
-                        newResults = response.fromJson().castToList(typeToken);
-                    }
-                    allResults.addAll(newResults);
-                    newResultsSize = newResults.size();
-
-                    if (newResults.size() < maxSelect) {
-                        break;
-                    }
-                } else {
-                    return ResultBuilder.of(parseErrorResponse(response)).buildAndOverrideData(allResults);
+            }
+        } catch (Exception ex) {
+            log.error("sendAndGetFullList: error occurred: {}", ex);
+            return ResultBuilder.failed().msg(ex.getMessage()).code(ERROR_UNKNOWN).buildAndIgnoreData();
+        } finally {
+            listCompleted(baseUrl, pages, allResults.size());
+        }
+        return ResultBuilder.successful(allResults);
+    }
+
+    private <T> Result<List<T>> sendAndGetFullListInParallel(String baseUrl, Gson gson, Type elementType, int maxSelect, int limit, int initialSkip, int knownTotal,
+                                                             LongAdder bodyBytes) {
+        int window = clientConfig.getParallelPageFetches();
+        int maxPages = limit > 0 ? pagesFor(limit, maxSelect) : Integer.MAX_VALUE;
+        // past the expected number of pages we only probe one page at a time, in case the total was stale
+        int expectedPages = knownTotal >= 0 ? pagesFor(Math.max(0, knownTotal - initialSkip), maxSelect) : Integer.MAX_VALUE;
+
+        Deque<Future<Result<List<T>>>> inFlight = new ArrayDeque<>(window);
+        List<T> allResults = new ArrayList<>(DEFAULT_MAX_SELECT);
+        int nextPage = 0;
+        int pages = 0;
+        try {
+            while (true) {
+                while (nextPage < maxPages && inFlight.size() < (nextPage < expectedPages ? window : 1)) {
+                    String url = pageUrl(baseUrl, maxSelect, initialSkip + nextPage * maxSelect);
+                    inFlight.add(submitPageFetch(() -> this.<T>fetchPage(url, gson, elementType, maxSelect, bodyBytes)));
+                    nextPage++;
+                }
+                if (inFlight.isEmpty()) {
+                    break;
+                }
+
+                Result<List<T>> page = inFlight.poll().get();
+                if (!page.isSuccessAndNotNull()) {
+                    return ResultBuilder.of(page).buildAndOverrideData(allResults);
+                }
+                allResults.addAll(page.getData());
+                pages++;
+
+                if (page.getData().size() < maxSelect) {
+                    break;
                 }
-            } catch (Exception ex) {
-                log.error("sendAndGetFullList: error occurred: {}", ex);
-                return ResultBuilder.failed().msg(ex.getMessage()).code(ERROR_UNKNOWN).buildAndIgnoreData();
             }
-        } while (newResultsSize != 0 && (limit <= 0 || allResults.size() < limit));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return ResultBuilder.failed().msg(ex.getMessage()).code(ERROR_UNKNOWN).buildAndIgnoreData();
+        } catch (ExecutionException ex) {
+            log.error("sendAndGetFullList: error occurred: {}", ex.getCause());
+            return ResultBuilder.failed().msg(ex.getCause().getMessage()).code(ERROR_UNKNOWN).buildAndIgnoreData();
+        } finally {
+            // speculative pages past the end of the list are simply discarded
+            inFlight.forEach(future -> future.cancel(true));
+            listCompleted(baseUrl, pages, allResults.size());
+        }
         return ResultBuilder.successful(allResults);
     }
 
+    private <V> Future<V> submitPageFetch(Callable<V> task) {
+        try {
+            return clientConfig.pageFetchExecutor().submit(task);
+        } catch (RejectedExecutionException ex) {
+            // setParallelPageFetches replaced the pool between getting it and submitting to it
+            return clientConfig.pageFetchExecutor().submit(task);
+        }
+    }
+
+    <T> Stream<T> sendAndStreamList(String resourcePath, TypeToken<List<T>> typeToken) {
+        return sendAndStreamList(resourcePath, null, null, typeToken, DEFAULT_MAX_SELECT);
+    }
+
+    /**
+     * Lazy counterpart of sendAndGetFullList: pages are requested as the stream is consumed, with the next page being
+     * prefetched while the current one is processed. Prefetches run on the async executor rather than on the page fetch
+     * pool, so a stream isn't held up by the full list calls (or other streams) queued there. Close the stream (or use
+     * it in a try-with-resources block) if you stop consuming it early, so the pending prefetch is cancelled. A page
+     * that can't be fetched surfaces as a DotmailerApiException.
+     */
+    <T, K> Stream<T> sendAndStreamList(String resourcePath, Class<K> clazz, JsonDeserializer<K> jsonDeserializer, TypeToken<List<T>> typeToken, int maxSelect) {
+        String baseUrl = validatePathWithAttributes(dotmailerUrl() + resourcePath);
+        Gson gson = GsonProvider.responseGson(clazz, jsonDeserializer);
+        Type elementType = JsonStreamDecoder.elementType(typeToken);
+        PageSpliterator<T> spliterator = new PageSpliterator<>(skip -> fetchPage(pageUrl(baseUrl, maxSelect, skip), gson, elementType, maxSelect),
+                                                               maxSelect, 0, clientConfig.asyncExecutor(),
+                                                               (pages, records) -> listCompleted(baseUrl, pages, records));
+        return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+    }
+
+    <T> Result<Long> sendAndConsumeFullList(String resourcePath, TypeToken<List<T>> typeToken, Consumer<? super T> recordConsumer) {
+        return sendAndConsumeFullList(resourcePath, null, null, typeToken, DEFAULT_MAX_SELECT, recordConsumer);
+    }
+
+    /**
+     * Walks all the pages of a list endpoint handing every record to <b>recordConsumer</b> as soon as it's decoded from
+     * the response body, so not even a single page is ever held in memory.
+     *
+     * @return the number of records consumed. On failure the records of the pages before the failing one have already
+     * been consumed.
+     */
+    <T, K> Result<Long> sendAndConsumeFullList(String resourcePath, Class<K> clazz, JsonDeserializer<K> jsonDeserializer, TypeToken<List<T>> typeToken, int maxSelect,
+                                               Consumer<? super T> recordConsumer) {
+        String baseUrl = validatePathWithAttributes(dotmailerUrl() + resourcePath);
+        Gson gson = GsonProvider.responseGson(clazz, jsonDeserializer);
+        Type elementType = JsonStreamDecoder.elementType(typeToken);
+
+        long consumed = 0;
+        int pages = 0;
+        int skip = 0;
+        try {
+            while (true) {
+                Result<Integer> page = decodePage(pageUrl(baseUrl, maxSelect, skip), gson, elementType, recordConsumer);
+                if (!page.isSuccessAndNotNull()) {
+                    return ResultBuilder.of(page).buildAndOverrideData(consumed);
+                }
+                pages++;
+                consumed += page.getData();
+                if (page.getData() < maxSelect) {
+                    return ResultBuilder.successful(consumed);
+                }
+                skip += maxSelect;
+            }
+        } finally {
+            listCompleted(baseUrl, pages, consumed);
+        }
+    }
+
+    private <T> Result<List<T>> fetchPage(String url, Gson gson, Type elementType, int maxSelect) {
+        return fetchPage(url, gson, elementType, maxSelect, null);
+    }
+
+    /**
+     * Requests a single page and decodes it into a list. send() only retries until the response headers arrive, so
+     * when the connection fails while the body is being read the whole page is requested again here, as allowed by
+     * the retry policy, and the records decoded before the failure are dropped.
+     */
+    private <T> Result<List<T>> fetchPage(String url, Gson gson, Type elementType, int maxSelect, LongAdder bodyBytes) {
+        RetryPolicy retryPolicy = clientConfig.retryPolicy();
+        for (int attempt = 1; ; attempt++) {
+            List<T> page = new ArrayList<>(maxSelect);
+            AtomicBoolean bodyFailed = new AtomicBoolean();
+            log.trace("GeneratedUrl: {}", url);
+            Result<Integer> decoded = execute(buildRequest(HttpMethod.GET, url, null), response -> {
+                try {
+                    return this.<T>decodeArray(response, gson, elementType, bodyBytes, page::add);
+                } catch (IOException ex) {
+                    bodyFailed.set(!Thread.currentThread().isInterrupted());
+                    throw ex;
+                }
+            });
+            if (decoded.isSuccessAndNotNull()) {
+                return ResultBuilder.successful(page);
+            }
+            if (!bodyFailed.get() || !retryPolicy.canRetry(attempt)) {
+                return ResultBuilder.of(decoded).buildAndIgnoreData();
+            }
+            log.warn("Dotmailer page {} failed while being read on attempt {}: {}", url, attempt, decoded.getMsg());
+            try {
+                backoff(retryPolicy, attempt);
+            } catch (InterruptedIOException ex) {
+                return ResultBuilder.failed().msg(ex.getMessage()).code(ERROR_UNKNOWN).buildAndIgnoreData();
+            }
+        }
+    }
+
+    /**
+     * Requests a single page and decodes the records from the response body as it's being read.
+     *
+     * @return the number of records decoded
+     */
+    private <T> Result<Integer> decodePage(String url, Gson gson, Type elementType, Consumer<? super T> recordConsumer) {
+        log.trace("GeneratedUrl: {}", url);
+        return execute(buildRequest(HttpMethod.GET, url, null), response -> decodeArray(response, gson, elementType, null, recordConsumer));
+    }
+
+    private <T> Result<Integer> decodeArray(TransportResponse response, Gson gson, Type elementType, LongAdder bodyBytes, Consumer<? super T> recordConsumer) throws IOException {
+        if (response.getBody() == null) {
+            return parseErrorResponse(null);
+        }
+        try (Reader reader = response.bodyReader()) {
+            Integer decoded = JsonStreamDecoder.decodeArray(reader, gson, elementType, recordConsumer);
+            if (bodyBytes != null) {
+                bodyBytes.add(response.getDecodedBytesRead());
+            }
+            return ResultBuilder.successful(decoded);
+        } catch (EOFException ex) {
+            // blank body
+            return parseErrorResponse(null);
+        }
+    }
+
+    private String pageUrl(String baseUrl, int maxSelect, int skip) {
+        return baseUrl + String.format(DM_SELECT_SKIP_ATTRIBUTES, maxSelect, skip);
+    }
+
+    private int pagesFor(int records, int maxSelect) {
+        return (records + maxSelect - 1) / maxSelect;
+    }
+
     protected <T> void sendAndProcessList(String resourcePath, Class<T> clazz, JsonDeserializer<T> jsonDeserializer, TypeToken<List<T>> typeToken, Consumer<List<T>> consumer) {
         sendAndProcessList(resourcePath, clazz, jsonDeserializer, typeToken, DEFAULT_MAX_SELECT, DEFAULT_MAX_SELECT, consumer);
     }
 
     protected <T> void sendAndProcessList(String resourcePath, Class<T> clazz, JsonDeserializer<T> jsonDeserializer, TypeToken<List<T>> typeToken, int maxLimit, int perStep, Consumer<List<T>> consumer) {
+        sendAndProcessList(resourcePath, clazz, jsonDeserializer, typeToken, maxLimit, perStep, UNKNOWN_TOTAL, ProcessOptions.defaults(), consumer);
+    }
+
+    /**
+     * Walks the list in chunks of <b>perStep</b> records and hands every chunk to the consumer before fetching the
+     * next one. The walk ends with the first chunk that comes back short, or at the first failure, whose Result is
+     * returned.
+     * <p>
+     * When the options name a checkpoint, the position reached is saved after every chunk the consumer returned from
+     * and deleted once the walk is complete. Resuming starts right after the last saved chunk, so every chunk is
+     * processed at least once: the one the consumer was busy with when the previous run stopped comes again.
+     * <p>
+     * Pipelined options download the next chunks while the consumer threads process the previous ones, see
+     * ChunkPipeline. The options can also override <b>perStep</b> or size the chunks by a byte budget, see ChunkSizer.
+     *
+     * @return the number of records handed to the consumer by this run
+     */
+    <T, K> Result<Long> sendAndProcessList(String resourcePath, Class<K> clazz, JsonDeserializer<K> jsonDeserializer, TypeToken<List<T>> typeToken,
+                                           int maxSelect, int perStep, int knownTotal, ProcessOptions options, Consumer<List<T>> consumer) {
         int skip = 0;
+        int chunks = 0;
+        if (options.isCheckpointed() && options.isResume()) {
+            try {
+                Checkpoint checkpoint = options.getCheckpointStore().load(options.getCheckpointId());
+                if (checkpoint != null && resourcePath.equals(checkpoint.getResourcePath())) {
+                    skip = checkpoint.getSkip();
+                    chunks = checkpoint.getChunks();
+                    log.info("Resuming {} from checkpoint {} at record {}", resourcePath, options.getCheckpointId(), skip);
+                } else if (checkpoint != null) {
+                    log.warn("Checkpoint {} was saved for {}, not {}. Starting from the beginning", options.getCheckpointId(), checkpoint.getResourcePath(), resourcePath);
+                }
+            } catch (IOException ex) {
+                return checkpointFailed(options, ex);
+            }
+        }
+
+        // a chunk smaller than a page would still get the whole page
+        int pageSize = options.getChunkSize() > 0 ? Math.min(maxSelect, options.getChunkSize()) : maxSelect;
+        ChunkSizer sizer = ChunkSizer.of(options, pageSize, perStep);
+        ChunkSizer.ChunkFetcher<T> fetcher = (chunkSkip, size, bodyBytes) ->
+                sendAndGetFullList(resourcePath, clazz, jsonDeserializer, typeToken, pageSize, size, chunkSkip, knownTotal, bodyBytes);
+        Result<Long> result;
+        if (options.isPipelined()) {
+            result = new ChunkPipeline<>(fetcher, sizer, options.getPrefetchChunks(), options.getConsumerThreads(), consumer,
+                                         (chunkSkip, chunkCount) -> saveCheckpoint(options, resourcePath, chunkSkip, chunkCount)).run(skip, chunks);
+        } else {
+            result = processChunks(fetcher, sizer, resourcePath, options, consumer, skip, chunks);
+        }
+        if (!result.isSuccess()) {
+            return result;
+        }
 
-        Result<List<T>> results;
-        do {
-            results = sendAndGetFullList(resourcePath, clazz, jsonDeserializer, typeToken, maxLimit, perStep, skip);
-            results.ifSuccessAndNotNull(consumer);
-            skip += perStep;
-        } while (results.isSuccessAndNotNull() && !results.getData().isEmpty());
+        if (options.isCheckpointed()) {
+            try {
+                options.getCheckpointStore().delete(options.getCheckpointId());
+            } catch (IOException ex) {
+                return checkpointFailed(options, ex);
+            }
+        }
+        return result;
     }
 
-    protected <T> Result<List<T>> sendAndGetSingleList(String resourcePath, TypeToken<List<T>> typeToken) {
-        WellRestedRequest request = buildRequestFromResourcePath(resourcePath);
-        WellRestedResponse response = request.get().submit();
-        if (validResponse(response)) {
-            return ResultBuilder.successful(response.fromJson().castToList(typeToken));
+    private <T> Result<Long> processChunks(ChunkSizer.ChunkFetcher<T> fetcher, ChunkSizer sizer, String resourcePath, ProcessOptions options,
+                                           Consumer<List<T>> consumer, int skip, int chunks) {
+        long processed = 0;
+        while (true) {
+            Result<List<T>> chunk = sizer.fetchNext(fetcher, skip);
+            if (!chunk.isSuccessAndNotNull()) {
+                return ResultBuilder.of(chunk).buildAndOverrideData(processed);
+            }
+            List<T> records = chunk.getData();
+            if (!records.isEmpty()) {
+                consumer.accept(records);
+                processed += records.size();
+                // whole pages are fetched, so a chunk can hold a few more records than asked for
+                skip += records.size();
+                chunks++;
+            }
+            if (sizer.isLast(records)) {
+                return ResultBuilder.successful(processed);
+            }
+            try {
+                saveCheckpoint(options, resourcePath, skip, chunks);
+            } catch (IOException ex) {
+                return checkpointFailed(options, ex);
+            }
+        }
+    }
+
+    private void saveCheckpoint(ProcessOptions options, String resourcePath, int skip, int chunks) throws IOException {
+        if (options.isCheckpointed()) {
+            options.getCheckpointStore().save(options.getCheckpointId(), new Checkpoint(resourcePath, skip, chunks, new Date()));
         }
-        return parseErrorResponse(response);
+    }
+
+    private Result<Long> checkpointFailed(ProcessOptions options, IOException ex) {
+        log.error("Checkpoint {} could not be read or written: {}", options.getCheckpointId(), ex);
+        return ResultBuilder.failed().msg(ex.getMessage()).code(ERROR_CHECKPOINT).buildAndIgnoreData();
+    }
+
+    protected <T> Result<List<T>> sendAndGetSingleList(String resourcePath, TypeToken<List<T>> typeToken) {
+        TransportRequest request = buildRequestFromResourcePath(HttpMethod.GET, resourcePath, null);
+        return coalesced(request, () -> {
+            if (cacheTtlMillis(request) > 0) {
+                return sendAndGetCached(request, typeToken.getType());
+            }
+            Type elementType = JsonStreamDecoder.elementType(typeToken);
+            List<T> results = new ArrayList<>();
+            return execute(request, response -> {
+                Result<Integer> decoded = this.<T>decodeArray(response, GsonProvider.responseGson(), elementType, null, results::add);
+                return decoded.isSuccessAndNotNull() ? ResultBuilder.successful(results) : ResultBuilder.of(decoded).buildAndIgnoreData();
+            });
+        });
     }
 
     String pathWithId(String path, Long id) {
@@ -250,21 +912,36 @@ public abstract class AbstractResource {
         return newPath + attrName + EQUAL + value;
     }
 
-    private boolean validResponse(WellRestedResponse response) {
-        return validBlankResponse(response) && StringUtils.isNotBlank(response.getServerResponse());
+    private boolean validStatusCode(int statusCode) {
+        return statusCode == 200 || statusCode == 201 || statusCode == 202;
     }
 
-    private boolean validBlankResponse(WellRestedResponse response) {
-        return response != null && (response.getStatusCode() == 200 || response.getStatusCode() == 201 || response.getStatusCode() == 202);
+    /**
+     * Server errors and 429s that don't name an error code of their own get ERROR_SERVICE_UNAVAILABLE rather than
+     * UNKNOWN_ERROR, so they can be told apart from client errors with an unexpected body
+     */
+    private <T> Result<T> parseErrorResponse(int statusCode, String serverResponse) {
+        Result<T> result = parseErrorResponse(serverResponse);
+        if (ERROR_UNKNOWN_RESPONSE.equals(result.getCode()) && (statusCode >= SERVER_ERROR || statusCode == TOO_MANY_REQUESTS)) {
+            return ResultBuilder.failed().msg("Dotmailer answered " + statusCode).code(ERROR_SERVICE_UNAVAILABLE).buildAndIgnoreData();
+        }
+        return result;
     }
 
-    private <T> Result<T> parseErrorResponse(WellRestedResponse response) {
-        ErrorResponse errorResponse = response.fromJson().castTo(ErrorResponse.class);
+    private <T> Result<T> parseErrorResponse(String serverResponse) {
+        ErrorResponse errorResponse = null;
+        if (StringUtils.isNotBlank(serverResponse)) {
+            try {
+                errorResponse = GsonProvider.responseGson().fromJson(serverResponse, ErrorResponse.class);
+            } catch (JsonParseException ex) {
+                log.warn("Dotmailer error response could not be parsed: {}", serverResponse);
+            }
+        }
         if (errorResponse == null || errorResponse.getMessage() == null || StringUtils.isBlank(errorResponse.getMessage())) {
-            return ResultBuilder.failed().msg("Unknown Error").code("UNKNOWN_ERROR").buildAndIgnoreData();
+            return ResultBuilder.failed().msg("Unknown Error").code(ERROR_UNKNOWN_RESPONSE).buildAndIgnoreData();
         }
 
-        String errorCode = "UNKNOWN_ERROR";
+        String errorCode = ERROR_UNKNOWN_RESPONSE;
         String errorMessage = errorResponse.getMessage();
         if (errorResponse.getMessage().startsWith("Error: ")) {
             errorCode = errorMessage.substring(7);
@@ -274,4 +951,12 @@ public abstract class AbstractResource {
         return ResultBuilder.failed().msg(errorMessage).code(errorCode).buildAndIgnoreData();
     }
 
+    /**
+     * @return true if the call failed for a reason that may go away by itself, so it's worth making again later: an
+     * I/O error, a server error or 429, the API usage limit or the circuit breaker being open. Client errors (bad
+     * input, unknown ids, authentication) and unexpected response bodies aren't.
+     */
+    public static boolean isTransientFailure(Result<?> result) {
+        return !result.isSuccess() && TRANSIENT_ERRORS.contains(result.getCode());
+    }
 }
@@ -3,6 +3,7 @@ package com.lindar.dotmailer.api;
 import com.lindar.dotmailer.util.DefaultEndpoints;
 import com.lindar.dotmailer.vo.api.AccountInfo;
 import com.lindar.dotmailer.vo.internal.DMAccessCredentials;
+import com.lindar.dotmailer.vo.internal.DMClientConfig;
 import com.lindar.wellrested.vo.Result;
 
 
@@ -11,7 +12,11 @@ public class AccountInfoResource extends AbstractResource {
     private String path;
     
     public AccountInfoResource(DMAccessCredentials accessCredentials) {
-        super(accessCredentials);
+        this(accessCredentials, new DMClientConfig());
+    }
+
+    public AccountInfoResource(DMAccessCredentials accessCredentials, DMClientConfig clientConfig) {
+        super(accessCredentials, clientConfig);
         this.path = DefaultEndpoints.ACCOUNT_INFO.getPath();
     }
     
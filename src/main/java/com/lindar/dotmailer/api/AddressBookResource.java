@@ -2,6 +2,8 @@ package com.lindar.dotmailer.api;
 
 import com.google.gson.JsonDeserializer;
 import com.google.gson.reflect.TypeToken;
+import com.lindar.dotmailer.process.ProcessOptions;
+import com.lindar.dotmailer.transport.RequestBody;
 import com.lindar.dotmailer.util.CsvUtil;
 import com.lindar.dotmailer.util.DefaultEndpoints;
 import com.lindar.dotmailer.util.PersonalizedContactsProcessFunction;
@@ -11,6 +13,7 @@ import com.lindar.dotmailer.vo.api.JobStatus;
 import com.lindar.dotmailer.vo.api.PersonalisedContact;
 import com.lindar.dotmailer.vo.api.SuppressedContact;
 import com.lindar.dotmailer.vo.internal.DMAccessCredentials;
+import com.lindar.dotmailer.vo.internal.DMClientConfig;
 import com.lindar.wellrested.vo.Result;
 import com.lindar.wellrested.vo.ResultBuilder;
 import lombok.extern.slf4j.Slf4j;
@@ -18,20 +21,36 @@ import org.apache.commons.lang3.BooleanUtils;
 import org.joda.time.DateTime;
 import org.supercsv.cellprocessor.ift.CellProcessor;
 
+import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Slf4j
 public class AddressBookResource extends AbstractResource {
 
     public AddressBookResource(DMAccessCredentials accessCredentials) {
-        super(accessCredentials);
+        this(accessCredentials, new DMClientConfig());
+    }
+
+    public AddressBookResource(DMAccessCredentials accessCredentials, DMClientConfig clientConfig) {
+        super(accessCredentials, clientConfig);
     }
 
     public Result<List<AddressBook>> list() {
         return sendAndGetFullList(DefaultEndpoints.ADDRESS_BOOKS.getPath(), new TypeToken<List<AddressBook>>() {});
     }
 
+    /**
+     * Lazily streams all the address books in the account
+     */
+    public Stream<AddressBook> stream() {
+        return sendAndStreamList(DefaultEndpoints.ADDRESS_BOOKS.getPath(), new TypeToken<List<AddressBook>>() {});
+    }
+
     public Result<AddressBook> get(Long addressBookId) {
         String path = pathWithId(DefaultEndpoints.ADDRESS_BOOK.getPath(), addressBookId);
         return sendAndGet(path, AddressBook.class);
@@ -67,13 +86,19 @@ public class AddressBookResource extends AbstractResource {
         String initialPath = addAttrAndValueToPath(DefaultEndpoints.ADDRESS_BOOK_CONTACTS.getPath(), WITH_FULL_DATA_ATTR, BooleanUtils.toString(withFullData, "true", "false", "false"));
         String path = pathWithId(initialPath, addressBookId);
 
-        if (limit > 0) {
-            int maxSelect = limit >= DEFAULT_MAX_SELECT ? DEFAULT_MAX_SELECT : limit;
-            return sendAndGetFullList(path, new TypeToken<List<Contact>>() {
-            }, maxSelect, limit);
-        }
+        int maxSelect = limit <= 0 || limit >= DEFAULT_MAX_SELECT ? DEFAULT_MAX_SELECT : limit;
         return sendAndGetFullList(path, new TypeToken<List<Contact>>() {
-        });
+        }, maxSelect, limit, knownContactsTotal(addressBookId));
+    }
+
+    /**
+     * Lazily streams the address book contacts. Pages are only fetched as the stream is consumed, so memory stays at
+     * about two pages no matter how big the address book is. Use <b>streamContacts(..).iterator()</b> if you prefer an
+     * iterator. Close the stream if you don't consume it fully.
+     */
+    public Stream<Contact> streamContacts(Long addressBookId, boolean withFullData) {
+        String initialPath = addAttrAndValueToPath(DefaultEndpoints.ADDRESS_BOOK_CONTACTS.getPath(), WITH_FULL_DATA_ATTR, BooleanUtils.toStringTrueFalse(withFullData));
+        return sendAndStreamList(pathWithId(initialPath, addressBookId), new TypeToken<List<Contact>>() {});
     }
 
     /**
@@ -102,6 +127,25 @@ public class AddressBookResource extends AbstractResource {
         return sendAndGetFullList(path, new TypeToken<List<SuppressedContact>>() {});
     }
 
+    /**
+     * Hands every address book contact to the consumer as soon as it's decoded from the response, without ever
+     * building a list, not even of a single page.
+     *
+     * @return the number of contacts processed
+     */
+    public Result<Long> processEachContact(Long addressBookId, boolean withFullData, Consumer<Contact> consumer) {
+        String initialPath = addAttrAndValueToPath(DefaultEndpoints.ADDRESS_BOOK_CONTACTS.getPath(), WITH_FULL_DATA_ATTR, BooleanUtils.toStringTrueFalse(withFullData));
+        return sendAndConsumeFullList(pathWithId(initialPath, addressBookId), new TypeToken<List<Contact>>() {}, consumer);
+    }
+
+    /**
+     * Lazily streams the contacts who have unsubscribed since a given date from a given address book
+     */
+    public Stream<SuppressedContact> streamUnsubscribedContacts(Long addressBookId, Date since) {
+        String path = pathWithIdAndParam(DefaultEndpoints.ADDRESS_BOOK_CONTACTS_UNSUBSCRIBED_SINCE_DATE.getPath(), addressBookId, new DateTime(since).toString(DM_DATE_FORMAT));
+        return sendAndStreamList(path, new TypeToken<List<SuppressedContact>>() {});
+    }
+
     /**
      * This is a very powerful method that allows you to create a list of personalized contacts by deserializing the
      * dataFields map (key, value) returned by DotMailer for each contact. To be able to do this, you have to create a
@@ -124,7 +168,7 @@ public class AddressBookResource extends AbstractResource {
         String path = pathWithId(initialPath, addressBookId);
 
         int maxSelect = limit <= 0 || limit >= DEFAULT_MAX_SELECT ? DEFAULT_MAX_SELECT : limit;
-        return sendAndGetFullList(path, clazz, jsonDeserializer, typeToken, maxSelect, limit);
+        return sendAndGetFullList(path, clazz, jsonDeserializer, typeToken, maxSelect, limit, 0, knownContactsTotal(addressBookId));
     }
 
     /**
@@ -163,6 +207,40 @@ public class AddressBookResource extends AbstractResource {
         return listPersonalizedContacts(addressBookId, clazz, jsonDeserializer, typeToken, true, 0);
     }
 
+    /**
+     * Lazy version of listPersonalizedContacts: contacts are deserialized page by page as the stream is consumed
+     *
+     * @param addressBookId
+     * @param clazz
+     * @param jsonDeserializer
+     * @param typeToken
+     * @param withFullData
+     * @return
+     */
+    public <T> Stream<PersonalisedContact<T>> streamPersonalizedContacts(Long addressBookId, Class<T> clazz, JsonDeserializer<T> jsonDeserializer,
+            TypeToken<List<PersonalisedContact<T>>> typeToken, boolean withFullData) {
+        String initialPath = addAttrAndValueToPath(DefaultEndpoints.ADDRESS_BOOK_CONTACTS.getPath(), WITH_FULL_DATA_ATTR, BooleanUtils.toStringTrueFalse(withFullData));
+        return sendAndStreamList(pathWithId(initialPath, addressBookId), clazz, jsonDeserializer, typeToken, DEFAULT_MAX_SELECT);
+    }
+
+    /**
+     * Record by record version of processFullList: every personalized contact is handed to the consumer as soon as it's
+     * decoded from the response
+     *
+     * @param addressBookId
+     * @param clazz
+     * @param jsonDeserializer
+     * @param typeToken
+     * @param withFullData
+     * @param consumer
+     * @return the number of contacts processed
+     */
+    public <T> Result<Long> processEachPersonalizedContact(Long addressBookId, Class<T> clazz, JsonDeserializer<T> jsonDeserializer,
+            TypeToken<List<PersonalisedContact<T>>> typeToken, boolean withFullData, Consumer<PersonalisedContact<T>> consumer) {
+        String initialPath = addAttrAndValueToPath(DefaultEndpoints.ADDRESS_BOOK_CONTACTS.getPath(), WITH_FULL_DATA_ATTR, BooleanUtils.toStringTrueFalse(withFullData));
+        return sendAndConsumeFullList(pathWithId(initialPath, addressBookId), clazz, jsonDeserializer, typeToken, DEFAULT_MAX_SELECT, consumer);
+    }
+
     /**
      * This is a very powerful method that allows you to process a list of personalized contacts by deserializing the
      * dataFields map (key, value) returned by DotMailer for each contact and apply a processFunction (callback) for
@@ -201,6 +279,26 @@ public class AddressBookResource extends AbstractResource {
      */
     public <T> Result processFullList(Long addressBookId, Class<T> clazz, JsonDeserializer<T> jsonDeserializer, TypeToken<List<PersonalisedContact<T>>> typeToken, boolean withFullData, int limit,
             PersonalizedContactsProcessFunction<T> processFunction) {
+        Result<Long> processed = processFullList(addressBookId, clazz, jsonDeserializer, typeToken, withFullData, limit, ProcessOptions.defaults(), processFunction);
+        return processed.isSuccess() ? ResultBuilder.successfulWithoutData("Success") : ResultBuilder.of(processed).buildAndIgnoreData();
+    }
+
+    /**
+     * Same as processFullList, with options. Use ProcessOptions.checkpoint to save the progress after every chunk
+     * and ProcessOptions.resume to carry on from the last saved chunk after a crash or restart.
+     *
+     * @param addressBookId
+     * @param clazz
+     * @param jsonDeserializer
+     * @param typeToken
+     * @param withFullData
+     * @param limit
+     * @param options
+     * @param processFunction
+     * @return the number of contacts processed by this run
+     */
+    public <T> Result<Long> processFullList(Long addressBookId, Class<T> clazz, JsonDeserializer<T> jsonDeserializer, TypeToken<List<PersonalisedContact<T>>> typeToken,
+            boolean withFullData, int limit, ProcessOptions options, PersonalizedContactsProcessFunction<T> processFunction) {
 
         Result<AddressBook> addressBookResult = get(addressBookId);
         if(!addressBookResult.isSuccessAndNotNull()){
@@ -217,15 +315,19 @@ public class AddressBookResource extends AbstractResource {
 
         int maxSelect = limit <= 0 || limit >= DEFAULT_MAX_SELECT ? DEFAULT_MAX_SELECT : limit;
 
-        int skip = 0;
-
-        do {
-            Result<List<PersonalisedContact<T>>> contacts = sendAndGetFullList(path, clazz, jsonDeserializer, typeToken, maxSelect, MAX_CONTACTS_TO_PROCESS_PER_STEP, skip);
-            contacts.ifSuccessAndNotNull(processFunction);
-            skip += MAX_CONTACTS_TO_PROCESS_PER_STEP;
-        } while (nrOfContacts > skip);
+        return sendAndProcessList(path, clazz, jsonDeserializer, typeToken, maxSelect, MAX_CONTACTS_TO_PROCESS_PER_STEP, nrOfContacts, options, processFunction);
+    }
 
-        return ResultBuilder.successfulWithoutData("Success");
+    /**
+     * The number of contacts in the address book is only worth an extra request when pages are fetched in parallel,
+     * where it tells the client how many pages it can safely request up front
+     */
+    private int knownContactsTotal(Long addressBookId) {
+        if (getClientConfig().getParallelPageFetches() <= 1) {
+            return UNKNOWN_TOTAL;
+        }
+        Result<AddressBook> addressBookResult = get(addressBookId);
+        return addressBookResult.isSuccessAndNotNull() ? addressBookResult.getData().getContacts() : UNKNOWN_TOTAL;
     }
 
     /**
@@ -237,38 +339,71 @@ public class AddressBookResource extends AbstractResource {
      * @return
      */
     public <T> Result<JobStatus> importList(Long addressBookId, List<T> customContactObjects) {
-        Result<String> csvFilePath = CsvUtil.writeCsv(customContactObjects);
-        if (!csvFilePath.isSuccessAndNotNull()) {
-            return ResultBuilder.of(csvFilePath).buildAndIgnoreData();
-        }
-        return postFileAndGet(pathWithId(DefaultEndpoints.ADDRESS_BOOK_CONTACTS_IMPORT.getPath(), addressBookId), csvFilePath.getData(), JobStatus.class);
+        return importCsv(addressBookId, CsvUtil.csvBody(customContactObjects));
     }
 
     public <T> Result<JobStatus> importList(Long addressBookId, List<T> customContactObjects, List<String> csvHeaders) {
-        Result<String> csvFilePath = CsvUtil.writeCsv(customContactObjects, csvHeaders);
-        if (!csvFilePath.isSuccessAndNotNull()) {
-            return ResultBuilder.of(csvFilePath).buildAndIgnoreData();
-        }
-        return postFileAndGet(pathWithId(DefaultEndpoints.ADDRESS_BOOK_CONTACTS_IMPORT.getPath(), addressBookId), csvFilePath.getData(), JobStatus.class);
+        return importCsv(addressBookId, CsvUtil.csvBody(customContactObjects, csvHeaders, null, null));
     }
 
     public <T> Result<JobStatus> importList(Long addressBookId, List<T> customContactObjects, List<String> csvHeaders, List<String> fieldNames) {
-        Result<String> csvFilePath = CsvUtil.writeCsv(customContactObjects, csvHeaders, fieldNames);
-        if (!csvFilePath.isSuccessAndNotNull()) {
-            return ResultBuilder.of(csvFilePath).buildAndIgnoreData();
-        }
-        return postFileAndGet(pathWithId(DefaultEndpoints.ADDRESS_BOOK_CONTACTS_IMPORT.getPath(), addressBookId), csvFilePath.getData(), JobStatus.class);
+        return importCsv(addressBookId, CsvUtil.csvBody(customContactObjects, csvHeaders, fieldNames, null));
     }
 
     public <T> Result<JobStatus> importList(Long addressBookId, List<T> customContactObjects, List<String> csvHeaders, List<String> fieldNames, CellProcessor[] cellProcessors) {
-        Result<String> csvFilePath = CsvUtil.writeCsv(customContactObjects, csvHeaders, fieldNames, cellProcessors);
-        if (!csvFilePath.isSuccessAndNotNull()) {
-            return ResultBuilder.of(csvFilePath).buildAndIgnoreData();
-        }
-        return postFileAndGet(pathWithId(DefaultEndpoints.ADDRESS_BOOK_CONTACTS_IMPORT.getPath(), addressBookId), csvFilePath.getData(), JobStatus.class);
+        return importCsv(addressBookId, CsvUtil.csvBody(customContactObjects, csvHeaders, fieldNames, cellProcessors));
+    }
+
+    /**
+     * Bulk creates, or bulk updates, contacts taken from the iterator while they're uploaded, so they don't all have
+     * to be in memory. The upload can't be retried, a throttled (429) response is returned as a failure.
+     */
+    public <T> Result<JobStatus> importList(Long addressBookId, Iterator<T> customContactObjects) {
+        return importCsv(addressBookId, CsvUtil.csvBody(customContactObjects));
+    }
+
+    public <T> Result<JobStatus> importList(Long addressBookId, Iterator<T> customContactObjects, List<String> csvHeaders, List<String> fieldNames,
+                                            CellProcessor[] cellProcessors) {
+        return importCsv(addressBookId, CsvUtil.csvBody(customContactObjects, csvHeaders, fieldNames, cellProcessors));
+    }
+
+    /**
+     * See importList(Long, Iterator). The stream is consumed but not closed.
+     */
+    public <T> Result<JobStatus> importList(Long addressBookId, Stream<T> customContactObjects) {
+        return importCsv(addressBookId, CsvUtil.csvBody(customContactObjects.iterator()));
+    }
+
+    public <T> Result<JobStatus> importList(Long addressBookId, Stream<T> customContactObjects, List<String> csvHeaders, List<String> fieldNames,
+                                            CellProcessor[] cellProcessors) {
+        return importCsv(addressBookId, CsvUtil.csvBody(customContactObjects.iterator(), csvHeaders, fieldNames, cellProcessors));
+    }
+
+    /**
+     * Uploads a CSV read from the stream as it's sent. The stream isn't closed.
+     */
+    public Result<JobStatus> importList(Long addressBookId, InputStream csv) {
+        return postBodyAndGet(pathWithId(DefaultEndpoints.ADDRESS_BOOK_CONTACTS_IMPORT.getPath(), addressBookId), RequestBody.multipartStream(CSV_UPLOAD_NAME, csv), JobStatus.class);
+    }
+
+    /**
+     * Uploads a CSV file as it is. The file is left in place.
+     */
+    public Result<JobStatus> importList(Long addressBookId, Path csvFile) {
+        return postFileAndGet(pathWithId(DefaultEndpoints.ADDRESS_BOOK_CONTACTS_IMPORT.getPath(), addressBookId), csvFile.toString(), JobStatus.class);
     }
 
+    /**
+     * Uploads a CSV file as it is. The file is left in place.
+     */
     public <T> Result<JobStatus> importList(Long addressBookId, String csvFilePath) {
         return postFileAndGet(pathWithId(DefaultEndpoints.ADDRESS_BOOK_CONTACTS_IMPORT.getPath(), addressBookId), csvFilePath, JobStatus.class);
     }
+
+    private Result<JobStatus> importCsv(Long addressBookId, Result<RequestBody> csvBody) {
+        if (!csvBody.isSuccessAndNotNull()) {
+            return ResultBuilder.of(csvBody).buildAndIgnoreData();
+        }
+        return postBodyAndGet(pathWithId(DefaultEndpoints.ADDRESS_BOOK_CONTACTS_IMPORT.getPath(), addressBookId), csvBody.getData(), JobStatus.class);
+    }
 }
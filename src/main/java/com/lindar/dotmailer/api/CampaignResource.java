@@ -7,6 +7,7 @@ import com.lindar.dotmailer.vo.api.CampaignContactActivity;
 import com.lindar.dotmailer.vo.api.CampaignInfo;
 import com.lindar.dotmailer.vo.api.CampaignSummary;
 import com.lindar.dotmailer.vo.internal.DMAccessCredentials;
+import com.lindar.dotmailer.vo.internal.DMClientConfig;
 import com.lindar.wellrested.vo.Result;
 import com.lindar.wellrested.vo.ResultBuilder;
 import org.joda.time.DateTime;
@@ -14,11 +15,16 @@ import org.joda.time.DateTime;
 import java.util.Date;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class CampaignResource extends AbstractResource {
     
     public CampaignResource(DMAccessCredentials accessCredentials) {
-        super(accessCredentials);
+        this(accessCredentials, new DMClientConfig());
+    }
+
+    public CampaignResource(DMAccessCredentials accessCredentials, DMClientConfig clientConfig) {
+        super(accessCredentials, clientConfig);
     }
     
     /**
@@ -41,6 +47,21 @@ public class CampaignResource extends AbstractResource {
         String dateTemplate = roundToDate ? DM_DATE_FORMAT : DM_DATE_TIME_FORMAT;
         return sendAndGetFullList(pathWithParam(DefaultEndpoints.CAMPAIGNS_WITH_ACTIVITY_SINCE.getPath(), new DateTime(startDate).toString(dateTemplate)), new TypeToken<List<CampaignInfo>>() {});
     }
+
+    /**
+     * Lazily streams the Campaigns base information, <b>without email html content</b>
+     */
+    public Stream<CampaignInfo> stream() {
+        return sendAndStreamList(DefaultEndpoints.CAMPAIGNS.getPath(), new TypeToken<List<CampaignInfo>>() {});
+    }
+
+    /**
+     * Lazily streams the base information of the Campaigns with activity since the given date
+     */
+    public Stream<CampaignInfo> streamWithActivitySince(Date startDate, boolean roundToDate) {
+        String dateTemplate = roundToDate ? DM_DATE_FORMAT : DM_DATE_TIME_FORMAT;
+        return sendAndStreamList(pathWithParam(DefaultEndpoints.CAMPAIGNS_WITH_ACTIVITY_SINCE.getPath(), new DateTime(startDate).toString(dateTemplate)), new TypeToken<List<CampaignInfo>>() {});
+    }
     
     /**
      * Returns a list of Campaigns including html content, summary and all the activities. 
@@ -91,7 +112,23 @@ public class CampaignResource extends AbstractResource {
         String path = pathWithId(DefaultEndpoints.CAMPAIGN_ACTIVITY.getPath(), id);
         return sendAndGetFullList(path, new TypeToken<List<CampaignContactActivity>>() {});
     }
-    
+
+
+    /**
+     * Lazily streams the campaign activities. Pages are only fetched as the stream is consumed, so memory stays at
+     * about two pages no matter how many contacts the campaign was sent to. Close the stream if you don't consume it
+     * fully.
+     */
+    public Stream<CampaignContactActivity> streamActivities(Long id) {
+        String path = pathWithId(DefaultEndpoints.CAMPAIGN_ACTIVITY.getPath(), id);
+        return sendAndStreamList(path, new TypeToken<List<CampaignContactActivity>>() {});
+    }
+
+    public Stream<CampaignContactActivity> streamActivitiesSince(Long id, Date startDate, boolean roundToDate) {
+        String dateTemplate = roundToDate ? DM_DATE_FORMAT : DM_DATE_TIME_FORMAT;
+        String path = pathWithIdAndParam(DefaultEndpoints.CAMPAIGN_ACTIVITY_SINCE.getPath(), id, new DateTime(startDate).toString(dateTemplate));
+        return sendAndStreamList(path, new TypeToken<List<CampaignContactActivity>>() {});
+    }    
 
     public Result<List<CampaignContactActivity>> activitiesSince(Long id, Date startDate, boolean roundToDate) {
         String dateTemplate = roundToDate ? DM_DATE_FORMAT : DM_DATE_TIME_FORMAT;
@@ -0,0 +1,201 @@
+package com.lindar.dotmailer.api;
+
+import com.lindar.dotmailer.util.NamedThreadFactory;
+import com.lindar.wellrested.vo.Result;
+import com.lindar.wellrested.vo.ResultBuilder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Chunked list walk where the calling thread downloads the next chunks while consumer threads process the previous
+ * ones. Downloaded chunks wait in a bounded queue: once it's full the download pauses until a consumer catches up, so
+ * at most prefetch + consumers chunks are held in memory besides the one being downloaded.
+ * <p>
+ * With more than one consumer chunks are processed out of order, but progress is only reported up to the last chunk
+ * all the chunks before which have been processed too.
+ */
+@Slf4j
+class ChunkPipeline<T> {
+
+    private static final String THREAD_PREFIX = "dotmailer-process";
+    private static final long POLL_MILLIS = 100;
+
+    interface ProgressListener {
+
+        /**
+         * Called in order, once every chunk before <b>skip</b> has been processed. Not called for the last chunk.
+         */
+        void completed(int skip, int chunks) throws IOException;
+    }
+
+    private final ChunkSizer.ChunkFetcher<T> chunkFetcher;
+    private final ChunkSizer sizer;
+    private final int consumers;
+    private final Consumer<List<T>> consumer;
+    private final ProgressListener progressListener;
+    private final BlockingQueue<Chunk<T>> queue;
+
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private volatile boolean producerDone;
+
+    // processed chunks waiting for the ones before them to be processed too
+    private final TreeMap<Integer, Chunk<T>> completed = new TreeMap<>();
+    private int nextToReport;
+    private int chunksBefore;
+
+    ChunkPipeline(ChunkSizer.ChunkFetcher<T> chunkFetcher, ChunkSizer sizer, int prefetch, int consumers, Consumer<List<T>> consumer,
+                  ProgressListener progressListener) {
+        this.chunkFetcher = chunkFetcher;
+        this.sizer = sizer;
+        this.consumers = consumers;
+        this.consumer = consumer;
+        this.progressListener = progressListener;
+        this.queue = new ArrayBlockingQueue<>(prefetch);
+    }
+
+    /**
+     * @return the number of records processed, or the first failed chunk. An exception thrown by the consumer is
+     * rethrown here once all the consumer threads have stopped.
+     */
+    Result<Long> run(int skip, int chunksBefore) {
+        this.chunksBefore = chunksBefore;
+        ExecutorService executor = Executors.newFixedThreadPool(consumers, new NamedThreadFactory(THREAD_PREFIX));
+        for (int i = 0; i < consumers; i++) {
+            executor.execute(this::consume);
+        }
+
+        Result<List<T>> failedChunk = null;
+        try {
+            int index = 0;
+            while (failure.get() == null) {
+                Result<List<T>> chunk = sizer.fetchNext(chunkFetcher, skip);
+                if (!chunk.isSuccessAndNotNull()) {
+                    failedChunk = chunk;
+                    break;
+                }
+                List<T> records = chunk.getData();
+                boolean last = sizer.isLast(records);
+                skip += records.size();
+                if (!records.isEmpty() && !enqueue(new Chunk<>(index++, records, skip, last))) {
+                    break;
+                }
+                if (last) {
+                    break;
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            failedChunk = ResultBuilder.failed().msg("Interrupted while waiting for a consumer").code(AbstractResource.ERROR_UNKNOWN).buildAndIgnoreData();
+        } finally {
+            producerDone = true;
+            awaitConsumers(executor);
+        }
+
+        Throwable consumerFailure = failure.get();
+        if (consumerFailure instanceof IOException) {
+            return ResultBuilder.failed().msg(consumerFailure.getMessage()).code(AbstractResource.ERROR_CHECKPOINT).buildAndIgnoreData();
+        }
+        if (consumerFailure instanceof RuntimeException) {
+            throw (RuntimeException) consumerFailure;
+        }
+        if (consumerFailure instanceof Error) {
+            throw (Error) consumerFailure;
+        }
+        if (failedChunk != null) {
+            return ResultBuilder.of(failedChunk).buildAndOverrideData(processed.get());
+        }
+        return ResultBuilder.successful(processed.get());
+    }
+
+    /**
+     * Blocks while the queue is full, which is what keeps the download from running ahead of slow consumers
+     *
+     * @return false if a consumer failed in the meantime
+     */
+    private boolean enqueue(Chunk<T> chunk) throws InterruptedException {
+        while (!queue.offer(chunk, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (failure.get() != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void consume() {
+        try {
+            while (true) {
+                Chunk<T> chunk = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (chunk == null) {
+                    if (producerDone) {
+                        return;
+                    }
+                    continue;
+                }
+                if (failure.get() != null) {
+                    // drop what's left, the walk is over
+                    continue;
+                }
+                consumer.accept(chunk.records);
+                processed.addAndGet(chunk.records.size());
+                completed(chunk);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable ex) {
+            failure.compareAndSet(null, ex);
+        }
+    }
+
+    private synchronized void completed(Chunk<T> chunk) throws IOException {
+        completed.put(chunk.index, chunk);
+        while (!completed.isEmpty() && completed.firstKey() == nextToReport) {
+            Chunk<T> next = completed.pollFirstEntry().getValue();
+            nextToReport++;
+            if (!next.last) {
+                progressListener.completed(next.skipAfter, chunksBefore + nextToReport);
+            }
+        }
+    }
+
+    private void awaitConsumers(ExecutorService executor) {
+        executor.shutdown();
+        boolean interrupted = false;
+        while (!executor.isTerminated()) {
+            try {
+                executor.awaitTermination(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                interrupted = true;
+                log.warn("Interrupted while waiting for the consumers to finish their chunks");
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class Chunk<T> {
+        private final int index;
+        private final List<T> records;
+        private final int skipAfter;
+        private final boolean last;
+
+        Chunk(int index, List<T> records, int skipAfter, boolean last) {
+            this.index = index;
+            this.records = records;
+            this.skipAfter = skipAfter;
+            this.last = last;
+        }
+    }
+}
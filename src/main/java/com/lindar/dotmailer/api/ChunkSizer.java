@@ -0,0 +1,89 @@
+package com.lindar.dotmailer.api;
+
+import com.lindar.dotmailer.process.ProcessOptions;
+import com.lindar.wellrested.vo.Result;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides how many records every chunk of a processFullList style walk asks for: either a fixed number, or as many
+ * whole pages as fit in a byte budget given the size of the records seen so far. The first chunk of a budgeted walk
+ * is a single page, to measure the records.
+ * <p>
+ * The size of a record on the heap is estimated from the size of its JSON. Not thread safe, chunks are fetched one at
+ * a time.
+ */
+class ChunkSizer {
+
+    /**
+     * Decoded records take roughly twice the size of their JSON: object headers, references and boxed numbers more
+     * than make up for the field names that aren't kept
+     */
+    static final int HEAP_BYTES_PER_JSON_BYTE = 2;
+
+    interface ChunkFetcher<T> {
+
+        /**
+         * @param bodyBytes the decompressed size of the pages fetched is added to it
+         */
+        Result<List<T>> fetch(int skip, int size, LongAdder bodyBytes);
+    }
+
+    private final int pageSize;
+    private final int maxRecords;
+    private final long maxBytes;
+
+    private double bytesPerRecord;
+    private int lastRequested;
+
+    private ChunkSizer(int pageSize, int maxRecords, long maxBytes) {
+        this.pageSize = pageSize;
+        this.maxRecords = maxRecords;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @param defaultRecords the chunk size used when the options don't set one
+     */
+    static ChunkSizer of(ProcessOptions options, int pageSize, int defaultRecords) {
+        int maxRecords = options.getChunkSize() > 0 ? options.getChunkSize() : defaultRecords;
+        return new ChunkSizer(pageSize, maxRecords, options.getChunkBytes());
+    }
+
+    <T> Result<List<T>> fetchNext(ChunkFetcher<T> fetcher, int skip) {
+        lastRequested = nextSize();
+        LongAdder bodyBytes = new LongAdder();
+        Result<List<T>> chunk = fetcher.fetch(skip, lastRequested, bodyBytes);
+        if (chunk.isSuccessAndNotNull()) {
+            observe(chunk.getData().size(), bodyBytes.sum());
+        }
+        return chunk;
+    }
+
+    /**
+     * @return whether the chunk last fetched came back short, i.e. it's the end of the list
+     */
+    boolean isLast(List<?> records) {
+        return records.size() < lastRequested;
+    }
+
+    int nextSize() {
+        if (maxBytes <= 0) {
+            return maxRecords;
+        }
+        if (bytesPerRecord <= 0) {
+            return Math.min(pageSize, maxRecords);
+        }
+        long pages = Math.max(1, (long) (maxBytes / bytesPerRecord) / pageSize);
+        return (int) Math.min(maxRecords, pages * pageSize);
+    }
+
+    private void observe(int records, long jsonBytes) {
+        if (records == 0 || jsonBytes <= 0) {
+            return;
+        }
+        // the widest records seen so far set the pace, the list isn't ordered by size so wider ones can follow
+        bytesPerRecord = Math.max(bytesPerRecord, (double) jsonBytes * HEAP_BYTES_PER_JSON_BYTE / records);
+    }
+}
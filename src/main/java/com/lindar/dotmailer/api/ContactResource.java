@@ -2,8 +2,10 @@ package com.lindar.dotmailer.api;
 
 import com.google.gson.JsonDeserializer;
 import com.google.gson.reflect.TypeToken;
+import com.lindar.dotmailer.transport.RequestBody;
 import com.lindar.dotmailer.util.CsvUtil;
 import com.lindar.dotmailer.util.DefaultEndpoints;
+import com.lindar.dotmailer.process.ProcessOptions;
 import com.lindar.dotmailer.util.PersonalizedContactsProcessFunction;
 import com.lindar.dotmailer.vo.api.AddressBook;
 import com.lindar.dotmailer.vo.api.Contact;
@@ -12,22 +14,32 @@ import com.lindar.dotmailer.vo.api.JobStatus;
 import com.lindar.dotmailer.vo.api.PersonalisedContact;
 import com.lindar.dotmailer.vo.api.SuppressedContact;
 import com.lindar.dotmailer.vo.internal.DMAccessCredentials;
+import com.lindar.dotmailer.vo.internal.DMClientConfig;
 import com.lindar.wellrested.vo.Result;
 import com.lindar.wellrested.vo.ResultBuilder;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.BooleanUtils;
 import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
 import org.supercsv.cellprocessor.ift.CellProcessor;
 
+import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Slf4j
 public class ContactResource extends AbstractResource {
     
     public ContactResource(DMAccessCredentials accessCredentials) {
-        super(accessCredentials);
+        this(accessCredentials, new DMClientConfig());
+    }
+
+    public ContactResource(DMAccessCredentials accessCredentials, DMClientConfig clientConfig) {
+        super(accessCredentials, clientConfig);
     }
     
     public Result<Contact> get(Long id) {
@@ -119,7 +131,50 @@ public class ContactResource extends AbstractResource {
         }
         return sendAndGetFullList(path, new TypeToken<List<Contact>>() {});
     }
-    
+
+
+    /**
+     * Processes the contacts created since the passed date in chunks, sized and checkpointed as set in the options. The
+     * date is sent in UTC, whatever the zone of the JVM.
+     * @param createdSince
+     * @param withFullData
+     * @param roundToDate
+     * @param options
+     * @param consumer
+     * @return the number of contacts processed by this run
+     */
+    public Result<Long> processCreated(Date createdSince, boolean withFullData, boolean roundToDate, ProcessOptions options, Consumer<List<Contact>> consumer) {
+        String dateTemplate = roundToDate ? DM_DATE_FORMAT : DM_DATE_TIME_FORMAT;
+        String rootPath = pathWithParam(DefaultEndpoints.CONTACTS_SINCE_DATE.getPath(), utcDate(createdSince, dateTemplate));
+        String path = addAttrAndValueToPath(rootPath, WITH_FULL_DATA_ATTR, BooleanUtils.toStringTrueFalse(withFullData));
+        return sendAndProcessList(path, null, null, new TypeToken<List<Contact>>() {}, DEFAULT_MAX_SELECT, MAX_CONTACTS_TO_PROCESS_PER_STEP, UNKNOWN_TOTAL, options, consumer);
+    }
+
+    /**
+     * Lazily streams all contacts in the account. Pages are only fetched as the stream is consumed, so memory stays at
+     * about two pages no matter how many contacts the account has. Use <b>stream(..).iterator()</b> if you prefer an
+     * iterator. Close the stream if you don't consume it fully.
+     * @param withFullData
+     * @return
+     */
+    public Stream<Contact> stream(boolean withFullData) {
+        String initialPath = addAttrAndValueToPath(DefaultEndpoints.CONTACTS.getPath(), WITH_FULL_DATA_ATTR, BooleanUtils.toStringTrueFalse(withFullData));
+        return sendAndStreamList(initialPath, new TypeToken<List<Contact>>() {});
+    }
+
+    /**
+     * Lazily streams all contacts in the account created since the passed date
+     * @param createdSince
+     * @param withFullData
+     * @param roundToDate
+     * @return
+     */
+    public Stream<Contact> stream(Date createdSince, boolean withFullData, boolean roundToDate) {
+        String dateTemplate = roundToDate ? DM_DATE_FORMAT : DM_DATE_TIME_FORMAT;
+        String rootPath = pathWithParam(DefaultEndpoints.CONTACTS_SINCE_DATE.getPath(), new DateTime(createdSince).toString(dateTemplate));
+        String path = addAttrAndValueToPath(rootPath, WITH_FULL_DATA_ATTR, BooleanUtils.toStringTrueFalse(withFullData));
+        return sendAndStreamList(path, new TypeToken<List<Contact>>() {});
+    }    
     
     /**
      * This is a very powerful method that allows you to create a list of personalized contacts by deserializing the dataFields map (key, value) returned by DotMailer for each contact.
@@ -200,24 +255,76 @@ public class ContactResource extends AbstractResource {
      */
     public <T> void processFullList(Class<T> clazz, JsonDeserializer<T> jsonDeserializer, TypeToken<List<PersonalisedContact<T>>> typeToken, boolean withFullData, int limit,
             PersonalizedContactsProcessFunction<T> processFunction) {
-        
+        processFullList(clazz, jsonDeserializer, typeToken, withFullData, limit, ProcessOptions.defaults(), processFunction);
+    }
+
+    /**
+     * Same as processFullList, with options. Use ProcessOptions.checkpoint to save the progress after every chunk
+     * and ProcessOptions.resume to carry on from the last saved chunk after a crash or restart.
+     * @param clazz
+     * @param jsonDeserializer
+     * @param typeToken
+     * @param withFullData
+     * @param limit
+     * @param options
+     * @param processFunction
+     * @return the number of contacts processed by this run
+     */
+    public <T> Result<Long> processFullList(Class<T> clazz, JsonDeserializer<T> jsonDeserializer, TypeToken<List<PersonalisedContact<T>>> typeToken, boolean withFullData, int limit,
+            ProcessOptions options, PersonalizedContactsProcessFunction<T> processFunction) {
+
         // unfortunately there is no way to get a count of account contacts. We'll have to process until we hit bottom :)
         log.info("STARTING TO PROCESS ALL CONTACTS");
-        
+
         String initialPath = addAttrAndValueToPath(DefaultEndpoints.CONTACTS.getPath(), WITH_FULL_DATA_ATTR, BooleanUtils.toStringTrueFalse(withFullData));
-        
+
         int maxSelect = limit <= 0 || limit >= DEFAULT_MAX_SELECT ? DEFAULT_MAX_SELECT : limit;
-        
-        int skip = 0;
 
-        Result<List<PersonalisedContact<T>>> contacts;
-        do {
-            contacts = sendAndGetFullList(initialPath, clazz, jsonDeserializer, typeToken, maxSelect, MAX_CONTACTS_TO_PROCESS_PER_STEP, skip);
-            contacts.ifSuccessAndNotNull(processFunction);
-            skip += MAX_CONTACTS_TO_PROCESS_PER_STEP;
-        } while (contacts.isSuccessAndNotNull() && !contacts.getData().isEmpty());
+        return sendAndProcessList(initialPath, clazz, jsonDeserializer, typeToken, maxSelect, MAX_CONTACTS_TO_PROCESS_PER_STEP, UNKNOWN_TOTAL, options, processFunction);
     }
-    
+
+
+    /**
+     * Hands every contact in the account to the consumer as soon as it's decoded from the response, without ever
+     * building a list, not even of a single page. Use this when contacts only need to be looked at once.
+     * @param withFullData
+     * @param consumer
+     * @return the number of contacts processed
+     */
+    public Result<Long> processEachContact(boolean withFullData, Consumer<Contact> consumer) {
+        String initialPath = addAttrAndValueToPath(DefaultEndpoints.CONTACTS.getPath(), WITH_FULL_DATA_ATTR, BooleanUtils.toStringTrueFalse(withFullData));
+        return sendAndConsumeFullList(initialPath, new TypeToken<List<Contact>>() {}, consumer);
+    }
+
+    /**
+     * Record by record version of processFullList: every personalized contact is handed to the consumer as soon as it's
+     * decoded from the response
+     * @param clazz
+     * @param jsonDeserializer
+     * @param typeToken
+     * @param withFullData
+     * @param consumer
+     * @return the number of contacts processed
+     */
+    public <T> Result<Long> processEachPersonalizedContact(Class<T> clazz, JsonDeserializer<T> jsonDeserializer, TypeToken<List<PersonalisedContact<T>>> typeToken,
+            boolean withFullData, Consumer<PersonalisedContact<T>> consumer) {
+        String initialPath = addAttrAndValueToPath(DefaultEndpoints.CONTACTS.getPath(), WITH_FULL_DATA_ATTR, BooleanUtils.toStringTrueFalse(withFullData));
+        return sendAndConsumeFullList(initialPath, clazz, jsonDeserializer, typeToken, DEFAULT_MAX_SELECT, consumer);
+    }
+
+    /**
+     * Lazy version of listPersonalizedContacts: contacts are deserialized page by page as the stream is consumed
+     * @param clazz
+     * @param jsonDeserializer
+     * @param typeToken
+     * @param withFullData
+     * @return
+     */
+    public <T> Stream<PersonalisedContact<T>> streamPersonalizedContacts(Class<T> clazz, JsonDeserializer<T> jsonDeserializer, TypeToken<List<PersonalisedContact<T>>> typeToken,
+            boolean withFullData) {
+        String initialPath = addAttrAndValueToPath(DefaultEndpoints.CONTACTS.getPath(), WITH_FULL_DATA_ATTR, BooleanUtils.toStringTrueFalse(withFullData));
+        return sendAndStreamList(initialPath, clazz, jsonDeserializer, typeToken, DEFAULT_MAX_SELECT);
+    }    
     
     
     
@@ -309,6 +416,41 @@ public class ContactResource extends AbstractResource {
     }
 
 
+    /**
+     * Lazily streams the contacts who unsubscribed after a given date
+     * @param since
+     * @return
+     */
+    public Stream<SuppressedContact> streamUnsubscribed(Date since) {
+        String rootPath = pathWithParam(DefaultEndpoints.CONTACTS_UNSUBSCRIBED_SINCE_DATE.getPath(), new DateTime(since).toString(DM_DATE_FORMAT));
+        return sendAndStreamList(rootPath, new TypeToken<List<SuppressedContact>>() {});
+    }
+
+    /**
+     * Processes the contacts who unsubscribed after a given date in chunks, sized and checkpointed as set in the options.
+     * The API only takes the day of the date, the UTC one whatever the zone of the JVM.
+     * @param since
+     * @param options
+     * @param consumer
+     * @return the number of unsubscribed contacts processed by this run
+     */
+    public Result<Long> processUnsubscribed(Date since, ProcessOptions options, Consumer<List<SuppressedContact>> consumer) {
+        String rootPath = pathWithParam(DefaultEndpoints.CONTACTS_UNSUBSCRIBED_SINCE_DATE.getPath(), utcDate(since, DM_DATE_FORMAT));
+        return sendAndProcessList(rootPath, null, null, new TypeToken<List<SuppressedContact>>() {}, DEFAULT_MAX_SELECT, DEFAULT_PER_STEP, UNKNOWN_TOTAL, options, consumer);
+    }
+
+    /**
+     * Lazily streams the contacts suppressed after a given date along with the reason for suppression
+     * @param since
+     * @param roundToDate
+     * @return
+     */
+    public Stream<SuppressedContact> streamSuppressed(Date since, boolean roundToDate) {
+        String dateTemplate = roundToDate ? DM_DATE_FORMAT : DM_DATE_TIME_FORMAT;
+        String rootPath = pathWithParam(DefaultEndpoints.CONTACTS_SUPPRESSED_SINCE_DATE.getPath(), new DateTime(since).toString(dateTemplate));
+        return sendAndStreamList(rootPath, new TypeToken<List<SuppressedContact>>() {});
+    }
+
     public void processSuppressed(Date since, boolean roundToDate, Consumer<List<SuppressedContact>> consumer) {
         processSuppressed(since, roundToDate, DEFAULT_PER_STEP, consumer);
     }
@@ -319,6 +461,35 @@ public class ContactResource extends AbstractResource {
 
         sendAndProcessList(rootPath, null, null,  new TypeToken<List<SuppressedContact>>() {}, DEFAULT_MAX_SELECT, perStep, consumer);
     }
+
+    /**
+     * Processes the contacts suppressed after a given date in chunks, sized and checkpointed as set in the options. The
+     * date is sent in UTC, whatever the zone of the JVM.
+     * @param since
+     * @param roundToDate
+     * @param options
+     * @param consumer
+     * @return the number of suppressed contacts processed by this run
+     */
+    public Result<Long> processSuppressed(Date since, boolean roundToDate, ProcessOptions options, Consumer<List<SuppressedContact>> consumer) {
+        String dateTemplate = roundToDate ? DM_DATE_FORMAT : DM_DATE_TIME_FORMAT;
+        String rootPath = pathWithParam(DefaultEndpoints.CONTACTS_SUPPRESSED_SINCE_DATE.getPath(), utcDate(since, dateTemplate));
+
+        return sendAndProcessList(rootPath, null, null, new TypeToken<List<SuppressedContact>>() {}, DEFAULT_MAX_SELECT, DEFAULT_PER_STEP, UNKNOWN_TOTAL, options, consumer);
+    }
+
+    /**
+     * Hands every contact suppressed after a given date to the consumer as soon as it's decoded from the response
+     * @param since
+     * @param roundToDate
+     * @param consumer
+     * @return the number of suppressed contacts processed
+     */
+    public Result<Long> processEachSuppressed(Date since, boolean roundToDate, Consumer<SuppressedContact> consumer) {
+        String dateTemplate = roundToDate ? DM_DATE_FORMAT : DM_DATE_TIME_FORMAT;
+        String rootPath = pathWithParam(DefaultEndpoints.CONTACTS_SUPPRESSED_SINCE_DATE.getPath(), new DateTime(since).toString(dateTemplate));
+        return sendAndConsumeFullList(rootPath, new TypeToken<List<SuppressedContact>>() {}, consumer);
+    }
     
     /**
      * Gets any address books that a contact is in.
@@ -345,7 +516,16 @@ public class ContactResource extends AbstractResource {
         }
         return sendAndGetFullList(path, new TypeToken<List<AddressBook>>() {});
     }
-    
+
+
+    /**
+     * Lazily streams the address books that a contact is in
+     * @param contactId
+     * @return
+     */
+    public Stream<AddressBook> streamAddressBooks(Long contactId) {
+        return sendAndStreamList(pathWithId(DefaultEndpoints.CONTACT_ADDRESS_BOOKS.getPath(), contactId), new TypeToken<List<AddressBook>>() {});
+    }    
     
     public Result<Contact> create(Contact newContact) {
         return postAndGet(DefaultEndpoints.CONTACTS.getPath(), newContact);
@@ -366,35 +546,63 @@ public class ContactResource extends AbstractResource {
      * @return
      */
     public <T> Result<JobStatus> importList(List<T> customContactObjects) {
-        Result<String> csvFilePath = CsvUtil.writeCsv(customContactObjects);
-        if (!csvFilePath.isSuccessAndNotNull()) {
-            return ResultBuilder.failed().msg(csvFilePath.getMsg()).code(csvFilePath.getCode()).buildAndIgnoreData();
-        }
-        return postFileAndGet(DefaultEndpoints.CONTACTS_IMPORT.getPath(), csvFilePath.getData(), JobStatus.class);
+        return importCsv(CsvUtil.csvBody(customContactObjects));
     }
     
     public <T> Result<JobStatus> importList(List<T> customContactObjects, List<String> csvHeaders) {
-        Result<String> csvFilePath = CsvUtil.writeCsv(customContactObjects, csvHeaders);
-        if (!csvFilePath.isSuccessAndNotNull()) {
-            return ResultBuilder.failed().msg(csvFilePath.getMsg()).code(csvFilePath.getCode()).buildAndIgnoreData();
-        }
-        return postFileAndGet(DefaultEndpoints.CONTACTS_IMPORT.getPath(), csvFilePath.getData(), JobStatus.class);
+        return importCsv(CsvUtil.csvBody(customContactObjects, csvHeaders, null, null));
     }
     
     public <T> Result<JobStatus> importList(List<T> customContactObjects, List<String> csvHeaders, List<String> fieldNames) {
-        Result<String> csvFilePath = CsvUtil.writeCsv(customContactObjects, csvHeaders, fieldNames);
-        if (!csvFilePath.isSuccessAndNotNull()) {
-            return ResultBuilder.failed().msg(csvFilePath.getMsg()).code(csvFilePath.getCode()).buildAndIgnoreData();
-        }
-        return postFileAndGet(DefaultEndpoints.CONTACTS_IMPORT.getPath(), csvFilePath.getData(), JobStatus.class);
+        return importCsv(CsvUtil.csvBody(customContactObjects, csvHeaders, fieldNames, null));
     }
     
     public <T> Result<JobStatus> importList(List<T> customContactObjects, List<String> csvHeaders, List<String> fieldNames, CellProcessor[] cellProcessors) {
-        Result<String> csvFilePath = CsvUtil.writeCsv(customContactObjects, csvHeaders, fieldNames, cellProcessors);
-        if (!csvFilePath.isSuccessAndNotNull()) {
-            return ResultBuilder.failed().msg(csvFilePath.getMsg()).code(csvFilePath.getCode()).buildAndIgnoreData();
+        return importCsv(CsvUtil.csvBody(customContactObjects, csvHeaders, fieldNames, cellProcessors));
+    }
+
+    /**
+     * Bulk creates, or bulk updates, contacts taken from the iterator while they're uploaded, so they don't all have
+     * to be in memory. The upload can't be retried, a throttled (429) response is returned as a failure.
+     */
+    public <T> Result<JobStatus> importList(Iterator<T> customContactObjects) {
+        return importCsv(CsvUtil.csvBody(customContactObjects));
+    }
+
+    public <T> Result<JobStatus> importList(Iterator<T> customContactObjects, List<String> csvHeaders, List<String> fieldNames, CellProcessor[] cellProcessors) {
+        return importCsv(CsvUtil.csvBody(customContactObjects, csvHeaders, fieldNames, cellProcessors));
+    }
+
+    /**
+     * See importList(Iterator). The stream is consumed but not closed.
+     */
+    public <T> Result<JobStatus> importList(Stream<T> customContactObjects) {
+        return importCsv(CsvUtil.csvBody(customContactObjects.iterator()));
+    }
+
+    public <T> Result<JobStatus> importList(Stream<T> customContactObjects, List<String> csvHeaders, List<String> fieldNames, CellProcessor[] cellProcessors) {
+        return importCsv(CsvUtil.csvBody(customContactObjects.iterator(), csvHeaders, fieldNames, cellProcessors));
+    }
+
+    /**
+     * Uploads a CSV read from the stream as it's sent. The stream isn't closed.
+     */
+    public Result<JobStatus> importList(InputStream csv) {
+        return postBodyAndGet(DefaultEndpoints.CONTACTS_IMPORT.getPath(), RequestBody.multipartStream(CSV_UPLOAD_NAME, csv), JobStatus.class);
+    }
+
+    /**
+     * Uploads a CSV file as it is. The file is left in place.
+     */
+    public Result<JobStatus> importList(Path csvFile) {
+        return postFileAndGet(DefaultEndpoints.CONTACTS_IMPORT.getPath(), csvFile.toString(), JobStatus.class);
+    }
+
+    private Result<JobStatus> importCsv(Result<RequestBody> csvBody) {
+        if (!csvBody.isSuccessAndNotNull()) {
+            return ResultBuilder.of(csvBody).buildAndIgnoreData();
         }
-        return postFileAndGet(DefaultEndpoints.CONTACTS_IMPORT.getPath(), csvFilePath.getData(), JobStatus.class);
+        return postBodyAndGet(DefaultEndpoints.CONTACTS_IMPORT.getPath(), csvBody.getData(), JobStatus.class);
     }
     
     public Result<JobStatus> getImportStatus(String guid) {
@@ -404,4 +612,11 @@ public class ContactResource extends AbstractResource {
     public Result<JobReport> getImportReport(String guid) {
         return sendAndGet(pathWithParam(DefaultEndpoints.CONTACTS_IMPORT_REPORT.getPath(), guid), JobReport.class);
     }
+
+    /**
+     * dotmailer's dates are UTC, formatting them in the zone of the JVM would shift them by its offset
+     */
+    private static String utcDate(Date date, String template) {
+        return new DateTime(date, DateTimeZone.UTC).toString(template);
+    }
 }
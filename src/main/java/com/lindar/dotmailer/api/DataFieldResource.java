@@ -4,6 +4,7 @@ import com.google.gson.reflect.TypeToken;
 import com.lindar.dotmailer.util.DefaultEndpoints;
 import com.lindar.dotmailer.vo.api.DataField;
 import com.lindar.dotmailer.vo.internal.DMAccessCredentials;
+import com.lindar.dotmailer.vo.internal.DMClientConfig;
 import com.lindar.wellrested.vo.Result;
 import lombok.extern.slf4j.Slf4j;
 
@@ -13,7 +14,11 @@ import java.util.List;
 public class DataFieldResource extends AbstractResource {
 
     public DataFieldResource(DMAccessCredentials accessCredentials) {
-        super(accessCredentials);
+        this(accessCredentials, new DMClientConfig());
+    }
+
+    public DataFieldResource(DMAccessCredentials accessCredentials, DMClientConfig clientConfig) {
+        super(accessCredentials, clientConfig);
     }
 
     public Result<List<DataField>> list() {
@@ -0,0 +1,134 @@
+package com.lindar.dotmailer.api;
+
+import com.lindar.dotmailer.util.DotmailerApiException;
+import com.lindar.wellrested.vo.Result;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Walks a select/skip paginated endpoint lazily. Only the page being consumed and the next one (fetched in the
+ * background while the current one is consumed) are held in memory, regardless of how big the list is.
+ */
+class PageSpliterator<T> implements Spliterator<T>, AutoCloseable {
+
+
+    private final IntFunction<Result<List<T>>> pageFetcher;
+    private final int maxSelect;
+    private final Executor prefetchExecutor;
+    private final BiConsumer<Integer, Long> onFinished;
+
+    private Iterator<T> currentPage = Collections.emptyIterator();
+    private Future<Result<List<T>>> nextPage;
+    private int nextSkip;
+    private boolean lastPageReached;
+    private volatile boolean closed;
+    private int pages;
+    private long records;
+    private boolean finished;
+
+    /**
+     * @param onFinished called once with the number of pages and records fetched, when the last page is reached, a
+     *                   page fails or the spliterator is closed
+     */
+    PageSpliterator(IntFunction<Result<List<T>>> pageFetcher, int maxSelect, int initialSkip, Executor prefetchExecutor,
+                    BiConsumer<Integer, Long> onFinished) {
+        this.pageFetcher = pageFetcher;
+        this.maxSelect = maxSelect;
+        this.nextSkip = initialSkip;
+        this.prefetchExecutor = prefetchExecutor;
+        this.onFinished = onFinished;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        while (!currentPage.hasNext()) {
+            if (lastPageReached || closed) {
+                return false;
+            }
+            List<T> page = takeNextPage();
+            pages++;
+            records += page.size();
+            lastPageReached = page.size() < maxSelect;
+            if (lastPageReached) {
+                finish();
+            } else {
+                prefetch();
+            }
+            currentPage = page.iterator();
+        }
+        action.accept(currentPage.next());
+        return true;
+    }
+
+    private List<T> takeNextPage() {
+        if (nextPage == null) {
+            prefetch();
+        }
+        Result<List<T>> page;
+        try {
+            page = nextPage.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new DotmailerApiException("Interrupted while waiting for the next page", AbstractResource.ERROR_UNKNOWN, ex);
+        } catch (ExecutionException ex) {
+            throw new DotmailerApiException(ex.getCause().getMessage(), AbstractResource.ERROR_UNKNOWN, ex.getCause());
+        } finally {
+            nextPage = null;
+        }
+        if (!page.isSuccessAndNotNull()) {
+            finish();
+            throw new DotmailerApiException(page.getMsg(), page.getCode());
+        }
+        return page.getData();
+    }
+
+    private void prefetch() {
+        int skip = nextSkip;
+        FutureTask<Result<List<T>>> task = new FutureTask<>(() -> pageFetcher.apply(skip));
+        prefetchExecutor.execute(task);
+        nextPage = task;
+        nextSkip += maxSelect;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+
+    private synchronized void finish() {
+        if (!finished) {
+            finished = true;
+            onFinished.accept(pages, records);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        finish();
+        Future<Result<List<T>>> pending = nextPage;
+        if (pending != null) {
+            pending.cancel(true);
+        }
+    }
+}
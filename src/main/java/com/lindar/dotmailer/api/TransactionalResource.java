@@ -1,18 +1,22 @@
 package com.lindar.dotmailer.api;
 
+import com.lindar.dotmailer.index.SuppressionFilter;
 import com.lindar.dotmailer.util.DefaultEndpoints;
 import com.lindar.dotmailer.vo.api.AggregatedBy;
 import com.lindar.dotmailer.vo.api.TransactionalEmailStatistics;
 import com.lindar.dotmailer.vo.internal.DMAccessCredentials;
+import com.lindar.dotmailer.vo.internal.DMClientConfig;
 import com.lindar.dotmailer.vo.internal.EmailTriggeredCampaignRequest;
 import com.lindar.dotmailer.vo.internal.NameValue;
 import com.lindar.wellrested.vo.Result;
+import com.lindar.wellrested.vo.ResultBuilder;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -22,12 +26,42 @@ import java.util.stream.Collectors;
 @Slf4j
 public class TransactionalResource extends AbstractResource {
 
+    private static final String ERROR_CONTACT_SUPPRESSED = "ERROR_CONTACT_SUPPRESSED";
+
     public TransactionalResource(DMAccessCredentials accessCredentials) {
-        super(accessCredentials);
+        this(accessCredentials, new DMClientConfig());
+    }
+
+    public TransactionalResource(DMAccessCredentials accessCredentials, DMClientConfig clientConfig) {
+        super(accessCredentials, clientConfig);
     }
 
+    /**
+     * With a suppression filter set to SuppressionAction.DROP, the recipients it left out are listed in the message of
+     * the Result
+     */
     public Result<Void> send(List<String> toAddresses, int campaignId, Map<String, String> personalisation) {
-        return postAndGetBlankResponse(DefaultEndpoints.EMAIL_TRIGGERED_CAMPAIGN.getPath(), new EmailTriggeredCampaignRequest(toAddresses, campaignId, toNameValueList(personalisation)));
+        SuppressionFilter suppressionFilter = getClientConfig().getSuppressionFilter();
+        List<String> dropped = Collections.emptyList();
+        if (suppressionFilter != null && toAddresses != null) {
+            List<String> allowed = suppressionFilter.filter(toAddresses, getClientConfig().getSuppressionAction());
+            if (allowed.size() < toAddresses.size()) {
+                dropped = new ArrayList<>(toAddresses);
+                dropped.removeAll(allowed);
+            }
+            if (allowed.isEmpty()) {
+                return ResultBuilder.failed().msg("All the recipients are suppressed, nothing was sent: " + String.join(", ", dropped))
+                        .code(ERROR_CONTACT_SUPPRESSED).buildAndIgnoreData();
+            }
+            toAddresses = allowed;
+        }
+        Result<Void> result = postAndGetBlankResponse(DefaultEndpoints.EMAIL_TRIGGERED_CAMPAIGN.getPath(),
+                                                      new EmailTriggeredCampaignRequest(toAddresses, campaignId, toNameValueList(personalisation)));
+        if (dropped.isEmpty()) {
+            return result;
+        }
+        String droppedMsg = "suppressed recipients left out: " + String.join(", ", dropped);
+        return ResultBuilder.of(result).msg(result.isSuccess() ? "Sent, " + droppedMsg : result.getMsg() + "; " + droppedMsg).build();
     }
 
     public Result<Void> send(List<String> toAddresses, int campaignId) {
@@ -0,0 +1,32 @@
+package com.lindar.dotmailer.api.async;
+
+import com.lindar.dotmailer.api.AbstractResource;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+public abstract class AbstractAsyncResource<R extends AbstractResource> {
+
+    protected final R resource;
+
+    protected AbstractAsyncResource(R resource) {
+        this.resource = resource;
+    }
+
+    /**
+     * Returns the blocking resource this one delegates to
+     *
+     * @return
+     */
+    public R blocking() {
+        return resource;
+    }
+
+    protected <T> CompletableFuture<T> supplyAsync(Supplier<T> call) {
+        return CompletableFuture.supplyAsync(call, resource.getClientConfig().asyncExecutor());
+    }
+
+    protected CompletableFuture<Void> runAsync(Runnable call) {
+        return CompletableFuture.runAsync(call, resource.getClientConfig().asyncExecutor());
+    }
+}
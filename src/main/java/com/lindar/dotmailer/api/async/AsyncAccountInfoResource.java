@@ -0,0 +1,21 @@
+package com.lindar.dotmailer.api.async;
+
+import com.lindar.dotmailer.api.AccountInfoResource;
+import com.lindar.dotmailer.vo.api.AccountInfo;
+import com.lindar.wellrested.vo.Result;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non blocking version of {@link AccountInfoResource}. Every call runs the blocking method on the async executor of its client config
+ */
+public class AsyncAccountInfoResource extends AbstractAsyncResource<AccountInfoResource> {
+
+    public AsyncAccountInfoResource(AccountInfoResource resource) {
+        super(resource);
+    }
+
+    public CompletableFuture<Result<AccountInfo>> get() {
+        return supplyAsync(() -> resource.get());
+    }
+}
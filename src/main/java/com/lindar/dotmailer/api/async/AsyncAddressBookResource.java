@@ -0,0 +1,149 @@
+package com.lindar.dotmailer.api.async;
+
+import com.google.gson.JsonDeserializer;
+import com.google.gson.reflect.TypeToken;
+import com.lindar.dotmailer.api.AddressBookResource;
+import com.lindar.dotmailer.process.ProcessOptions;
+import com.lindar.dotmailer.util.PersonalizedContactsProcessFunction;
+import com.lindar.dotmailer.vo.api.AddressBook;
+import com.lindar.dotmailer.vo.api.Contact;
+import com.lindar.dotmailer.vo.api.JobStatus;
+import com.lindar.dotmailer.vo.api.PersonalisedContact;
+import com.lindar.dotmailer.vo.api.SuppressedContact;
+import com.lindar.wellrested.vo.Result;
+import org.supercsv.cellprocessor.ift.CellProcessor;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Non blocking version of {@link AddressBookResource}. Every call runs the blocking method on the async executor of its client config
+ */
+public class AsyncAddressBookResource extends AbstractAsyncResource<AddressBookResource> {
+
+    public AsyncAddressBookResource(AddressBookResource resource) {
+        super(resource);
+    }
+
+    public CompletableFuture<Result<List<AddressBook>>> list() {
+        return supplyAsync(() -> resource.list());
+    }
+
+    public CompletableFuture<Result<AddressBook>> get(Long addressBookId) {
+        return supplyAsync(() -> resource.get(addressBookId));
+    }
+
+    public CompletableFuture<Result<AddressBook>> create(AddressBook addressBook) {
+        return supplyAsync(() -> resource.create(addressBook));
+    }
+
+    public CompletableFuture<Result<Contact>> addContact(Long addressBookId, Contact contact) {
+        return supplyAsync(() -> resource.addContact(addressBookId, contact));
+    }
+
+    public CompletableFuture<Result<JobStatus>> deleteContacts(Long addressBookId, List<Long> contactIds) {
+        return supplyAsync(() -> resource.deleteContacts(addressBookId, contactIds));
+    }
+
+    public CompletableFuture<Result<List<Contact>>> listContacts(Long addressBookId) {
+        return supplyAsync(() -> resource.listContacts(addressBookId));
+    }
+
+    public CompletableFuture<Result<List<Contact>>> listContacts(Long addressBookId, Boolean withFullData) {
+        return supplyAsync(() -> resource.listContacts(addressBookId, withFullData));
+    }
+
+    public CompletableFuture<Result<List<Contact>>> listContacts(Long addressBookId, Boolean withFullData, int limit) {
+        return supplyAsync(() -> resource.listContacts(addressBookId, withFullData, limit));
+    }
+
+    public CompletableFuture<Result<List<SuppressedContact>>> listUnsubscribedContacts(Long addressBookId, Date since) {
+        return supplyAsync(() -> resource.listUnsubscribedContacts(addressBookId, since));
+    }
+
+    public CompletableFuture<Result<List<SuppressedContact>>> listUnsubscribedContacts(Long addressBookId, Date since, int limit) {
+        return supplyAsync(() -> resource.listUnsubscribedContacts(addressBookId, since, limit));
+    }
+
+    public CompletableFuture<Result<Long>> processEachContact(Long addressBookId, boolean withFullData, Consumer<Contact> consumer) {
+        return supplyAsync(() -> resource.processEachContact(addressBookId, withFullData, consumer));
+    }
+
+    public <T> CompletableFuture<Result<List<PersonalisedContact<T>>>> listPersonalizedContacts(Long addressBookId, Class<T> clazz, JsonDeserializer<T> jsonDeserializer, TypeToken<List<PersonalisedContact<T>>> typeToken, Boolean withFullData, int limit) {
+        return supplyAsync(() -> resource.listPersonalizedContacts(addressBookId, clazz, jsonDeserializer, typeToken, withFullData, limit));
+    }
+
+    public <T> CompletableFuture<Result<List<PersonalisedContact<T>>>> listPersonalizedContacts(Long addressBookId, Class<T> clazz, JsonDeserializer<T> jsonDeserializer, TypeToken<List<PersonalisedContact<T>>> typeToken, Boolean withFullData) {
+        return supplyAsync(() -> resource.listPersonalizedContacts(addressBookId, clazz, jsonDeserializer, typeToken, withFullData));
+    }
+
+    public <T> CompletableFuture<Result<List<PersonalisedContact<T>>>> listPersonalizedContacts(Long addressBookId, Class<T> clazz, JsonDeserializer<T> jsonDeserializer, TypeToken<List<PersonalisedContact<T>>> typeToken) {
+        return supplyAsync(() -> resource.listPersonalizedContacts(addressBookId, clazz, jsonDeserializer, typeToken));
+    }
+
+    public <T> CompletableFuture<Result<Long>> processEachPersonalizedContact(Long addressBookId, Class<T> clazz, JsonDeserializer<T> jsonDeserializer, TypeToken<List<PersonalisedContact<T>>> typeToken, boolean withFullData, Consumer<PersonalisedContact<T>> consumer) {
+        return supplyAsync(() -> resource.processEachPersonalizedContact(addressBookId, clazz, jsonDeserializer, typeToken, withFullData, consumer));
+    }
+
+    public <T> CompletableFuture<Void> processFullList(Long addressBookId, Class<T> clazz, JsonDeserializer<T> jsonDeserializer, TypeToken<List<PersonalisedContact<T>>> typeToken, PersonalizedContactsProcessFunction<T> processFunction) {
+        return runAsync(() -> resource.processFullList(addressBookId, clazz, jsonDeserializer, typeToken, processFunction));
+    }
+
+    public <T> CompletableFuture<Result> processFullList(Long addressBookId, Class<T> clazz, JsonDeserializer<T> jsonDeserializer, TypeToken<List<PersonalisedContact<T>>> typeToken, boolean withFullData, int limit, PersonalizedContactsProcessFunction<T> processFunction) {
+        return supplyAsync(() -> resource.processFullList(addressBookId, clazz, jsonDeserializer, typeToken, withFullData, limit, processFunction));
+    }
+
+    public <T> CompletableFuture<Result<Long>> processFullList(Long addressBookId, Class<T> clazz, JsonDeserializer<T> jsonDeserializer, TypeToken<List<PersonalisedContact<T>>> typeToken, boolean withFullData, int limit, ProcessOptions options, PersonalizedContactsProcessFunction<T> processFunction) {
+        return supplyAsync(() -> resource.processFullList(addressBookId, clazz, jsonDeserializer, typeToken, withFullData, limit, options, processFunction));
+    }
+
+    public <T> CompletableFuture<Result<JobStatus>> importList(Long addressBookId, List<T> customContactObjects) {
+        return supplyAsync(() -> resource.importList(addressBookId, customContactObjects));
+    }
+
+    public <T> CompletableFuture<Result<JobStatus>> importList(Long addressBookId, List<T> customContactObjects, List<String> csvHeaders) {
+        return supplyAsync(() -> resource.importList(addressBookId, customContactObjects, csvHeaders));
+    }
+
+    public <T> CompletableFuture<Result<JobStatus>> importList(Long addressBookId, List<T> customContactObjects, List<String> csvHeaders, List<String> fieldNames) {
+        return supplyAsync(() -> resource.importList(addressBookId, customContactObjects, csvHeaders, fieldNames));
+    }
+
+    public <T> CompletableFuture<Result<JobStatus>> importList(Long addressBookId, List<T> customContactObjects, List<String> csvHeaders, List<String> fieldNames, CellProcessor[] cellProcessors) {
+        return supplyAsync(() -> resource.importList(addressBookId, customContactObjects, csvHeaders, fieldNames, cellProcessors));
+    }
+
+    public <T> CompletableFuture<Result<JobStatus>> importList(Long addressBookId, Iterator<T> customContactObjects) {
+        return supplyAsync(() -> resource.importList(addressBookId, customContactObjects));
+    }
+
+    public <T> CompletableFuture<Result<JobStatus>> importList(Long addressBookId, Iterator<T> customContactObjects, List<String> csvHeaders, List<String> fieldNames, CellProcessor[] cellProcessors) {
+        return supplyAsync(() -> resource.importList(addressBookId, customContactObjects, csvHeaders, fieldNames, cellProcessors));
+    }
+
+    public <T> CompletableFuture<Result<JobStatus>> importList(Long addressBookId, Stream<T> customContactObjects) {
+        return supplyAsync(() -> resource.importList(addressBookId, customContactObjects));
+    }
+
+    public <T> CompletableFuture<Result<JobStatus>> importList(Long addressBookId, Stream<T> customContactObjects, List<String> csvHeaders, List<String> fieldNames, CellProcessor[] cellProcessors) {
+        return supplyAsync(() -> resource.importList(addressBookId, customContactObjects, csvHeaders, fieldNames, cellProcessors));
+    }
+
+    public CompletableFuture<Result<JobStatus>> importList(Long addressBookId, InputStream csv) {
+        return supplyAsync(() -> resource.importList(addressBookId, csv));
+    }
+
+    public CompletableFuture<Result<JobStatus>> importList(Long addressBookId, Path csvFile) {
+        return supplyAsync(() -> resource.importList(addressBookId, csvFile));
+    }
+
+    public <T> CompletableFuture<Result<JobStatus>> importList(Long addressBookId, String csvFilePath) {
+        return supplyAsync(() -> resource.importList(addressBookId, csvFilePath));
+    }
+}
@@ -0,0 +1,66 @@
+package com.lindar.dotmailer.api.async;
+
+import com.lindar.dotmailer.api.CampaignResource;
+import com.lindar.dotmailer.vo.api.Campaign;
+import com.lindar.dotmailer.vo.api.CampaignContactActivity;
+import com.lindar.dotmailer.vo.api.CampaignInfo;
+import com.lindar.dotmailer.vo.api.CampaignSummary;
+import com.lindar.wellrested.vo.Result;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non blocking version of {@link CampaignResource}. Every call runs the blocking method on the async executor of its client config
+ */
+public class AsyncCampaignResource extends AbstractAsyncResource<CampaignResource> {
+
+    public AsyncCampaignResource(CampaignResource resource) {
+        super(resource);
+    }
+
+    public CompletableFuture<Result<List<CampaignInfo>>> list() {
+        return supplyAsync(() -> resource.list());
+    }
+
+    public CompletableFuture<Result<List<CampaignInfo>>> listWithActivitySince(Date startDate) {
+        return supplyAsync(() -> resource.listWithActivitySince(startDate));
+    }
+
+    public CompletableFuture<Result<List<CampaignInfo>>> listWithActivitySince(Date startDate, boolean roundToDate) {
+        return supplyAsync(() -> resource.listWithActivitySince(startDate, roundToDate));
+    }
+
+    public CompletableFuture<Result<List<Campaign>>> listComprehensive() {
+        return supplyAsync(() -> resource.listComprehensive());
+    }
+
+    public CompletableFuture<Result<Campaign>> get(Long id) {
+        return supplyAsync(() -> resource.get(id));
+    }
+
+    public CompletableFuture<Result<CampaignInfo>> info(Long id) {
+        return supplyAsync(() -> resource.info(id));
+    }
+
+    public CompletableFuture<Result<CampaignSummary>> summary(Long id) {
+        return supplyAsync(() -> resource.summary(id));
+    }
+
+    public CompletableFuture<Result<List<CampaignContactActivity>>> activities(Long id) {
+        return supplyAsync(() -> resource.activities(id));
+    }
+
+    public CompletableFuture<Result<List<CampaignContactActivity>>> activitiesSince(Long id, Date startDate, boolean roundToDate) {
+        return supplyAsync(() -> resource.activitiesSince(id, startDate, roundToDate));
+    }
+
+    public CompletableFuture<Result<List<CampaignContactActivity>>> activitiesSince(Long id, Date startDate) {
+        return supplyAsync(() -> resource.activitiesSince(id, startDate));
+    }
+
+    public CompletableFuture<Result<CampaignInfo>> update(CampaignInfo updateCampaign) {
+        return supplyAsync(() -> resource.update(updateCampaign));
+    }
+}
@@ -0,0 +1,214 @@
+package com.lindar.dotmailer.api.async;
+
+import com.google.gson.JsonDeserializer;
+import com.google.gson.reflect.TypeToken;
+import com.lindar.dotmailer.api.ContactResource;
+import com.lindar.dotmailer.process.ProcessOptions;
+import com.lindar.dotmailer.util.PersonalizedContactsProcessFunction;
+import com.lindar.dotmailer.vo.api.AddressBook;
+import com.lindar.dotmailer.vo.api.Contact;
+import com.lindar.dotmailer.vo.api.JobReport;
+import com.lindar.dotmailer.vo.api.JobStatus;
+import com.lindar.dotmailer.vo.api.PersonalisedContact;
+import com.lindar.dotmailer.vo.api.SuppressedContact;
+import com.lindar.wellrested.vo.Result;
+import org.supercsv.cellprocessor.ift.CellProcessor;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Non blocking version of {@link ContactResource}. Every call runs the blocking method on the async executor of its client config
+ */
+public class AsyncContactResource extends AbstractAsyncResource<ContactResource> {
+
+    public AsyncContactResource(ContactResource resource) {
+        super(resource);
+    }
+
+    public CompletableFuture<Result<Contact>> get(Long id) {
+        return supplyAsync(() -> resource.get(id));
+    }
+
+    public CompletableFuture<Result<Contact>> get(String email) {
+        return supplyAsync(() -> resource.get(email));
+    }
+
+    public CompletableFuture<Result<List<Contact>>> list() {
+        return supplyAsync(() -> resource.list());
+    }
+
+    public CompletableFuture<Result<List<Contact>>> list(boolean withFullData) {
+        return supplyAsync(() -> resource.list(withFullData));
+    }
+
+    public CompletableFuture<Result<List<Contact>>> list(boolean withFullData, int limit) {
+        return supplyAsync(() -> resource.list(withFullData, limit));
+    }
+
+    public CompletableFuture<Result<List<Contact>>> list(Date createdSince) {
+        return supplyAsync(() -> resource.list(createdSince));
+    }
+
+    public CompletableFuture<Result<List<Contact>>> list(Date createdSince, boolean withFullData) {
+        return supplyAsync(() -> resource.list(createdSince, withFullData));
+    }
+
+    public CompletableFuture<Result<List<Contact>>> list(Date createdSince, boolean withFullData, int limit) {
+        return supplyAsync(() -> resource.list(createdSince, withFullData, limit));
+    }
+
+    public CompletableFuture<Result<List<Contact>>> list(Date createdSince, boolean withFullData, int limit, boolean roundToDate) {
+        return supplyAsync(() -> resource.list(createdSince, withFullData, limit, roundToDate));
+    }
+
+    public <T> CompletableFuture<Result<List<PersonalisedContact<T>>>> listPersonalizedContacts(Class<T> clazz, JsonDeserializer<T> jsonDeserializer, TypeToken<List<PersonalisedContact<T>>> typeToken, Boolean withFullData, int limit) {
+        return supplyAsync(() -> resource.listPersonalizedContacts(clazz, jsonDeserializer, typeToken, withFullData, limit));
+    }
+
+    public <T> CompletableFuture<Result<List<PersonalisedContact<T>>>> listPersonalizedContacts(Class<T> clazz, JsonDeserializer<T> jsonDeserializer, TypeToken<List<PersonalisedContact<T>>> typeToken, Boolean withFullData) {
+        return supplyAsync(() -> resource.listPersonalizedContacts(clazz, jsonDeserializer, typeToken, withFullData));
+    }
+
+    public <T> CompletableFuture<Result<List<PersonalisedContact<T>>>> listPersonalizedContacts(Class<T> clazz, JsonDeserializer<T> jsonDeserializer, TypeToken<List<PersonalisedContact<T>>> typeToken) {
+        return supplyAsync(() -> resource.listPersonalizedContacts(clazz, jsonDeserializer, typeToken));
+    }
+
+    public <T> CompletableFuture<Void> processFullList(Class<T> clazz, JsonDeserializer<T> jsonDeserializer, TypeToken<List<PersonalisedContact<T>>> typeToken, PersonalizedContactsProcessFunction<T> processFunction) {
+        return runAsync(() -> resource.processFullList(clazz, jsonDeserializer, typeToken, processFunction));
+    }
+
+    public <T> CompletableFuture<Void> processFullList(Class<T> clazz, JsonDeserializer<T> jsonDeserializer, TypeToken<List<PersonalisedContact<T>>> typeToken, boolean withFullData, int limit, PersonalizedContactsProcessFunction<T> processFunction) {
+        return runAsync(() -> resource.processFullList(clazz, jsonDeserializer, typeToken, withFullData, limit, processFunction));
+    }
+
+    public <T> CompletableFuture<Result<Long>> processFullList(Class<T> clazz, JsonDeserializer<T> jsonDeserializer, TypeToken<List<PersonalisedContact<T>>> typeToken, boolean withFullData, int limit, ProcessOptions options, PersonalizedContactsProcessFunction<T> processFunction) {
+        return supplyAsync(() -> resource.processFullList(clazz, jsonDeserializer, typeToken, withFullData, limit, options, processFunction));
+    }
+
+    public CompletableFuture<Result<Long>> processEachContact(boolean withFullData, Consumer<Contact> consumer) {
+        return supplyAsync(() -> resource.processEachContact(withFullData, consumer));
+    }
+
+    public <T> CompletableFuture<Result<Long>> processEachPersonalizedContact(Class<T> clazz, JsonDeserializer<T> jsonDeserializer, TypeToken<List<PersonalisedContact<T>>> typeToken, boolean withFullData, Consumer<PersonalisedContact<T>> consumer) {
+        return supplyAsync(() -> resource.processEachPersonalizedContact(clazz, jsonDeserializer, typeToken, withFullData, consumer));
+    }
+
+    public CompletableFuture<Result<List<SuppressedContact>>> listUnsubscribed(Date since) {
+        return supplyAsync(() -> resource.listUnsubscribed(since));
+    }
+
+    public CompletableFuture<Result<List<SuppressedContact>>> listUnsubscribed(Date since, int limit) {
+        return supplyAsync(() -> resource.listUnsubscribed(since, limit));
+    }
+
+    public CompletableFuture<Result<List<SuppressedContact>>> listSuppressed(Date since) {
+        return supplyAsync(() -> resource.listSuppressed(since));
+    }
+
+    public CompletableFuture<Result<List<SuppressedContact>>> listSuppressed(Date since, int limit) {
+        return supplyAsync(() -> resource.listSuppressed(since, limit));
+    }
+
+    public CompletableFuture<Result<List<SuppressedContact>>> listSuppressed(Date since, int limit, boolean roundToDate) {
+        return supplyAsync(() -> resource.listSuppressed(since, limit, roundToDate));
+    }
+
+    public CompletableFuture<Void> processSuppressed(Date since, boolean roundToDate, Consumer<List<SuppressedContact>> consumer) {
+        return runAsync(() -> resource.processSuppressed(since, roundToDate, consumer));
+    }
+
+    public CompletableFuture<Void> processSuppressed(Date since, boolean roundToDate, int perStep, Consumer<List<SuppressedContact>> consumer) {
+        return runAsync(() -> resource.processSuppressed(since, roundToDate, perStep, consumer));
+    }
+
+    public CompletableFuture<Result<Long>> processSuppressed(Date since, boolean roundToDate, ProcessOptions options, Consumer<List<SuppressedContact>> consumer) {
+        return supplyAsync(() -> resource.processSuppressed(since, roundToDate, options, consumer));
+    }
+
+    public CompletableFuture<Result<Long>> processCreated(Date createdSince, boolean withFullData, boolean roundToDate, ProcessOptions options, Consumer<List<Contact>> consumer) {
+        return supplyAsync(() -> resource.processCreated(createdSince, withFullData, roundToDate, options, consumer));
+    }
+
+    public CompletableFuture<Result<Long>> processUnsubscribed(Date since, ProcessOptions options, Consumer<List<SuppressedContact>> consumer) {
+        return supplyAsync(() -> resource.processUnsubscribed(since, options, consumer));
+    }
+
+    public CompletableFuture<Result<Long>> processEachSuppressed(Date since, boolean roundToDate, Consumer<SuppressedContact> consumer) {
+        return supplyAsync(() -> resource.processEachSuppressed(since, roundToDate, consumer));
+    }
+
+    public CompletableFuture<Result<List<AddressBook>>> listAddressBooks(Long contactId) {
+        return supplyAsync(() -> resource.listAddressBooks(contactId));
+    }
+
+    public CompletableFuture<Result<List<AddressBook>>> listAddressBooks(Long contactId, int limit) {
+        return supplyAsync(() -> resource.listAddressBooks(contactId, limit));
+    }
+
+    public CompletableFuture<Result<Contact>> create(Contact newContact) {
+        return supplyAsync(() -> resource.create(newContact));
+    }
+
+    public CompletableFuture<Result<Contact>> update(Contact updatedContact) {
+        return supplyAsync(() -> resource.update(updatedContact));
+    }
+
+    public CompletableFuture<Result> delete(Long contactId) {
+        return supplyAsync(() -> resource.delete(contactId));
+    }
+
+    public <T> CompletableFuture<Result<JobStatus>> importList(List<T> customContactObjects) {
+        return supplyAsync(() -> resource.importList(customContactObjects));
+    }
+
+    public <T> CompletableFuture<Result<JobStatus>> importList(List<T> customContactObjects, List<String> csvHeaders) {
+        return supplyAsync(() -> resource.importList(customContactObjects, csvHeaders));
+    }
+
+    public <T> CompletableFuture<Result<JobStatus>> importList(List<T> customContactObjects, List<String> csvHeaders, List<String> fieldNames) {
+        return supplyAsync(() -> resource.importList(customContactObjects, csvHeaders, fieldNames));
+    }
+
+    public <T> CompletableFuture<Result<JobStatus>> importList(List<T> customContactObjects, List<String> csvHeaders, List<String> fieldNames, CellProcessor[] cellProcessors) {
+        return supplyAsync(() -> resource.importList(customContactObjects, csvHeaders, fieldNames, cellProcessors));
+    }
+
+    public <T> CompletableFuture<Result<JobStatus>> importList(Iterator<T> customContactObjects) {
+        return supplyAsync(() -> resource.importList(customContactObjects));
+    }
+
+    public <T> CompletableFuture<Result<JobStatus>> importList(Iterator<T> customContactObjects, List<String> csvHeaders, List<String> fieldNames, CellProcessor[] cellProcessors) {
+        return supplyAsync(() -> resource.importList(customContactObjects, csvHeaders, fieldNames, cellProcessors));
+    }
+
+    public <T> CompletableFuture<Result<JobStatus>> importList(Stream<T> customContactObjects) {
+        return supplyAsync(() -> resource.importList(customContactObjects));
+    }
+
+    public <T> CompletableFuture<Result<JobStatus>> importList(Stream<T> customContactObjects, List<String> csvHeaders, List<String> fieldNames, CellProcessor[] cellProcessors) {
+        return supplyAsync(() -> resource.importList(customContactObjects, csvHeaders, fieldNames, cellProcessors));
+    }
+
+    public CompletableFuture<Result<JobStatus>> importList(InputStream csv) {
+        return supplyAsync(() -> resource.importList(csv));
+    }
+
+    public CompletableFuture<Result<JobStatus>> importList(Path csvFile) {
+        return supplyAsync(() -> resource.importList(csvFile));
+    }
+
+    public CompletableFuture<Result<JobStatus>> getImportStatus(String guid) {
+        return supplyAsync(() -> resource.getImportStatus(guid));
+    }
+
+    public CompletableFuture<Result<JobReport>> getImportReport(String guid) {
+        return supplyAsync(() -> resource.getImportReport(guid));
+    }
+}
@@ -0,0 +1,30 @@
+package com.lindar.dotmailer.api.async;
+
+import com.lindar.dotmailer.api.DataFieldResource;
+import com.lindar.dotmailer.vo.api.DataField;
+import com.lindar.wellrested.vo.Result;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non blocking version of {@link DataFieldResource}. Every call runs the blocking method on the async executor of its client config
+ */
+public class AsyncDataFieldResource extends AbstractAsyncResource<DataFieldResource> {
+
+    public AsyncDataFieldResource(DataFieldResource resource) {
+        super(resource);
+    }
+
+    public CompletableFuture<Result<List<DataField>>> list() {
+        return supplyAsync(() -> resource.list());
+    }
+
+    public CompletableFuture<Result<DataField>> create(DataField dataField) {
+        return supplyAsync(() -> resource.create(dataField));
+    }
+
+    public CompletableFuture<Result> delete(String name) {
+        return supplyAsync(() -> resource.delete(name));
+    }
+}
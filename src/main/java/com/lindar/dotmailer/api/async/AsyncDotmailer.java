@@ -0,0 +1,56 @@
+package com.lindar.dotmailer.api.async;
+
+import com.lindar.dotmailer.api.AccountInfoResource;
+import com.lindar.dotmailer.api.AddressBookResource;
+import com.lindar.dotmailer.api.CampaignResource;
+import com.lindar.dotmailer.api.ContactResource;
+import com.lindar.dotmailer.api.DataFieldResource;
+import com.lindar.dotmailer.api.TransactionalResource;
+
+/**
+ * Non blocking counterpart of the Dotmailer facade. Each resource mirrors its blocking version but returns
+ * CompletableFutures. Streams aren't mirrored since they're already lazy.
+ */
+public class AsyncDotmailer {
+
+    private final AsyncAccountInfoResource accountInfoResource;
+    private final AsyncAddressBookResource addressBookResource;
+    private final AsyncContactResource contactResource;
+    private final AsyncCampaignResource campaignResource;
+    private final AsyncDataFieldResource dataFieldResource;
+    private final AsyncTransactionalResource transactionalResource;
+
+    public AsyncDotmailer(AccountInfoResource accountInfoResource, AddressBookResource addressBookResource, ContactResource contactResource,
+                         CampaignResource campaignResource, DataFieldResource dataFieldResource, TransactionalResource transactionalResource) {
+        this.accountInfoResource = new AsyncAccountInfoResource(accountInfoResource);
+        this.addressBookResource = new AsyncAddressBookResource(addressBookResource);
+        this.contactResource = new AsyncContactResource(contactResource);
+        this.campaignResource = new AsyncCampaignResource(campaignResource);
+        this.dataFieldResource = new AsyncDataFieldResource(dataFieldResource);
+        this.transactionalResource = new AsyncTransactionalResource(transactionalResource);
+    }
+
+    public AsyncAccountInfoResource accountInfo() {
+        return accountInfoResource;
+    }
+
+    public AsyncAddressBookResource addressBook() {
+        return addressBookResource;
+    }
+
+    public AsyncContactResource contact() {
+        return contactResource;
+    }
+
+    public AsyncCampaignResource campaign() {
+        return campaignResource;
+    }
+
+    public AsyncDataFieldResource dataField() {
+        return dataFieldResource;
+    }
+
+    public AsyncTransactionalResource transactional() {
+        return transactionalResource;
+    }
+}
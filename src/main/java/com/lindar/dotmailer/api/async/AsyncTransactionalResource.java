@@ -0,0 +1,54 @@
+package com.lindar.dotmailer.api.async;
+
+import com.lindar.dotmailer.api.TransactionalResource;
+import com.lindar.dotmailer.vo.api.AggregatedBy;
+import com.lindar.dotmailer.vo.api.TransactionalEmailStatistics;
+import com.lindar.wellrested.vo.Result;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non blocking version of {@link TransactionalResource}. Every call runs the blocking method on the async executor of its client config
+ */
+public class AsyncTransactionalResource extends AbstractAsyncResource<TransactionalResource> {
+
+    public AsyncTransactionalResource(TransactionalResource resource) {
+        super(resource);
+    }
+
+    public CompletableFuture<Result<Void>> send(List<String> toAddresses, int campaignId, Map<String, String> personalisation) {
+        return supplyAsync(() -> resource.send(toAddresses, campaignId, personalisation));
+    }
+
+    public CompletableFuture<Result<Void>> send(List<String> toAddresses, int campaignId) {
+        return supplyAsync(() -> resource.send(toAddresses, campaignId));
+    }
+
+    public CompletableFuture<Result<Void>> send(String email, int campaignId, Map<String, String> personalisation) {
+        return supplyAsync(() -> resource.send(email, campaignId, personalisation));
+    }
+
+    public CompletableFuture<Result<Void>> send(String email, int campaignId) {
+        return supplyAsync(() -> resource.send(email, campaignId));
+    }
+
+    public CompletableFuture<Result<TransactionalEmailStatistics>> statistics(LocalDate startDate, LocalDate endDate, AggregatedBy aggregatedBy) {
+        return supplyAsync(() -> resource.statistics(startDate, endDate, aggregatedBy));
+    }
+
+    public CompletableFuture<Result<TransactionalEmailStatistics>> statistics(LocalDateTime startDate, LocalDateTime endDate, AggregatedBy aggregatedBy) {
+        return supplyAsync(() -> resource.statistics(startDate, endDate, aggregatedBy));
+    }
+
+    public CompletableFuture<Result<TransactionalEmailStatistics>> statistics(LocalDate startDate, AggregatedBy aggregatedBy) {
+        return supplyAsync(() -> resource.statistics(startDate, aggregatedBy));
+    }
+
+    public CompletableFuture<Result<TransactionalEmailStatistics>> statistics(LocalDateTime startDate, AggregatedBy aggregatedBy) {
+        return supplyAsync(() -> resource.statistics(startDate, aggregatedBy));
+    }
+}
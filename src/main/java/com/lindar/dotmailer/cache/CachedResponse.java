@@ -0,0 +1,37 @@
+package com.lindar.dotmailer.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A successful response body with the validators needed to revalidate it once it has expired
+ */
+@Getter
+@AllArgsConstructor
+@ToString(exclude = "body")
+public class CachedResponse {
+
+    private final String body;
+    private final String etag;
+    private final String lastModified;
+    private final long expiresAtMillis;
+
+    public boolean isExpired() {
+        return System.currentTimeMillis() >= expiresAtMillis;
+    }
+
+    /**
+     * @return whether the API sent an ETag or Last-Modified header, i.e. whether a conditional request can be made
+     */
+    public boolean isRevalidatable() {
+        return etag != null || lastModified != null;
+    }
+
+    /**
+     * @return the same response, valid for another <b>ttlMillis</b>. Used when the API answered 304 Not Modified.
+     */
+    public CachedResponse renew(long ttlMillis) {
+        return new CachedResponse(body, etag, lastModified, System.currentTimeMillis() + ttlMillis);
+    }
+}
@@ -0,0 +1,78 @@
+package com.lindar.dotmailer.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In memory ResponseCache holding at most <b>maxEntries</b> responses. The least recently used one is evicted when
+ * a new response doesn't fit.
+ */
+public class LruResponseCache implements ResponseCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    private final Map<String, CachedResponse> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public LruResponseCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    public LruResponseCache(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be at least 1");
+        }
+        this.entries = new LinkedHashMap<String, CachedResponse>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public synchronized CachedResponse get(String key) {
+        CachedResponse response = entries.get(key);
+        if (response != null && !response.isExpired()) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return response;
+    }
+
+    @Override
+    public synchronized void put(String key, CachedResponse response) {
+        entries.put(key, response);
+    }
+
+    @Override
+    public synchronized void invalidate(String key) {
+        entries.remove(key);
+    }
+
+    @Override
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return how many lookups found a response that hadn't expired yet
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return how many lookups found no response or an expired one
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+}
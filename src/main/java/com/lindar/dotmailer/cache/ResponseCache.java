@@ -0,0 +1,20 @@
+package com.lindar.dotmailer.cache;
+
+/**
+ * Storage behind the response cache of the slow changing GETs (address book, data fields, account info and campaign
+ * info). LruResponseCache keeps the responses in memory; implement this to share them through another store.
+ * Implementations must be thread safe.
+ */
+public interface ResponseCache {
+
+    /**
+     * @return the stored response, expired or not, or null if there is none
+     */
+    CachedResponse get(String key);
+
+    void put(String key, CachedResponse response);
+
+    void invalidate(String key);
+
+    void clear();
+}
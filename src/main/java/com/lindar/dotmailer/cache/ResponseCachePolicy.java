@@ -0,0 +1,46 @@
+package com.lindar.dotmailer.cache;
+
+import com.lindar.dotmailer.util.DefaultEndpoints;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How long the responses of each cacheable endpoint are served from the cache before they are fetched (or
+ * revalidated) again. Endpoints without a TTL are never cached.
+ */
+public class ResponseCachePolicy {
+
+    private final Map<DefaultEndpoints, Long> ttlMillis = new EnumMap<>(DefaultEndpoints.class);
+
+    /**
+     * 1 hour for the account info, 10 minutes for data fields and 5 minutes for address books and campaign info
+     */
+    public static ResponseCachePolicy defaults() {
+        return new ResponseCachePolicy()
+                .ttl(DefaultEndpoints.ACCOUNT_INFO, 1, TimeUnit.HOURS)
+                .ttl(DefaultEndpoints.DATA_FIELDS, 10, TimeUnit.MINUTES)
+                .ttl(DefaultEndpoints.ADDRESS_BOOK, 5, TimeUnit.MINUTES)
+                .ttl(DefaultEndpoints.CAMPAIGN_INFO, 5, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Caches the GET responses of an endpoint for the given time, 0 stops caching it
+     */
+    public synchronized ResponseCachePolicy ttl(DefaultEndpoints endpoint, long duration, TimeUnit unit) {
+        if (duration <= 0) {
+            ttlMillis.remove(endpoint);
+        } else {
+            ttlMillis.put(endpoint, unit.toMillis(duration));
+        }
+        return this;
+    }
+
+    /**
+     * @return the TTL of the endpoint or 0 if its responses aren't cached
+     */
+    public synchronized long ttlMillis(DefaultEndpoints endpoint) {
+        return endpoint != null ? ttlMillis.getOrDefault(endpoint, 0L) : 0;
+    }
+}
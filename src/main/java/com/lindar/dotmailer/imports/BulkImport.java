@@ -0,0 +1,299 @@
+package com.lindar.dotmailer.imports;
+
+import com.lindar.dotmailer.api.AddressBookResource;
+import com.lindar.dotmailer.api.ContactResource;
+import com.lindar.dotmailer.vo.api.JobReport;
+import com.lindar.dotmailer.vo.api.JobStatus;
+import com.lindar.wellrested.vo.Result;
+import com.lindar.wellrested.vo.ResultBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.supercsv.cellprocessor.ift.CellProcessor;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Imports a large number of contacts as several smaller import jobs instead of one huge upload, so each job is quicker
+ * to process and a failed one only loses its own rows.
+ * <pre>
+ * Result&lt;BulkImportReport&gt; report = new BulkImport(dotmailer.contact())
+ *         .intoAddressBook(dotmailer.addressBook(), addressBookId)
+ *         .withChunkSize(50000)
+ *         .withConcurrency(4)
+ *         .run(customers.stream().map(CustomerRow::new));
+ * </pre>
+ * The rows are read into chunks of <b>chunkSize</b>, and up to <b>concurrency</b> chunks are uploaded at the same time
+ * on the client's async executor. Reading waits while that many uploads are running, so no more than concurrency + 1
+ * chunks are held in memory. Each job is handed to an ImportJobTracker as soon as its chunk is uploaded, so the first
+ * jobs are checked while the next chunks are still uploading, and their reports are added up once all have finished
+ * (or <b>jobTimeout</b> passed). Pass a shared tracker with withTracker to check the jobs of several imports together.
+ * <p>
+ * Chunks are separate jobs: if one fails the others are still imported, and the Result is failed with the report of
+ * what got imported. Rows of different chunks that share an email are imported by whichever job runs last.
+ */
+@Slf4j
+public class BulkImport {
+
+    private static final String ERROR_IMPORT = "ERROR_IMPORT";
+    private static final int DEFAULT_CHUNK_SIZE = 50000;
+    private static final int DEFAULT_CONCURRENCY = 2;
+
+    private final ContactResource contactResource;
+    private AddressBookResource addressBookResource;
+    private Long addressBookId;
+
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private int concurrency = DEFAULT_CONCURRENCY;
+    private long pollIntervalMillis = TimeUnit.SECONDS.toMillis(2);
+    private long jobTimeoutMillis = TimeUnit.HOURS.toMillis(1);
+    private List<String> csvHeaders;
+    private List<String> fieldNames;
+    private CellProcessor[] cellProcessors;
+    private ImportJobTracker tracker;
+
+    /**
+     * Imports into the account (All Contacts). The import jobs are checked through this resource either way.
+     */
+    public BulkImport(ContactResource contactResource) {
+        this.contactResource = contactResource;
+    }
+
+    public BulkImport intoAddressBook(AddressBookResource addressBookResource, Long addressBookId) {
+        this.addressBookResource = addressBookResource;
+        this.addressBookId = addressBookId;
+        return this;
+    }
+
+    public BulkImport withChunkSize(int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be at least 1");
+        }
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * How many chunks are uploaded at the same time, 2 by default
+     */
+    public BulkImport withConcurrency(int concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency must be at least 1");
+        }
+        this.concurrency = concurrency;
+        return this;
+    }
+
+    /**
+     * How long after its upload a job is first checked, 2 seconds by default. Later checks back off from there.
+     * Ignored when a tracker is passed.
+     */
+    public BulkImport withPollInterval(long pollInterval, TimeUnit unit) {
+        this.pollIntervalMillis = unit.toMillis(pollInterval);
+        return this;
+    }
+
+    /**
+     * How long to wait for each import job after its upload, an hour by default. Jobs still running by then are
+     * reported as failed chunks, their guids are in the report. Ignored when a tracker is passed.
+     */
+    public BulkImport withJobTimeout(long jobTimeout, TimeUnit unit) {
+        this.jobTimeoutMillis = unit.toMillis(jobTimeout);
+        return this;
+    }
+
+    /**
+     * Waits for the jobs with this tracker instead of one created (and closed) for each run. The tracker isn't closed.
+     */
+    public BulkImport withTracker(ImportJobTracker tracker) {
+        this.tracker = tracker;
+        return this;
+    }
+
+    /**
+     * See ContactResource.importList(List, List, List, CellProcessor[])
+     */
+    public BulkImport withCsv(List<String> csvHeaders, List<String> fieldNames, CellProcessor[] cellProcessors) {
+        this.csvHeaders = csvHeaders;
+        this.fieldNames = fieldNames;
+        this.cellProcessors = cellProcessors;
+        return this;
+    }
+
+    public <T> Result<BulkImportReport> run(List<T> customContactObjects) {
+        return run(customContactObjects.iterator());
+    }
+
+    /**
+     * The stream is consumed but not closed
+     */
+    public <T> Result<BulkImportReport> run(Stream<T> customContactObjects) {
+        return run(customContactObjects.iterator());
+    }
+
+    /**
+     * Uploads the chunks, then waits for their import jobs
+     *
+     * @return the added up reports; failed if any chunk failed, still with the report of the others
+     */
+    public <T> Result<BulkImportReport> run(Iterator<T> customContactObjects) {
+        ImportJobTracker jobTracker = tracker != null ? tracker : new ImportJobTracker(contactResource)
+                .withInitialDelay(Math.max(1, pollIntervalMillis), TimeUnit.MILLISECONDS)
+                .withTimeout(jobTimeoutMillis, TimeUnit.MILLISECONDS);
+        try {
+            return run(customContactObjects, jobTracker);
+        } finally {
+            if (jobTracker != tracker) {
+                jobTracker.close();
+            }
+        }
+    }
+
+    private <T> Result<BulkImportReport> run(Iterator<T> customContactObjects, ImportJobTracker jobTracker) {
+        BulkImportReport report = new BulkImportReport();
+        List<Job> jobs = new ArrayList<>();
+        Executor executor = contactResource.getClientConfig().asyncExecutor();
+        Semaphore uploads = new Semaphore(concurrency);
+
+        try {
+            long firstRow = 0;
+            while (customContactObjects.hasNext()) {
+                uploads.acquire();
+                List<T> chunk = new ArrayList<>(Math.min(chunkSize, 1 << 16));
+                while (chunk.size() < chunkSize && customContactObjects.hasNext()) {
+                    chunk.add(customContactObjects.next());
+                }
+                int number = report.getChunks() + 1;
+                String description = String.format("chunk %d (rows %d-%d)", number, firstRow, firstRow + chunk.size() - 1);
+                firstRow += chunk.size();
+                synchronized (report) {
+                    report.setChunks(number);
+                    report.setRows(firstRow);
+                }
+                try {
+                    executor.execute(() -> {
+                        try {
+                            upload(chunk, number, description, report, jobs, jobTracker);
+                        } catch (RuntimeException ex) {
+                            log.error("Bulk import {} could not be uploaded: {}", description, ex);
+                            synchronized (report) {
+                                failed(report, description, "upload failed: " + ex);
+                            }
+                        } finally {
+                            uploads.release();
+                        }
+                    });
+                } catch (RejectedExecutionException ex) {
+                    uploads.release();
+                    synchronized (report) {
+                        failed(report, description, "upload could not be started: " + ex);
+                    }
+                }
+            }
+            // wait for the uploads still running
+            uploads.acquire(concurrency);
+            uploads.release(concurrency);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return ResultBuilder.<BulkImportReport>failed().msg("Interrupted while importing").code(ERROR_IMPORT).data(report).build();
+        }
+        if (!awaitJobs(jobs, report)) {
+            return ResultBuilder.<BulkImportReport>failed().msg("Interrupted while importing").code(ERROR_IMPORT).data(report).build();
+        }
+
+        if (report.getFailedChunks() > 0) {
+            String msg = report.getFailedChunks() + " of " + report.getChunks() + " chunks failed, first: " + report.getFailures().get(0);
+            return ResultBuilder.<BulkImportReport>failed().msg(msg).code(ERROR_IMPORT).data(report).build();
+        }
+        log.info("Bulk import of {} rows in {} jobs finished: {} new, {} updated", report.getRows(), report.getChunks(),
+                 report.getTotal().getNewContacts(), report.getTotal().getUpdatedContacts());
+        return ResultBuilder.successful(report);
+    }
+
+    private <T> void upload(List<T> chunk, int number, String description, BulkImportReport report, List<Job> jobs,
+                            ImportJobTracker jobTracker) {
+        Result<JobStatus> started = addressBookId != null
+                ? addressBookResource.importList(addressBookId, chunk, csvHeaders, fieldNames, cellProcessors)
+                : contactResource.importList(chunk, csvHeaders, fieldNames, cellProcessors);
+        synchronized (report) {
+            if (started.isSuccessAndNotNull() && started.getData().getId() != null) {
+                log.debug("Bulk import {} uploaded as job {}", description, started.getData().getId());
+                String guid = started.getData().getId();
+                jobs.add(new Job(number, description, guid, jobTracker.track(guid)));
+            } else {
+                failed(report, description, "upload failed: " + started.getMsg());
+            }
+        }
+    }
+
+    /**
+     * Waits for every job's report, in chunk order
+     *
+     * @return false if interrupted
+     */
+    private boolean awaitJobs(List<Job> jobs, BulkImportReport report) {
+        // upload order isn't chunk order when uploads run concurrently
+        jobs.sort(Comparator.comparingInt(job -> job.number));
+        jobs.forEach(job -> report.getJobIds().add(job.guid));
+        for (Job job : jobs) {
+            try {
+                add(report.getTotal(), job.report.get());
+            } catch (ExecutionException ex) {
+                failed(report, job.description, ex.getCause().getMessage());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void failed(BulkImportReport report, String description, String reason) {
+        log.warn("Bulk import {}: {}", description, reason);
+        report.setFailedChunks(report.getFailedChunks() + 1);
+        report.getFailures().add(description + ": " + reason);
+    }
+
+    static void add(JobReport total, JobReport report) {
+        total.setNewContacts(sum(total.getNewContacts(), report.getNewContacts()));
+        total.setUpdatedContacts(sum(total.getUpdatedContacts(), report.getUpdatedContacts()));
+        total.setGloballySuppressed(sum(total.getGloballySuppressed(), report.getGloballySuppressed()));
+        total.setInvalidEntries(sum(total.getInvalidEntries(), report.getInvalidEntries()));
+        total.setDuplicateEmails(sum(total.getDuplicateEmails(), report.getDuplicateEmails()));
+        total.setBlocked(sum(total.getBlocked(), report.getBlocked()));
+        total.setUnsubscribed(sum(total.getUnsubscribed(), report.getUnsubscribed()));
+        total.setHardBounced(sum(total.getHardBounced(), report.getHardBounced()));
+        total.setSoftBounced(sum(total.getSoftBounced(), report.getSoftBounced()));
+        total.setIspComplaints(sum(total.getIspComplaints(), report.getIspComplaints()));
+        total.setMailBlocked(sum(total.getMailBlocked(), report.getMailBlocked()));
+        total.setDomainSuppressed(sum(total.getDomainSuppressed(), report.getDomainSuppressed()));
+        total.setPendingDoubleOptin(sum(total.getPendingDoubleOptin(), report.getPendingDoubleOptin()));
+        total.setFailures(sum(total.getFailures(), report.getFailures()));
+    }
+
+    private static Integer sum(Integer total, Integer value) {
+        return (total != null ? total : 0) + (value != null ? value : 0);
+    }
+
+    private static class Job {
+        private final int number;
+        private final String description;
+        private final String guid;
+        private final CompletableFuture<JobReport> report;
+
+        Job(int number, String description, String guid, CompletableFuture<JobReport> report) {
+            this.number = number;
+            this.description = description;
+            this.guid = guid;
+            this.report = report;
+        }
+    }
+}
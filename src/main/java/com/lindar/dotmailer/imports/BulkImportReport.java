@@ -0,0 +1,33 @@
+package com.lindar.dotmailer.imports;
+
+import com.lindar.dotmailer.vo.api.JobReport;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * What a BulkImport did: the reports of all its import jobs added up
+ */
+@Data
+public class BulkImportReport {
+
+    /**
+     * The sum of the reports of the jobs that finished
+     */
+    private JobReport total = new JobReport();
+
+    /**
+     * The guids of every job started, in the order of their chunks
+     */
+    private List<String> jobIds = new ArrayList<>();
+
+    private long rows;
+    private int chunks;
+    private int failedChunks;
+
+    /**
+     * Why each failed chunk failed, e.g. "chunk 3 (rows 100000-149999): ..."
+     */
+    private List<String> failures = new ArrayList<>();
+}
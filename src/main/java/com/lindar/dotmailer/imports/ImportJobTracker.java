@@ -0,0 +1,263 @@
+package com.lindar.dotmailer.imports;
+
+import com.lindar.dotmailer.api.AbstractResource;
+import com.lindar.dotmailer.api.ContactResource;
+import com.lindar.dotmailer.util.DotmailerApiException;
+import com.lindar.dotmailer.util.NamedThreadFactory;
+import com.lindar.dotmailer.vo.api.JobReport;
+import com.lindar.dotmailer.vo.api.JobStatus;
+import com.lindar.wellrested.vo.Result;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Waits for import jobs without blocking a thread per job: one scheduler thread checks every job still running and
+ * completes its future with the import report once it's finished.
+ * <pre>
+ * ImportJobTracker tracker = new ImportJobTracker(dotmailer.contact());
+ * tracker.track(dotmailer.contact().importList(contacts))
+ *        .thenAccept(report -&gt; log.info("{} new contacts", report.getNewContacts()));
+ * </pre>
+ * Each job is first checked <b>initialDelay</b> after it's tracked, then less and less often (the delay grows by
+ * <b>backoffMultiplier</b> up to <b>maxDelay</b>), since a job that's been running for a while is likely to keep
+ * running. The API takes one guid per status request, so the jobs due at the same time are checked one after the
+ * other in the same pass: the number of requests depends on the number of jobs and their delays, never on the number
+ * of threads waiting.
+ * <p>
+ * A future completes exceptionally with a DotmailerApiException when the job ends with any status but Finished, when
+ * its report can't be read, when its status can't be read because of anything but a transient failure (see
+ * AbstractResource.isTransientFailure, e.g. an unknown guid) or when it's still running after <b>timeout</b>. Transient failures are retried on the job's
+ * next check. Futures are completed on the tracker's thread: use the async variants of CompletableFuture for
+ * slow follow-up work.
+ */
+@Slf4j
+public class ImportJobTracker implements AutoCloseable {
+
+    private static final String ERROR_IMPORT = "ERROR_IMPORT";
+    private static final String THREAD_PREFIX = "dotmailer-import-tracker";
+    private static final String JOB_NOT_FINISHED = "NotFinished";
+    private static final String JOB_FINISHED = "Finished";
+
+    private final ContactResource contactResource;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory(THREAD_PREFIX));
+    private final Map<String, TrackedJob> jobs = new ConcurrentHashMap<>();
+
+    private long initialDelayMillis = TimeUnit.SECONDS.toMillis(1);
+    private long maxDelayMillis = TimeUnit.SECONDS.toMillis(30);
+    private double backoffMultiplier = 1.5;
+    private long timeoutMillis = TimeUnit.HOURS.toMillis(2);
+
+    private ScheduledFuture<?> nextPass;
+    private long nextPassAt = Long.MAX_VALUE;
+    private volatile boolean closed;
+
+    private final LongAdder statusChecks = new LongAdder();
+
+    public ImportJobTracker(ContactResource contactResource) {
+        this.contactResource = contactResource;
+    }
+
+    public ImportJobTracker withInitialDelay(long initialDelay, TimeUnit unit) {
+        if (unit.toMillis(initialDelay) < 1) {
+            throw new IllegalArgumentException("initialDelay must be at least a millisecond");
+        }
+        this.initialDelayMillis = unit.toMillis(initialDelay);
+        return this;
+    }
+
+    public ImportJobTracker withMaxDelay(long maxDelay, TimeUnit unit) {
+        this.maxDelayMillis = unit.toMillis(maxDelay);
+        return this;
+    }
+
+    public ImportJobTracker withBackoffMultiplier(double backoffMultiplier) {
+        if (backoffMultiplier < 1) {
+            throw new IllegalArgumentException("backoffMultiplier can't be less than 1");
+        }
+        this.backoffMultiplier = backoffMultiplier;
+        return this;
+    }
+
+    /**
+     * How long a job may run before its future fails, 2 hours by default
+     */
+    public ImportJobTracker withTimeout(long timeout, TimeUnit unit) {
+        this.timeoutMillis = unit.toMillis(timeout);
+        return this;
+    }
+
+    /**
+     * @param started what importList returned; if it failed, so does the future
+     */
+    public CompletableFuture<JobReport> track(Result<JobStatus> started) {
+        if (!started.isSuccessAndNotNull() || started.getData().getId() == null) {
+            CompletableFuture<JobReport> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new DotmailerApiException(started.getMsg(), started.getCode()));
+            return failed;
+        }
+        return track(started.getData().getId());
+    }
+
+    /**
+     * Tracking the same guid twice returns the same future
+     */
+    public CompletableFuture<JobReport> track(String guid) {
+        if (closed) {
+            throw new IllegalStateException("The tracker has been closed");
+        }
+        long now = System.currentTimeMillis();
+        TrackedJob job = jobs.computeIfAbsent(guid, key -> new TrackedJob(key, now + initialDelayMillis, initialDelayMillis, now + timeoutMillis));
+        scheduleFor(job.nextCheckAt);
+        return job.future;
+    }
+
+    /**
+     * Makes sure a pass runs by <b>at</b>
+     */
+    private synchronized void scheduleFor(long at) {
+        if (closed || at >= nextPassAt) {
+            return;
+        }
+        if (nextPass != null) {
+            nextPass.cancel(false);
+        }
+        nextPassAt = at;
+        nextPass = scheduler.schedule(this::pass, Math.max(0, at - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+    }
+
+    private void pass() {
+        synchronized (this) {
+            nextPassAt = Long.MAX_VALUE;
+            nextPass = null;
+        }
+        List<TrackedJob> due = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (TrackedJob job : jobs.values()) {
+            if (job.nextCheckAt <= now) {
+                due.add(job);
+            }
+        }
+        for (TrackedJob job : due) {
+            if (closed) {
+                return;
+            }
+            try {
+                check(job);
+            } catch (RuntimeException ex) {
+                log.error("Import job {} could not be checked: {}", job.guid, ex);
+                complete(job, null, ex);
+            }
+        }
+
+        long earliest = Long.MAX_VALUE;
+        for (TrackedJob job : jobs.values()) {
+            earliest = Math.min(earliest, job.nextCheckAt);
+        }
+        if (earliest != Long.MAX_VALUE) {
+            scheduleFor(earliest);
+        }
+    }
+
+    private void check(TrackedJob job) {
+        statusChecks.increment();
+        Result<JobStatus> status = contactResource.getImportStatus(job.guid);
+        long now = System.currentTimeMillis();
+        if (status.isSuccessAndNotNull() && !JOB_NOT_FINISHED.equalsIgnoreCase(status.getData().getStatus())) {
+            finished(job, status.getData().getStatus());
+            return;
+        }
+        if (!status.isSuccess()) {
+            if (!AbstractResource.isTransientFailure(status)) {
+                complete(job, null, new DotmailerApiException("Status of import job " + job.guid + " could not be read: " + status.getMsg(), status.getCode()));
+                return;
+            }
+            log.warn("Status of import job {} could not be read, checking again later: {}", job.guid, status.getMsg());
+        }
+        if (now >= job.deadline) {
+            complete(job, null, new DotmailerApiException("Import job " + job.guid + " still running after " + timeoutMillis + "ms", ERROR_IMPORT));
+            return;
+        }
+        job.delayMillis = Math.min(maxDelayMillis, (long) (job.delayMillis * backoffMultiplier));
+        job.nextCheckAt = Math.min(job.deadline, now + job.delayMillis);
+    }
+
+    private void finished(TrackedJob job, String status) {
+        if (!JOB_FINISHED.equalsIgnoreCase(status)) {
+            complete(job, null, new DotmailerApiException("Import job " + job.guid + " ended " + status, ERROR_IMPORT));
+            return;
+        }
+        Result<JobReport> report = contactResource.getImportReport(job.guid);
+        if (!report.isSuccessAndNotNull()) {
+            complete(job, null, new DotmailerApiException("Report of import job " + job.guid + " could not be read: " + report.getMsg(), report.getCode()));
+            return;
+        }
+        complete(job, report.getData(), null);
+    }
+
+    private void complete(TrackedJob job, JobReport report, Throwable failure) {
+        jobs.remove(job.guid);
+        try {
+            if (failure != null) {
+                job.future.completeExceptionally(failure);
+            } else {
+                job.future.complete(report);
+            }
+        } catch (RuntimeException ex) {
+            // thrown by a dependent stage run on this thread, it mustn't stop the other jobs
+            log.error("Completing import job {} failed: {}", job.guid, ex);
+        }
+    }
+
+    /**
+     * @return how many jobs are still being waited for
+     */
+    public int getTracked() {
+        return jobs.size();
+    }
+
+    /**
+     * @return how many status requests have been sent
+     */
+    public long getStatusChecks() {
+        return statusChecks.sum();
+    }
+
+    /**
+     * Stops checking. The futures of the jobs still running are cancelled, the jobs themselves carry on.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        scheduler.shutdownNow();
+        for (TrackedJob job : jobs.values()) {
+            job.future.cancel(false);
+        }
+        jobs.clear();
+    }
+
+    private static class TrackedJob {
+        private final String guid;
+        private final CompletableFuture<JobReport> future = new CompletableFuture<>();
+        private final long deadline;
+        // only touched by the scheduler thread once tracked
+        private volatile long nextCheckAt;
+        private long delayMillis;
+
+        TrackedJob(String guid, long nextCheckAt, long delayMillis, long deadline) {
+            this.guid = guid;
+            this.nextCheckAt = nextCheckAt;
+            this.delayMillis = delayMillis;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,406 @@
+package com.lindar.dotmailer.index;
+
+import com.lindar.dotmailer.api.ContactResource;
+import com.lindar.dotmailer.sync.ContactSync;
+import com.lindar.dotmailer.sync.FileWatermarkStore;
+import com.lindar.dotmailer.sync.SyncReport;
+import com.lindar.dotmailer.sync.SyncStream;
+import com.lindar.dotmailer.sync.Watermark;
+import com.lindar.dotmailer.sync.WatermarkStore;
+import com.lindar.dotmailer.util.FileUtil;
+import com.lindar.dotmailer.vo.api.Contact;
+import com.lindar.dotmailer.vo.api.SuppressedContact;
+import com.lindar.wellrested.vo.Result;
+import com.lindar.wellrested.vo.ResultBuilder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Local email to contact id (and status) lookup, so resolving a contact doesn't cost a call to the API.
+ * <pre>
+ * ContactIndex index = ContactIndex.build(dotmailer.contact(), Paths.get("/var/lib/app/contacts.idx")).getData();
+ * IndexedContact contact = index.get("someone@example.com");
+ * ...
+ * index.refresh(dotmailer.contact()); // e.g. every few minutes
+ * </pre>
+ * The index is an open addressing hash table (linear probing) in a memory-mapped file: a 64 byte header, then 16
+ * byte slots holding a 64 bit fingerprint of the normalised (trimmed, lower cased) email and the contact id with the
+ * status packed in its top byte. Emails themselves aren't stored, so two addresses with the same fingerprint would
+ * get mixed up; with a 64 bit hash that's around one chance in ten million for a million contacts. The table grows
+ * to twice its size when it's 70% full, so it takes about 25 bytes per contact.
+ * <p>
+ * refresh() applies the contacts created and suppressed since the previous build or refresh, using ContactSync with
+ * its watermarks kept next to the file. Contacts deleted from the account stay in the index. Lookups take no lock
+ * while nothing is being written. One that overlaps a write waits for it to finish and reads again, which while the
+ * table grows means waiting for the whole file to be rehashed.
+ */
+@Slf4j
+public class ContactIndex implements AutoCloseable {
+
+    private static final String ERROR_INDEX = "ERROR_INDEX";
+    private static final int MAGIC = 0x444D4958;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int SIZE_OFFSET = 12;
+    private static final int SLOT_BYTES = 16;
+    private static final int MIN_CAPACITY = 1 << 12;
+    private static final int MAX_CAPACITY = 1 << 26;
+    private static final double MAX_LOAD = 0.7;
+    private static final long ID_MASK = (1L << 56) - 1;
+    private static final int STATUS_SHIFT = 56;
+    private static final String SYNC_ID = "index";
+
+    // the statuses dotmailer documents, stored as their position. 0 is a status the index doesn't know.
+    private static final String[] STATUSES = {null, "Subscribed", "Unsubscribed", "SoftBounced", "HardBounced", "IspComplained",
+            "MailBlocked", "PendingOptIn", "DirectComplaint", "Deleted", "SharedSuppression", "Suppressed", "NotAllowed",
+            "DomainSuppression", "NoMxRecord"};
+
+    private final Path path;
+    private final StampedLock lock = new StampedLock();
+    private final AtomicReference<Table> table = new AtomicReference<>();
+    private FileChannel channel;
+
+    private ContactIndex(Path path, FileChannel channel, Table table) {
+        this.path = path;
+        this.channel = channel;
+        this.table.set(table);
+    }
+
+    /**
+     * Streams the whole contact list of the account into a new index file, replacing <b>path</b> once it's complete
+     *
+     * @return the open index
+     */
+    public static Result<ContactIndex> build(ContactResource contactResource, Path path) {
+        Date started = new Date();
+        Path buildFile = path.resolveSibling(path.getFileName() + ".building");
+        try {
+            ContactIndex index = create(buildFile, MIN_CAPACITY);
+            Result<Long> contacts;
+            try {
+                contacts = contactResource.processEachContact(false, index::put);
+            } finally {
+                index.close();
+            }
+            if (!contacts.isSuccess()) {
+                Files.deleteIfExists(buildFile);
+                return ResultBuilder.of(contacts).buildAndIgnoreData();
+            }
+            FileUtil.atomicMove(buildFile, path);
+
+            // the next refresh picks up from the moment the listing started
+            WatermarkStore watermarkStore = watermarkStoreOf(path);
+            watermarkStore.save(SYNC_ID, SyncStream.CREATED, new Watermark(started, Collections.emptySet()));
+            watermarkStore.save(SYNC_ID, SyncStream.SUPPRESSED, new Watermark(started, Collections.emptySet()));
+            log.info("Contact index {} built with {} contacts", path, contacts.getData());
+            return ResultBuilder.successful(open(path));
+        } catch (IOException | RuntimeException ex) {
+            // e.g. an UncheckedIOException from put when the table is full
+            log.error("Contact index {} could not be built: {}", path, ex);
+            deleteBuildFile(buildFile);
+            return ResultBuilder.failed().msg(ex.getMessage()).code(ERROR_INDEX).buildAndIgnoreData();
+        }
+    }
+
+    private static void deleteBuildFile(Path buildFile) {
+        try {
+            Files.deleteIfExists(buildFile);
+        } catch (IOException ex) {
+            log.warn("Contact index build file {} could not be deleted: {}", buildFile, ex);
+        }
+    }
+
+    /**
+     * Maps an index file built earlier
+     */
+    public static ContactIndex open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            if (channel.size() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException(path + " isn't a contact index");
+            }
+            int capacity = buffer.getInt(8);
+            if (channel.size() != HEADER_BYTES + (long) capacity * SLOT_BYTES) {
+                throw new IOException("Contact index " + path + " is truncated");
+            }
+            return new ContactIndex(path, channel, new Table(buffer, capacity, buffer.getInt(SIZE_OFFSET)));
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    private static ContactIndex create(Path path, int capacity) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                                               StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new ContactIndex(path, channel, Table.create(channel, capacity));
+    }
+
+    /**
+     * @return the contact or null if the email isn't in the index
+     */
+    public IndexedContact get(String email) {
+        long value = find(fingerprint(normalise(email)));
+        return value == 0 ? null : new IndexedContact(value & ID_MASK, STATUSES[(int) (value >>> STATUS_SHIFT)]);
+    }
+
+    /**
+     * @return the contact id or null if the email isn't in the index
+     */
+    public Long getId(String email) {
+        long value = find(fingerprint(normalise(email)));
+        return value == 0 ? null : value & ID_MASK;
+    }
+
+    public int size() {
+        return table.get().size;
+    }
+
+    /**
+     * Applies the contacts created and suppressed since the index was built or last refreshed. Lookups carry on
+     * while it runs.
+     */
+    public Result<List<SyncReport>> refresh(ContactResource contactResource) {
+        try {
+            Result<List<SyncReport>> reports = new ContactSync(contactResource, SYNC_ID)
+                    .withWatermarkStore(watermarkStoreOf(path))
+                    .withFullData(false)
+                    .onCreated(contacts -> contacts.forEach(this::put))
+                    .onSuppressed(suppressed -> suppressed.forEach(this::put))
+                    .run();
+            table.get().buffer.force();
+            return reports;
+        } catch (UncheckedIOException ex) {
+            log.error("Contact index {} could not be refreshed: {}", path, ex);
+            return ResultBuilder.failed().msg(ex.getMessage()).code(ERROR_INDEX).buildAndIgnoreData();
+        }
+    }
+
+    /**
+     * Adds the contact or updates its id and status
+     */
+    public void put(Contact contact) {
+        put(contact.getEmail(), contact.getId(), contact.getStatus());
+    }
+
+    private void put(SuppressedContact suppressed) {
+        Contact contact = suppressed.getSuppressedContact();
+        if (contact != null) {
+            // the reason says more than the status, which is often just Suppressed
+            put(contact.getEmail(), contact.getId(), statusCode(suppressed.getReason()) != 0 ? suppressed.getReason() : contact.getStatus());
+        }
+    }
+
+    private void put(String email, String id, String status) {
+        if (email == null || id == null) {
+            return;
+        }
+        long contactId;
+        try {
+            contactId = Long.parseLong(id.trim());
+        } catch (NumberFormatException ex) {
+            log.debug("Contact {} has a non numeric id {}, not indexed", email, id);
+            return;
+        }
+        long value = ((long) statusCode(status) << STATUS_SHIFT) | (contactId & ID_MASK);
+        long fingerprint = fingerprint(normalise(email));
+
+        long stamp = lock.writeLock();
+        try {
+            Table current = table.get();
+            if (current.size + 1 > current.capacity * MAX_LOAD) {
+                current = grow(current);
+            }
+            current.put(fingerprint, value);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private long find(long fingerprint) {
+        long stamp = lock.tryOptimisticRead();
+        long value = table.get().find(fingerprint);
+        if (lock.validate(stamp)) {
+            return value;
+        }
+        stamp = lock.readLock();
+        try {
+            return table.get().find(fingerprint);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Rehashes everything into a file twice the size and moves it over the current one. Called with the write lock.
+     */
+    private Table grow(Table current) throws IOException {
+        if (current.capacity >= MAX_CAPACITY) {
+            throw new IOException("Contact index " + path + " is full");
+        }
+        Path resized = path.resolveSibling(path.getFileName() + ".resizing");
+        FileChannel resizedChannel = FileChannel.open(resized, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                                                      StandardOpenOption.READ, StandardOpenOption.WRITE);
+        Table bigger;
+        try {
+            bigger = Table.create(resizedChannel, current.capacity * 2);
+            for (int slot = 0; slot < current.capacity; slot++) {
+                long fingerprint = current.fingerprintAt(slot);
+                if (fingerprint != 0) {
+                    bigger.put(fingerprint, current.valueAt(slot));
+                }
+            }
+            bigger.buffer.force();
+            FileUtil.atomicMove(resized, path);
+        } catch (IOException | RuntimeException ex) {
+            resizedChannel.close();
+            Files.deleteIfExists(resized);
+            throw ex;
+        }
+        channel.close();
+        channel = resizedChannel;
+        table.set(bigger);
+        return bigger;
+    }
+
+    @Override
+    public void close() throws IOException {
+        long stamp = lock.writeLock();
+        try {
+            if (channel.isOpen()) {
+                table.get().buffer.force();
+                channel.close();
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    static String normalise(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * FNV-1a followed by the murmur3 finaliser, as the low bits pick the slot and plain FNV clusters on similar
+     * addresses. Never 0, which marks an empty slot.
+     */
+    static long fingerprint(String normalisedEmail) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < normalisedEmail.length(); i++) {
+            hash ^= normalisedEmail.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash == 0 ? 1 : hash;
+    }
+
+    private static int statusCode(String status) {
+        if (status != null) {
+            for (int i = 1; i < STATUSES.length; i++) {
+                if (STATUSES[i].equalsIgnoreCase(status)) {
+                    return i;
+                }
+            }
+        }
+        return 0;
+    }
+
+    private static WatermarkStore watermarkStoreOf(Path path) {
+        return new FileWatermarkStore(path.resolveSibling(path.getFileName() + ".watermarks"));
+    }
+
+    /**
+     * A mapped file and its capacity, swapped as one when the index grows
+     */
+    private static class Table {
+        private final MappedByteBuffer buffer;
+        private final int capacity;
+        private int size;
+
+        Table(MappedByteBuffer buffer, int capacity, int size) {
+            this.buffer = buffer;
+            this.capacity = capacity;
+            this.size = size;
+        }
+
+        static Table create(FileChannel channel, int capacity) throws IOException {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) capacity * SLOT_BYTES);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, capacity);
+            buffer.putInt(SIZE_OFFSET, 0);
+            return new Table(buffer, capacity, 0);
+        }
+
+        /**
+         * @return the slot value or 0 if the fingerprint isn't there
+         */
+        long find(long fingerprint) {
+            int mask = capacity - 1;
+            int slot = (int) fingerprint & mask;
+            for (int probes = 0; probes < capacity; probes++) {
+                long stored = fingerprintAt(slot);
+                if (stored == fingerprint) {
+                    return valueAt(slot);
+                }
+                if (stored == 0) {
+                    return 0;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return 0;
+        }
+
+        void put(long fingerprint, long value) {
+            int mask = capacity - 1;
+            int slot = (int) fingerprint & mask;
+            while (true) {
+                long stored = fingerprintAt(slot);
+                if (stored == fingerprint) {
+                    buffer.putLong(offsetOf(slot) + 8, value);
+                    return;
+                }
+                if (stored == 0) {
+                    // value first, a reader that sees the fingerprint then finds the value with it
+                    buffer.putLong(offsetOf(slot) + 8, value);
+                    buffer.putLong(offsetOf(slot), fingerprint);
+                    buffer.putInt(SIZE_OFFSET, ++size);
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        long fingerprintAt(int slot) {
+            return buffer.getLong(offsetOf(slot));
+        }
+
+        long valueAt(int slot) {
+            return buffer.getLong(offsetOf(slot) + 8);
+        }
+
+        private static int offsetOf(int slot) {
+            return HEADER_BYTES + slot * SLOT_BYTES;
+        }
+    }
+}
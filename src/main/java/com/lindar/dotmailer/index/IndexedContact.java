@@ -0,0 +1,19 @@
+package com.lindar.dotmailer.index;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * What ContactIndex knows about an email address
+ */
+@Data
+@AllArgsConstructor
+public class IndexedContact {
+
+    private long id;
+
+    /**
+     * Subscribed, Unsubscribed, HardBounced etc. or null if the API returned a status the index doesn't know
+     */
+    private String status;
+}
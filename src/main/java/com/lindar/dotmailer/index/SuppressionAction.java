@@ -0,0 +1,19 @@
+package com.lindar.dotmailer.index;
+
+/**
+ * What TransactionalResource.send does with the recipients a SuppressionFilter reports as suppressed
+ */
+public enum SuppressionAction {
+
+    /**
+     * Leaves them out of the request, listing them in the message of the Result. When no recipient is left nothing is
+     * sent and the send fails with ERROR_CONTACT_SUPPRESSED. About as many legitimate recipients as the false positive
+     * rate of the filter are left out too, and resubscribed contacts until the filter is built again.
+     */
+    DROP,
+
+    /**
+     * Sends as usual and only counts and logs them, to see what DROP would filter before turning it on. The default.
+     */
+    FLAG
+}
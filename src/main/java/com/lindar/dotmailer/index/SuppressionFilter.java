@@ -0,0 +1,208 @@
+package com.lindar.dotmailer.index;
+
+import com.lindar.dotmailer.api.ContactResource;
+import com.lindar.dotmailer.process.ProcessOptions;
+import com.lindar.dotmailer.vo.api.Contact;
+import com.lindar.dotmailer.vo.api.SuppressedContact;
+import com.lindar.wellrested.vo.Result;
+import com.lindar.wellrested.vo.ResultBuilder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In memory Bloom filter of the suppressed email addresses of the account, consulted by TransactionalResource.send
+ * (see Dotmailer.withSuppressionFilter) to avoid spending calls on recipients dotmailer won't email anyway.
+ * <pre>
+ * SuppressionFilter filter = SuppressionFilter.build(dotmailer.contact(), 200000, 0.001).getData();
+ * dotmailer.withSuppressionFilter(filter, SuppressionAction.DROP);
+ * ...
+ * filter.refresh(dotmailer.contact()); // e.g. every few minutes
+ * </pre>
+ * A Bloom filter never misses a suppressed address it has been told about, but can report an address that isn't
+ * suppressed as suppressed with the false positive probability it was sized for (as long as no more addresses than
+ * expected are added). With 0.1% a million addresses take about 1.8MB. Addresses can't be removed, so contacts that
+ * are resubscribed keep being filtered until the filter is built again.
+ * <p>
+ * refresh() adds the contacts suppressed since the previous build or refresh, with an overlap of a few minutes.
+ * Lookups and refreshes can run at the same time.
+ */
+@Slf4j
+public class SuppressionFilter {
+
+    private static final long REFRESH_OVERLAP_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private final long expectedInsertions;
+
+    private final LongAdder insertions = new LongAdder();
+    private final LongAdder checkedRecipients = new LongAdder();
+    private final LongAdder filteredRecipients = new LongAdder();
+    private final LongAdder skippedSends = new LongAdder();
+    private volatile Date lastRefresh;
+    private volatile boolean overfilledLogged;
+
+    /**
+     * @param expectedInsertions   how many suppressed addresses the filter should hold, leave room for growth
+     * @param falsePositiveRate    the share of addresses that aren't suppressed but would be reported as such, e.g. 0.001
+     */
+    public SuppressionFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("expectedInsertions must be positive and falsePositiveRate between 0 and 1");
+        }
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, (optimalBits + 63) / 64);
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+        this.expectedInsertions = expectedInsertions;
+    }
+
+    /**
+     * Adds every contact suppressed in the account, for any reason
+     */
+    public static Result<SuppressionFilter> build(ContactResource contactResource, long expectedInsertions, double falsePositiveRate) {
+        SuppressionFilter filter = new SuppressionFilter(expectedInsertions, falsePositiveRate);
+        Result<Long> added = filter.addSuppressedSince(contactResource, new Date(0));
+        if (!added.isSuccess()) {
+            return ResultBuilder.of(added).buildAndIgnoreData();
+        }
+        log.info("Suppression filter built with {} addresses", added.getData());
+        return ResultBuilder.successful(filter);
+    }
+
+    /**
+     * Adds the contacts suppressed since the filter was built or last refreshed
+     *
+     * @return the number of suppressed contacts listed
+     */
+    public Result<Long> refresh(ContactResource contactResource) {
+        Date since = lastRefresh != null ? new Date(lastRefresh.getTime() - REFRESH_OVERLAP_MILLIS) : new Date(0);
+        return addSuppressedSince(contactResource, since);
+    }
+
+    private Result<Long> addSuppressedSince(ContactResource contactResource, Date since) {
+        Date started = new Date();
+        Result<Long> listed = contactResource.processSuppressed(since, false, ProcessOptions.defaults(), this::addAll);
+        if (listed.isSuccess()) {
+            lastRefresh = started;
+        }
+        return listed;
+    }
+
+    private void addAll(List<SuppressedContact> suppressed) {
+        for (SuppressedContact suppressedContact : suppressed) {
+            Contact contact = suppressedContact.getSuppressedContact();
+            if (contact != null && contact.getEmail() != null) {
+                add(contact.getEmail());
+            }
+        }
+    }
+
+    public void add(String email) {
+        long hash = ContactIndex.fingerprint(ContactIndex.normalise(email));
+        // Kirsch-Mitzenmacher: the k bit positions are derived from the two halves of one 64 bit hash
+        int first = (int) hash;
+        int second = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(first + (long) i * second, bitCount);
+            setBit(bit);
+        }
+        insertions.increment();
+        if (!overfilledLogged && insertions.sum() > expectedInsertions) {
+            overfilledLogged = true;
+            log.warn("Suppression filter holds more than the {} addresses it was sized for, its false positive rate is going up", expectedInsertions);
+        }
+    }
+
+    /**
+     * @return false if the address is definitely not suppressed, true if it probably is
+     */
+    public boolean mightBeSuppressed(String email) {
+        long hash = ContactIndex.fingerprint(ContactIndex.normalise(email));
+        int first = (int) hash;
+        int second = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(first + (long) i * second, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks the recipients of a send and counts the ones found
+     *
+     * @return the recipients not suppressed for DROP, all of them for FLAG
+     */
+    public List<String> filter(List<String> toAddresses, SuppressionAction action) {
+        List<String> allowed = new ArrayList<>(toAddresses.size());
+        for (String address : toAddresses) {
+            checkedRecipients.increment();
+            if (address != null && mightBeSuppressed(address)) {
+                filteredRecipients.increment();
+                log.debug("{} is suppressed, {}", address, action == SuppressionAction.DROP ? "not sending to it" : "sending anyway");
+                if (action == SuppressionAction.DROP) {
+                    continue;
+                }
+            }
+            allowed.add(address);
+        }
+        if (allowed.isEmpty() && !toAddresses.isEmpty()) {
+            skippedSends.increment();
+        }
+        return allowed;
+    }
+
+    private void setBit(long bit) {
+        int word = (int) (bit >>> 6);
+        long mask = 1L << bit;
+        long current;
+        do {
+            current = bits.get(word);
+            if ((current & mask) != 0) {
+                return;
+            }
+        } while (!bits.compareAndSet(word, current, current | mask));
+    }
+
+    public long getInsertions() {
+        return insertions.sum();
+    }
+
+    /**
+     * @return how many recipients have been checked by sends
+     */
+    public long getCheckedRecipients() {
+        return checkedRecipients.sum();
+    }
+
+    /**
+     * @return how many recipients were reported as suppressed, dropped or flagged
+     */
+    public long getFilteredRecipients() {
+        return filteredRecipients.sum();
+    }
+
+    /**
+     * @return how many sends weren't made at all because all their recipients were dropped
+     */
+    public long getSkippedSends() {
+        return skippedSends.sum();
+    }
+
+    /**
+     * @return the size of the bit array in bytes
+     */
+    public long getSizeInBytes() {
+        return bitCount / 8;
+    }
+}
@@ -0,0 +1,129 @@
+package com.lindar.dotmailer.metrics;
+
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Everything measured for a single endpoint since the registry was created or reset
+ */
+public class EndpointMetrics {
+
+    @Getter
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final Map<Integer, LongAdder> statusCounts = new ConcurrentHashMap<>();
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+    private final Compression requestCompression = new Compression();
+    private final Compression responseCompression = new Compression();
+    private final LongAdder listCalls = new LongAdder();
+    private final LongAdder pages = new LongAdder();
+    private final LongAdder records = new LongAdder();
+
+    void recordRequest(int statusCode, long latencyNanos, long sent, long received) {
+        latency.record(latencyNanos);
+        statusCounts.computeIfAbsent(statusCode, code -> new LongAdder()).increment();
+        bytesSent.add(sent);
+        bytesReceived.add(received);
+    }
+
+    void recordCompression(boolean request, long compressedBytes, long uncompressedBytes) {
+        (request ? requestCompression : responseCompression).record(compressedBytes, uncompressedBytes);
+    }
+
+    void recordList(int listPages, long listRecords) {
+        listCalls.increment();
+        pages.add(listPages);
+        records.add(listRecords);
+    }
+
+    public long getRequests() {
+        return latency.getCount();
+    }
+
+    /**
+     * @return the number of responses per status code, 0 standing for requests that got no response
+     */
+    public Map<Integer, Long> getStatusCounts() {
+        Map<Integer, Long> snapshot = new TreeMap<>();
+        statusCounts.forEach((code, counter) -> snapshot.put(code, counter.sum()));
+        return snapshot;
+    }
+
+    public long getBytesSent() {
+        return bytesSent.sum();
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    public long getCompressedRequests() {
+        return requestCompression.bodies.sum();
+    }
+
+    /**
+     * @return uncompressed / compressed size of all the gzipped request bodies, 0 if none was compressed
+     */
+    public double getRequestCompressionRatio() {
+        return requestCompression.ratio();
+    }
+
+    public long getCompressedResponses() {
+        return responseCompression.bodies.sum();
+    }
+
+    /**
+     * @return decompressed / wire size of all the compressed response bodies, 0 if none was compressed
+     */
+    public double getResponseCompressionRatio() {
+        return responseCompression.ratio();
+    }
+
+    public long getListCalls() {
+        return listCalls.sum();
+    }
+
+    public long getPages() {
+        return pages.sum();
+    }
+
+    public long getRecords() {
+        return records.sum();
+    }
+
+    public double getPagesPerListCall() {
+        long calls = listCalls.sum();
+        return calls == 0 ? 0 : pages.sum() / (double) calls;
+    }
+
+    @Override
+    public String toString() {
+        return "requests=" + getRequests() + ", statusCounts=" + getStatusCounts()
+                + String.format(", meanMs=%.1f, p50Ms=%.0f, p99Ms=%.0f, maxMs=%.1f", latency.getMeanMillis(), latency.percentileMillis(50),
+                                latency.percentileMillis(99), latency.getMaxMillis())
+                + ", bytesSent=" + getBytesSent() + ", bytesReceived=" + getBytesReceived()
+                + String.format(", requestCompression=%.2f, responseCompression=%.2f", getRequestCompressionRatio(), getResponseCompressionRatio())
+                + ", listCalls=" + getListCalls() + ", pages=" + getPages() + ", records=" + getRecords();
+    }
+
+    private static class Compression {
+        private final LongAdder bodies = new LongAdder();
+        private final LongAdder compressedBytes = new LongAdder();
+        private final LongAdder uncompressedBytes = new LongAdder();
+
+        void record(long compressed, long uncompressed) {
+            bodies.increment();
+            compressedBytes.add(compressed);
+            uncompressedBytes.add(uncompressed);
+        }
+
+        double ratio() {
+            long compressed = compressedBytes.sum();
+            return compressed == 0 ? 0 : uncompressedBytes.sum() / (double) compressed;
+        }
+    }
+}
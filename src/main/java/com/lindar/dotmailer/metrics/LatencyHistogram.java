@@ -0,0 +1,78 @@
+package com.lindar.dotmailer.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock free histogram of latencies using fixed millisecond buckets. Percentiles are approximated by the upper bound of
+ * the bucket they fall in, which is precise enough to tell a 50ms call from a 2s one.
+ */
+public class LatencyHistogram {
+
+    private static final long[] BUCKET_BOUNDS_MILLIS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 30000, 60000, Long.MAX_VALUE};
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS_MILLIS.length);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(long latencyNanos) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(latencyNanos);
+        int bucket = 0;
+        while (millis > BUCKET_BOUNDS_MILLIS[bucket]) {
+            bucket++;
+        }
+        buckets.incrementAndGet(bucket);
+        count.increment();
+        totalNanos.add(latencyNanos);
+        maxNanos.accumulateAndGet(latencyNanos, Math::max);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getMeanMillis() {
+        long recorded = count.sum();
+        return recorded == 0 ? 0 : totalNanos.sum() / (double) recorded / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public double getMaxMillis() {
+        return maxNanos.get() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * @param percentile between 0 and 100, e.g. 99 for the p99
+     * @return the upper bound in milliseconds of the bucket the percentile falls in, or the max if it's in the last one
+     */
+    public double percentileMillis(double percentile) {
+        long recorded = count.sum();
+        if (recorded == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile / 100 * recorded);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_BOUNDS_MILLIS.length - 1; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return BUCKET_BOUNDS_MILLIS[i];
+            }
+        }
+        return getMaxMillis();
+    }
+
+    /**
+     * @return how many latencies fell in each bucket, keyed by the bucket's upper bound in milliseconds
+     */
+    public Map<Long, Long> getBuckets() {
+        Map<Long, Long> snapshot = new LinkedHashMap<>();
+        for (int i = 0; i < BUCKET_BOUNDS_MILLIS.length; i++) {
+            snapshot.put(BUCKET_BOUNDS_MILLIS[i], buckets.get(i));
+        }
+        return snapshot;
+    }
+}
@@ -0,0 +1,51 @@
+package com.lindar.dotmailer.metrics;
+
+import com.lindar.dotmailer.transport.HttpMethod;
+import com.lindar.dotmailer.util.DefaultEndpoints;
+
+/**
+ * Receives the measurements taken by the resources. Implement it to forward them to your own metrics library or use
+ * MetricsRegistry to keep them in memory. Listeners are called on the threads making the requests, so they must be
+ * thread safe and cheap.
+ */
+public interface MetricsListener {
+
+    MetricsListener NONE = new MetricsListener() {
+    };
+
+    /**
+     * Called once per HTTP exchange (retries and throttled attempts included) after its response has been read
+     *
+     * @param endpoint      the endpoint the request was built from, null for paths not in DefaultEndpoints
+     * @param method
+     * @param statusCode    the response status or 0 if no response was received
+     * @param latencyNanos  from sending the request until the response body was read
+     * @param bytesSent     the size of the request body on the wire, 0 when unknown
+     * @param bytesReceived how many bytes of the response body were read off the wire
+     */
+    default void onRequest(DefaultEndpoints endpoint, HttpMethod method, int statusCode, long latencyNanos, long bytesSent, long bytesReceived) {
+    }
+
+    /**
+     * Called for every compressed body, once it's been read (responses) or sent (requests)
+     *
+     * @param endpoint          the endpoint the request was built from, null for paths not in DefaultEndpoints
+     * @param method
+     * @param request           true for a request body gzipped by the client, false for a response body it decompressed
+     * @param compressedBytes   the size on the wire
+     * @param uncompressedBytes the size once decompressed
+     */
+    default void onCompressedBody(DefaultEndpoints endpoint, HttpMethod method, boolean request, long compressedBytes, long uncompressedBytes) {
+    }
+
+    /**
+     * Called when a list call walking several pages (list, stream, processFullList etc.) is done, including when it
+     * stopped early because of a failure
+     *
+     * @param endpoint the list endpoint
+     * @param pages    how many pages were fetched
+     * @param records  how many records were processed
+     */
+    default void onListCompleted(DefaultEndpoints endpoint, int pages, long records) {
+    }
+}
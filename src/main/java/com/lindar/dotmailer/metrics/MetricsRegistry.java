@@ -0,0 +1,64 @@
+package com.lindar.dotmailer.metrics;
+
+import com.lindar.dotmailer.transport.HttpMethod;
+import com.lindar.dotmailer.util.DefaultEndpoints;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In memory MetricsListener keeping per endpoint latency histograms, status counts, bytes, compression ratios, pages
+ * and records.
+ * Requests to paths that don't belong to any DefaultEndpoints aren't recorded.
+ */
+public class MetricsRegistry implements MetricsListener {
+
+    private final Map<DefaultEndpoints, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+
+    @Override
+    public void onRequest(DefaultEndpoints endpoint, HttpMethod method, int statusCode, long latencyNanos, long bytesSent, long bytesReceived) {
+        if (endpoint != null) {
+            metricsFor(endpoint).recordRequest(statusCode, latencyNanos, bytesSent, bytesReceived);
+        }
+    }
+
+    @Override
+    public void onCompressedBody(DefaultEndpoints endpoint, HttpMethod method, boolean request, long compressedBytes, long uncompressedBytes) {
+        if (endpoint != null) {
+            metricsFor(endpoint).recordCompression(request, compressedBytes, uncompressedBytes);
+        }
+    }
+
+    @Override
+    public void onListCompleted(DefaultEndpoints endpoint, int pages, long records) {
+        if (endpoint != null) {
+            metricsFor(endpoint).recordList(pages, records);
+        }
+    }
+
+    private EndpointMetrics metricsFor(DefaultEndpoints endpoint) {
+        return endpoints.computeIfAbsent(endpoint, key -> new EndpointMetrics());
+    }
+
+    /**
+     * @return the metrics of an endpoint or null if it hasn't been called yet
+     */
+    public EndpointMetrics get(DefaultEndpoints endpoint) {
+        return endpoints.get(endpoint);
+    }
+
+    /**
+     * @return the metrics of all the endpoints called so far, in declaration order
+     */
+    public Map<DefaultEndpoints, EndpointMetrics> getEndpointMetrics() {
+        Map<DefaultEndpoints, EndpointMetrics> snapshot = new EnumMap<>(DefaultEndpoints.class);
+        snapshot.putAll(endpoints);
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    public void reset() {
+        endpoints.clear();
+    }
+}
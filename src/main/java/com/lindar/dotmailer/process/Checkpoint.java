@@ -0,0 +1,25 @@
+package com.lindar.dotmailer.process;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * Where a chunked list walk got to: everything before <b>skip</b> has been handed to the process function and the
+ * function has returned
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Checkpoint {
+
+    /**
+     * The list being walked, so that a checkpoint is never resumed against a different list
+     */
+    private String resourcePath;
+    private int skip;
+    private int chunks;
+    private Date updatedAt;
+}
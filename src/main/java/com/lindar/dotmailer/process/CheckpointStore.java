@@ -0,0 +1,22 @@
+package com.lindar.dotmailer.process;
+
+import java.io.IOException;
+
+/**
+ * Keeps the checkpoints of resumable list walks. FileCheckpointStore is the default; implement this to keep them in a
+ * database or any other store that survives the process.
+ */
+public interface CheckpointStore {
+
+    /**
+     * @return the last saved checkpoint or null if there is none
+     */
+    Checkpoint load(String checkpointId) throws IOException;
+
+    void save(String checkpointId, Checkpoint checkpoint) throws IOException;
+
+    /**
+     * Called once the walk has completed
+     */
+    void delete(String checkpointId) throws IOException;
+}
@@ -0,0 +1,77 @@
+package com.lindar.dotmailer.process;
+
+import com.lindar.dotmailer.util.FileUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Date;
+import java.util.Properties;
+
+/**
+ * Keeps every checkpoint in its own properties file, saved with FileUtil.atomicReplace
+ */
+public class FileCheckpointStore implements CheckpointStore {
+
+    private static final String EXTENSION = ".checkpoint";
+    private static final String RESOURCE_PATH = "resourcePath";
+    private static final String SKIP = "skip";
+    private static final String CHUNKS = "chunks";
+    private static final String UPDATED_AT = "updatedAt";
+
+    private final Path directory;
+
+    /**
+     * Uses ~/.dotmailer/checkpoints
+     */
+    public FileCheckpointStore() {
+        this(Paths.get(System.getProperty("user.home"), ".dotmailer", "checkpoints"));
+    }
+
+    public FileCheckpointStore(Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public Checkpoint load(String checkpointId) throws IOException {
+        Path file = fileOf(checkpointId);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        }
+        try {
+            return new Checkpoint(properties.getProperty(RESOURCE_PATH), Integer.parseInt(properties.getProperty(SKIP)),
+                                  Integer.parseInt(properties.getProperty(CHUNKS, "0")), new Date(Long.parseLong(properties.getProperty(UPDATED_AT, "0"))));
+        } catch (NumberFormatException ex) {
+            throw new IOException("Corrupt checkpoint file " + file, ex);
+        }
+    }
+
+    @Override
+    public void save(String checkpointId, Checkpoint checkpoint) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty(RESOURCE_PATH, checkpoint.getResourcePath());
+        properties.setProperty(SKIP, String.valueOf(checkpoint.getSkip()));
+        properties.setProperty(CHUNKS, String.valueOf(checkpoint.getChunks()));
+        properties.setProperty(UPDATED_AT, String.valueOf(checkpoint.getUpdatedAt() != null ? checkpoint.getUpdatedAt().getTime() : System.currentTimeMillis()));
+
+        FileUtil.atomicReplace(fileOf(checkpointId), out -> properties.store(out, "dotmailer checkpoint " + checkpointId));
+    }
+
+    @Override
+    public void delete(String checkpointId) throws IOException {
+        Files.deleteIfExists(fileOf(checkpointId));
+    }
+
+    /**
+     * Ids are turned into safe file names, e.g. "contacts/full sync" is kept in contacts_full_sync.checkpoint
+     */
+    private Path fileOf(String checkpointId) {
+        return directory.resolve(checkpointId.replaceAll("[^A-Za-z0-9._-]", "_") + EXTENSION);
+    }
+}
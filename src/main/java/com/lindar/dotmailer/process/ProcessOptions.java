@@ -0,0 +1,115 @@
+package com.lindar.dotmailer.process;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Options of the chunked list processing methods (processFullList etc.)
+ * <pre>
+ * dotmailer.contact().processFullList(MyContact.class, deserializer, typeToken, true, 0,
+ *         ProcessOptions.defaults().checkpoint("nightly-contact-sync").resume().pipelined(2), contacts -&gt; ...);
+ * </pre>
+ */
+@Getter
+@ToString
+public class ProcessOptions {
+
+    private String checkpointId;
+    private CheckpointStore checkpointStore;
+    private boolean resume;
+    private int prefetchChunks;
+    private int consumerThreads = 1;
+    private int chunkSize;
+    private long chunkBytes;
+
+    public static ProcessOptions defaults() {
+        return new ProcessOptions();
+    }
+
+    /**
+     * Saves the position reached after every chunk the process function has returned from, under the given id in a
+     * FileCheckpointStore kept in ~/.dotmailer/checkpoints
+     */
+    public ProcessOptions checkpoint(String checkpointId) {
+        return checkpoint(checkpointId, new FileCheckpointStore());
+    }
+
+    /**
+     * Saves the position reached after every chunk the process function has returned from, under the given id in
+     * the given store. The checkpoint is deleted once the whole list has been processed.
+     */
+    public ProcessOptions checkpoint(String checkpointId, CheckpointStore checkpointStore) {
+        this.checkpointId = checkpointId;
+        this.checkpointStore = checkpointStore;
+        return this;
+    }
+
+    /**
+     * Continues after the last checkpointed chunk instead of starting from the beginning. The chunk that was being
+     * processed when the previous run stopped is processed again, so the process function has to tolerate seeing
+     * the same contacts twice. Paging is positional, so contacts added to or removed from the list in the meantime
+     * can shift what the remaining chunks contain.
+     */
+    public ProcessOptions resume() {
+        this.resume = true;
+        return this;
+    }
+
+    /**
+     * Downloads the next chunks while the process function runs on a separate thread, instead of alternating the
+     * two. Up to <b>prefetchChunks</b> downloaded chunks wait for the function; when they're all waiting the download
+     * pauses until it catches up.
+     */
+    public ProcessOptions pipelined(int prefetchChunks) {
+        return pipelined(prefetchChunks, 1);
+    }
+
+    /**
+     * Same as pipelined(prefetchChunks), with the chunks handed to <b>consumerThreads</b> threads. With more than one
+     * thread the process function gets chunks out of order and concurrently, so it has to be thread safe. Every
+     * chunk waiting or being processed is held in memory: plan the heap for prefetchChunks + consumerThreads + 1
+     * chunks.
+     */
+    public ProcessOptions pipelined(int prefetchChunks, int consumerThreads) {
+        if (prefetchChunks < 1 || consumerThreads < 1) {
+            throw new IllegalArgumentException("prefetchChunks and consumerThreads must be at least 1");
+        }
+        this.prefetchChunks = prefetchChunks;
+        this.consumerThreads = consumerThreads;
+        return this;
+    }
+
+    /**
+     * Number of records handed to the process function at once, instead of the method's default (50000 contacts for
+     * processFullList). Rounded up to whole pages of the API when it's bigger than a page.
+     */
+    public ProcessOptions chunkSize(int records) {
+        if (records < 1) {
+            throw new IllegalArgumentException("chunkSize must be at least 1");
+        }
+        this.chunkSize = records;
+        return this;
+    }
+
+    /**
+     * Sizes the chunks so that each one takes about <b>maxBytes</b> of heap, estimated from the size of the records'
+     * JSON. The first chunk is a single page, to measure the records; every chunk is at least a page and at most
+     * chunkSize records (the method's default if not set). Every chunk waiting or being processed in pipelined mode
+     * counts against the heap separately.
+     */
+    public ProcessOptions chunkBytes(long maxBytes) {
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("chunkBytes must be at least 1");
+        }
+        this.chunkBytes = maxBytes;
+        return this;
+    }
+
+    public boolean isPipelined() {
+        return prefetchChunks > 0;
+    }
+
+    public boolean isCheckpointed() {
+        return checkpointId != null && checkpointStore != null;
+    }
+}
@@ -0,0 +1,245 @@
+package com.lindar.dotmailer.sync;
+
+import com.lindar.dotmailer.api.ContactResource;
+import com.lindar.dotmailer.process.ProcessOptions;
+import com.lindar.dotmailer.vo.api.Contact;
+import com.lindar.dotmailer.vo.api.SuppressedContact;
+import com.lindar.wellrested.vo.Result;
+import com.lindar.wellrested.vo.ResultBuilder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Keeps a copy of the account up to date by only fetching what changed since the last run: new contacts, suppressed
+ * contacts and unsubscribed contacts, each with its own watermark.
+ * <pre>
+ * ContactSync sync = new ContactSync(dotmailer.contact(), "warehouse")
+ *         .onCreated(contacts -&gt; warehouse.insert(contacts))
+ *         .onSuppressed(suppressed -&gt; warehouse.markSuppressed(suppressed));
+ * Result&lt;List&lt;SyncReport&gt;&gt; reports = sync.run();
+ * </pre>
+ * Every run lists the changes since the previous run started minus an overlap (15 minutes by default), so records
+ * that became visible late or were stamped by a server clock behind ours aren't lost at the boundary. Records of the
+ * overlap that the previous run already delivered are recognised by their key and skipped. Watermarks are instants and
+ * are sent to the API in UTC, so the zone of the JVM running the sync doesn't matter.
+ * <p>
+ * A watermark only moves once its stream has been fully delivered. If a run fails or a consumer throws, the next run
+ * lists the same changes again, so consumers should upsert. Contacts carry no creation date, so the ids of every
+ * contact a run saw are kept for the next one; past <b>maxBoundaryKeys</b> (e.g. the first run over a big account)
+ * none are kept and the contacts created during the overlap are delivered twice.
+ */
+@Slf4j
+public class ContactSync {
+
+    private static final String ERROR_WATERMARK = "ERROR_WATERMARK";
+    private static final String ERROR_CONSUMER = "ERROR_CONSUMER";
+    private static final int DEFAULT_MAX_BOUNDARY_KEYS = 100000;
+
+    private final ContactResource contactResource;
+    private final String syncId;
+
+    private WatermarkStore watermarkStore = new FileWatermarkStore();
+    private long overlapMillis = TimeUnit.MINUTES.toMillis(15);
+    private Date initialWatermark = new Date(0);
+    private boolean withFullData = true;
+    private int maxBoundaryKeys = DEFAULT_MAX_BOUNDARY_KEYS;
+    private int chunkSize;
+
+    private Consumer<List<Contact>> createdConsumer;
+    private Consumer<List<SuppressedContact>> suppressedConsumer;
+    private Consumer<List<SuppressedContact>> unsubscribedConsumer;
+
+    /**
+     * @param syncId names the watermarks, so several independent syncs can run against the same account
+     */
+    public ContactSync(ContactResource contactResource, String syncId) {
+        this.contactResource = contactResource;
+        this.syncId = syncId;
+    }
+
+    public ContactSync withWatermarkStore(WatermarkStore watermarkStore) {
+        this.watermarkStore = watermarkStore;
+        return this;
+    }
+
+    public ContactSync withOverlap(long overlap, TimeUnit unit) {
+        this.overlapMillis = unit.toMillis(overlap);
+        return this;
+    }
+
+    /**
+     * Where the first run of every stream starts. The default takes the whole history.
+     */
+    public ContactSync withInitialWatermark(Date initialWatermark) {
+        this.initialWatermark = initialWatermark;
+        return this;
+    }
+
+    /**
+     * Whether new contacts come with their data fields, true by default
+     */
+    public ContactSync withFullData(boolean withFullData) {
+        this.withFullData = withFullData;
+        return this;
+    }
+
+    public ContactSync withMaxBoundaryKeys(int maxBoundaryKeys) {
+        this.maxBoundaryKeys = maxBoundaryKeys;
+        return this;
+    }
+
+    /**
+     * Number of records handed to the consumers at once, see ProcessOptions.chunkSize
+     */
+    public ContactSync withChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    public ContactSync onCreated(Consumer<List<Contact>> consumer) {
+        this.createdConsumer = consumer;
+        return this;
+    }
+
+    public ContactSync onSuppressed(Consumer<List<SuppressedContact>> consumer) {
+        this.suppressedConsumer = consumer;
+        return this;
+    }
+
+    public ContactSync onUnsubscribed(Consumer<List<SuppressedContact>> consumer) {
+        this.unsubscribedConsumer = consumer;
+        return this;
+    }
+
+    /**
+     * Syncs every stream that has a consumer, one after the other. A failed stream doesn't stop the others.
+     *
+     * @return a report per stream synced; failed with the message of the first failed stream if any failed
+     */
+    public Result<List<SyncReport>> run() {
+        List<SyncReport> reports = new ArrayList<>(SyncStream.values().length);
+        if (createdConsumer != null) {
+            reports.add(sync(SyncStream.CREATED, createdConsumer, Contact::getId, null,
+                             (since, consumer) -> contactResource.processCreated(since, withFullData, false, processOptions(), consumer)));
+        }
+        if (suppressedConsumer != null) {
+            reports.add(sync(SyncStream.SUPPRESSED, suppressedConsumer, ContactSync::keyOf, SuppressedContact::getDateRemoved,
+                             (since, consumer) -> contactResource.processSuppressed(since, false, processOptions(), consumer)));
+        }
+        if (unsubscribedConsumer != null) {
+            reports.add(sync(SyncStream.UNSUBSCRIBED, unsubscribedConsumer, ContactSync::keyOf, SuppressedContact::getDateRemoved,
+                             (since, consumer) -> contactResource.processUnsubscribed(since, processOptions(), consumer)));
+        }
+
+        for (SyncReport report : reports) {
+            if (!report.isSuccess()) {
+                return ResultBuilder.<List<SyncReport>>failed().msg(report.getStream() + ": " + report.getMsg()).data(reports).build();
+            }
+        }
+        return ResultBuilder.successful(reports);
+    }
+
+    /**
+     * @param eventTime when the change happened, null for the streams that don't say
+     */
+    private <T> SyncReport sync(SyncStream stream, Consumer<List<T>> consumer, Function<T, String> key, Function<T, Date> eventTime,
+                                BiFunction<Date, Consumer<List<T>>, Result<Long>> processor) {
+        SyncReport report = new SyncReport();
+        report.setStream(stream);
+
+        Watermark previous;
+        try {
+            previous = watermarkStore.load(syncId, stream);
+        } catch (IOException ex) {
+            return failed(report, ex);
+        }
+        Date since = previous != null ? new Date(previous.getTime().getTime() - overlapMillis) : initialWatermark;
+        Set<String> delivered = previous != null && previous.getBoundaryKeys() != null ? previous.getBoundaryKeys() : Collections.emptySet();
+        report.setSince(since);
+
+        Date runStart = new Date();
+        // what the next run will list again
+        Date nextSince = stream.effectiveSince(new Date(runStart.getTime() - overlapMillis));
+        Set<String> boundaryKeys = new HashSet<>();
+        boolean[] boundaryOverflow = {false};
+
+        Result<Long> result;
+        try {
+            result = processor.apply(since, chunk -> {
+                List<T> fresh = new ArrayList<>(chunk.size());
+                for (T record : chunk) {
+                    String recordKey = key.apply(record);
+                    if (!boundaryOverflow[0] && (eventTime == null || isAtOrAfter(eventTime.apply(record), nextSince))) {
+                        boundaryKeys.add(recordKey);
+                        boundaryOverflow[0] = boundaryKeys.size() > maxBoundaryKeys;
+                    }
+                    if (delivered.contains(recordKey)) {
+                        report.setDuplicatesSkipped(report.getDuplicatesSkipped() + 1);
+                    } else {
+                        fresh.add(record);
+                    }
+                }
+                if (!fresh.isEmpty()) {
+                    consumer.accept(fresh);
+                    report.setDelivered(report.getDelivered() + fresh.size());
+                }
+            });
+        } catch (RuntimeException ex) {
+            // a consumer threw: the watermark stays where it was and the other streams still run
+            log.error("Sync {}: {} stopped after {} records: {}", syncId, stream, report.getDelivered(), ex);
+            report.setMsg(ERROR_CONSUMER + ": " + ex);
+            return report;
+        }
+
+        if (!result.isSuccess()) {
+            report.setMsg(result.getMsg());
+            return report;
+        }
+        if (boundaryOverflow[0]) {
+            log.warn("Sync {}: more than {} {} records at the boundary, the next run may deliver some of them again", syncId, maxBoundaryKeys, stream);
+            boundaryKeys.clear();
+        }
+        try {
+            watermarkStore.save(syncId, stream, new Watermark(runStart, boundaryKeys));
+        } catch (IOException ex) {
+            return failed(report, ex);
+        }
+        report.setWatermark(runStart);
+        report.setSuccess(true);
+        log.info("Sync {}: {} {} records delivered since {}, {} already delivered", syncId, report.getDelivered(), stream, since, report.getDuplicatesSkipped());
+        return report;
+    }
+
+    private ProcessOptions processOptions() {
+        ProcessOptions options = ProcessOptions.defaults();
+        return chunkSize > 0 ? options.chunkSize(chunkSize) : options;
+    }
+
+    private static boolean isAtOrAfter(Date date, Date since) {
+        // no date, keep it to be safe
+        return date == null || !date.before(since);
+    }
+
+    private static String keyOf(SuppressedContact suppressed) {
+        Contact contact = suppressed.getSuppressedContact();
+        String contactKey = contact == null ? "" : contact.getId() != null ? contact.getId() : contact.getEmail();
+        return contactKey + "@" + (suppressed.getDateRemoved() != null ? suppressed.getDateRemoved().getTime() : 0);
+    }
+
+    private SyncReport failed(SyncReport report, IOException ex) {
+        log.error("Sync {}: watermark of {} could not be read or written: {}", syncId, report.getStream(), ex);
+        report.setMsg(ERROR_WATERMARK + ": " + ex.getMessage());
+        return report;
+    }
+}
@@ -0,0 +1,81 @@
+package com.lindar.dotmailer.sync;
+
+import com.lindar.dotmailer.util.FileUtil;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Keeps every watermark in its own file: the time on the first line, then one boundary key per line. Saving a
+ * watermark replaces its file with FileUtil.atomicReplace.
+ */
+public class FileWatermarkStore implements WatermarkStore {
+
+    private static final String EXTENSION = ".watermark";
+
+    private final Path directory;
+
+    /**
+     * Uses ~/.dotmailer/watermarks
+     */
+    public FileWatermarkStore() {
+        this(Paths.get(System.getProperty("user.home"), ".dotmailer", "watermarks"));
+    }
+
+    public FileWatermarkStore(Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public Watermark load(String syncId, SyncStream stream) throws IOException {
+        Path file = fileOf(syncId, stream);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String time = reader.readLine();
+            if (time == null) {
+                throw new IOException("Empty watermark file " + file);
+            }
+            Set<String> boundaryKeys = new HashSet<>();
+            String key;
+            while ((key = reader.readLine()) != null) {
+                if (!key.isEmpty()) {
+                    boundaryKeys.add(key);
+                }
+            }
+            return new Watermark(new Date(Long.parseLong(time.trim())), boundaryKeys);
+        } catch (NumberFormatException ex) {
+            throw new IOException("Corrupt watermark file " + file, ex);
+        }
+    }
+
+    @Override
+    public void save(String syncId, SyncStream stream, Watermark watermark) throws IOException {
+        FileUtil.atomicReplace(fileOf(syncId, stream), out -> {
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writer.write(String.valueOf(watermark.getTime().getTime()));
+            writer.newLine();
+            if (watermark.getBoundaryKeys() != null) {
+                for (String key : watermark.getBoundaryKeys()) {
+                    writer.write(key);
+                    writer.newLine();
+                }
+            }
+            writer.flush();
+        });
+    }
+
+    private Path fileOf(String syncId, SyncStream stream) {
+        return directory.resolve(syncId.replaceAll("[^A-Za-z0-9._-]", "_") + "-" + stream.name().toLowerCase() + EXTENSION);
+    }
+}
@@ -0,0 +1,34 @@
+package com.lindar.dotmailer.sync;
+
+import lombok.Data;
+
+import java.util.Date;
+
+/**
+ * What a ContactSync run did for one stream
+ */
+@Data
+public class SyncReport {
+
+    private SyncStream stream;
+
+    /**
+     * The date the changes were listed from
+     */
+    private Date since;
+
+    /**
+     * The new watermark, or null if the stream failed and will be synced from the same point next time
+     */
+    private Date watermark;
+
+    private long delivered;
+
+    /**
+     * Records listed again because of the overlap that had already been delivered by the previous run
+     */
+    private long duplicatesSkipped;
+
+    private boolean success;
+    private String msg;
+}
@@ -0,0 +1,42 @@
+package com.lindar.dotmailer.sync;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+import java.util.Date;
+
+/**
+ * The account changes ContactSync can follow
+ */
+public enum SyncStream {
+
+    /**
+     * Contacts created since the watermark (contacts/created-since)
+     */
+    CREATED(false),
+
+    /**
+     * Contacts suppressed since the watermark, for any reason (contacts/suppressed-since)
+     */
+    SUPPRESSED(false),
+
+    /**
+     * Contacts who unsubscribed since the watermark (contacts/unsubscribed-since). The API only takes a day here.
+     */
+    UNSUBSCRIBED(true);
+
+    private final boolean dayOnly;
+
+    SyncStream(boolean dayOnly) {
+        this.dayOnly = dayOnly;
+    }
+
+    /**
+     * @return the date the API actually lists from when asked for <b>since</b>: the start of the (UTC) day, or the
+     * second for the streams that take a time
+     */
+    Date effectiveSince(Date since) {
+        DateTime dateTime = new DateTime(since, DateTimeZone.UTC);
+        return dayOnly ? dateTime.withTimeAtStartOfDay().toDate() : dateTime.withMillisOfSecond(0).toDate();
+    }
+}
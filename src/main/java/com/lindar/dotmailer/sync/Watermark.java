@@ -0,0 +1,28 @@
+package com.lindar.dotmailer.sync;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+import java.util.Set;
+
+/**
+ * How far a sync stream got: the next run lists the changes since <b>time</b> minus the overlap
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Watermark {
+
+    /**
+     * When the last successful run started, by the client's clock
+     */
+    private Date time;
+
+    /**
+     * The records the last run saw that the next one will list again because of the overlap, so they aren't
+     * delivered twice
+     */
+    private Set<String> boundaryKeys;
+}
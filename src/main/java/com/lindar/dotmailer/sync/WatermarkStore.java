@@ -0,0 +1,17 @@
+package com.lindar.dotmailer.sync;
+
+import java.io.IOException;
+
+/**
+ * Keeps the watermarks of ContactSync between runs. FileWatermarkStore is the default; implement this to keep them
+ * next to the synced data, e.g. in the same database transaction.
+ */
+public interface WatermarkStore {
+
+    /**
+     * @return the last saved watermark or null if the stream has never been synced
+     */
+    Watermark load(String syncId, SyncStream stream) throws IOException;
+
+    void save(String syncId, SyncStream stream, Watermark watermark) throws IOException;
+}
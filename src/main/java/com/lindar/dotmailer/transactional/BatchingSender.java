@@ -0,0 +1,244 @@
+package com.lindar.dotmailer.transactional;
+
+import com.lindar.dotmailer.api.AbstractResource;
+import com.lindar.dotmailer.api.TransactionalResource;
+import com.lindar.dotmailer.util.NamedThreadFactory;
+import com.lindar.wellrested.vo.Result;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Groups single recipient triggered campaign sends into one request per campaign and personalisation, since the
+ * endpoint takes a list of recipients.
+ * <pre>
+ * BatchingSender sender = new BatchingSender(dotmailer.transactional(), 50, 20, TimeUnit.MILLISECONDS);
+ * sender.send(email, campaignId, personalisation).thenAccept(result -&gt; ...);
+ * </pre>
+ * A batch goes out as soon as it has <b>maxBatchSize</b> recipients or <b>linger</b> after its first recipient was
+ * added, whichever comes first, so a send waits at most the linger time before its request starts. Only sends with
+ * the same campaign id and exactly the same personalisation values share a batch.
+ * <p>
+ * Every recipient's future completes with the Result of its batch's request. When the API rejects a batch for any
+ * reason but a transient one (see AbstractResource.isTransientFailure), e.g. because of one invalid address, its
+ * recipients are sent again one by one so each future gets its own Result. Requests run on the facade's async
+ * executor. Close the sender to send what's
+ * waiting.
+ */
+@Slf4j
+public class BatchingSender implements AutoCloseable {
+
+    private static final String THREAD_PREFIX = "dotmailer-batch-linger";
+    private static final int DEFAULT_MAX_BATCH_SIZE = 50;
+    private static final long DEFAULT_LINGER_MILLIS = 20;
+
+    private final TransactionalResource transactionalResource;
+    private final int maxBatchSize;
+    private final long lingerNanos;
+    private final Executor executor;
+    private final ScheduledExecutorService lingerTimer = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory(THREAD_PREFIX));
+
+    private final Map<BatchKey, Batch> openBatches = new HashMap<>();
+    private boolean closed;
+
+    private final LongAdder requestsSent = new LongAdder();
+    private final LongAdder recipientsSent = new LongAdder();
+
+    /**
+     * Batches of up to 50 recipients, waiting up to 20ms
+     */
+    public BatchingSender(TransactionalResource transactionalResource) {
+        this(transactionalResource, DEFAULT_MAX_BATCH_SIZE, DEFAULT_LINGER_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param maxBatchSize keep it within the number of recipients your account allows per triggered campaign send
+     */
+    public BatchingSender(TransactionalResource transactionalResource, int maxBatchSize, long linger, TimeUnit unit) {
+        if (maxBatchSize < 1 || linger < 0) {
+            throw new IllegalArgumentException("maxBatchSize must be at least 1 and linger can't be negative");
+        }
+        this.transactionalResource = transactionalResource;
+        this.maxBatchSize = maxBatchSize;
+        this.lingerNanos = unit.toNanos(linger);
+        this.executor = transactionalResource.getClientConfig().asyncExecutor();
+    }
+
+    public CompletableFuture<Result<Void>> send(String email, int campaignId) {
+        return send(email, campaignId, null);
+    }
+
+    /**
+     * @return completed with the Result of the request that included this recipient
+     */
+    public CompletableFuture<Result<Void>> send(String email, int campaignId, Map<String, String> personalisation) {
+        BatchKey key = new BatchKey(campaignId, personalisation != null ? new LinkedHashMap<>(personalisation) : Collections.emptyMap());
+        CompletableFuture<Result<Void>> future = new CompletableFuture<>();
+        Batch full = null;
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("The sender has been closed");
+            }
+            Batch batch = openBatches.get(key);
+            if (batch == null) {
+                batch = new Batch(key);
+                openBatches.put(key, batch);
+                if (lingerNanos > 0 && maxBatchSize > 1) {
+                    Batch lingering = batch;
+                    batch.lingerTask = lingerTimer.schedule(() -> flush(lingering), lingerNanos, TimeUnit.NANOSECONDS);
+                }
+            }
+            batch.add(email, future);
+            if (batch.recipients.size() >= maxBatchSize || batch.lingerTask == null) {
+                openBatches.remove(key);
+                full = batch;
+            }
+        }
+        if (full != null) {
+            if (full.lingerTask != null) {
+                full.lingerTask.cancel(false);
+            }
+            dispatch(full);
+        }
+        return future;
+    }
+
+    /**
+     * Sends all the batches waiting now, without waiting for their linger time
+     */
+    public void flush() {
+        List<Batch> batches;
+        synchronized (this) {
+            batches = new ArrayList<>(openBatches.values());
+            openBatches.clear();
+        }
+        for (Batch batch : batches) {
+            if (batch.lingerTask != null) {
+                batch.lingerTask.cancel(false);
+            }
+            dispatch(batch);
+        }
+    }
+
+    private void flush(Batch batch) {
+        synchronized (this) {
+            // it may have filled up and gone out already
+            if (openBatches.get(batch.key) != batch) {
+                return;
+            }
+            openBatches.remove(batch.key);
+        }
+        dispatch(batch);
+    }
+
+    private void dispatch(Batch batch) {
+        executor.execute(() -> {
+            Result<Void> result = send(batch.key, batch.recipients, batch.futures);
+            if (result == null) {
+                return;
+            }
+            if (!result.isSuccess() && batch.recipients.size() > 1 && !AbstractResource.isTransientFailure(result)) {
+                // one bad address fails the whole request, the others would go through on their own
+                log.warn("Triggered campaign {} was rejected for a batch of {} recipients ({}), sending them one by one", batch.key.campaignId,
+                         batch.recipients.size(), result.getCode());
+                for (int i = 0; i < batch.recipients.size(); i++) {
+                    List<String> recipient = Collections.singletonList(batch.recipients.get(i));
+                    List<CompletableFuture<Result<Void>>> future = Collections.singletonList(batch.futures.get(i));
+                    executor.execute(() -> complete(future, send(batch.key, recipient, future)));
+                }
+                return;
+            }
+            complete(batch.futures, result);
+        });
+    }
+
+    /**
+     * @return null if the send threw, the futures have been completed with the exception then
+     */
+    private Result<Void> send(BatchKey key, List<String> recipients, List<CompletableFuture<Result<Void>>> futures) {
+        Result<Void> result;
+        try {
+            result = transactionalResource.send(recipients, key.campaignId, key.personalisation);
+        } catch (RuntimeException ex) {
+            log.error("Triggered campaign {} could not be sent to {} recipients: {}", key.campaignId, recipients.size(), ex);
+            futures.forEach(future -> future.completeExceptionally(ex));
+            return null;
+        }
+        requestsSent.increment();
+        if (result.isSuccess()) {
+            recipientsSent.add(recipients.size());
+        }
+        return result;
+    }
+
+    private static void complete(List<CompletableFuture<Result<Void>>> futures, Result<Void> result) {
+        if (result != null) {
+            futures.forEach(future -> future.complete(result));
+        }
+    }
+
+    /**
+     * Sends what's waiting and stops the linger timer. The requests already started carry on.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        flush();
+        lingerTimer.shutdown();
+    }
+
+    /**
+     * @return how many requests the batches took, including the ones sent again one recipient at a time
+     */
+    public long getRequestsSent() {
+        return requestsSent.sum();
+    }
+
+    /**
+     * @return how many recipients the successful requests were sent to
+     */
+    public long getRecipientsSent() {
+        return recipientsSent.sum();
+    }
+
+    public synchronized int getWaitingRecipients() {
+        return openBatches.values().stream().mapToInt(batch -> batch.recipients.size()).sum();
+    }
+
+    @Data
+    private static class BatchKey {
+        private final int campaignId;
+        private final Map<String, String> personalisation;
+    }
+
+    private static class Batch {
+        private final BatchKey key;
+        private final List<String> recipients = new ArrayList<>();
+        private final List<CompletableFuture<Result<Void>>> futures = new ArrayList<>();
+        private ScheduledFuture<?> lingerTask;
+
+        Batch(BatchKey key) {
+            this.key = key;
+        }
+
+        void add(String email, CompletableFuture<Result<Void>> future) {
+            recipients.add(email);
+            futures.add(future);
+        }
+    }
+}
@@ -0,0 +1,558 @@
+package com.lindar.dotmailer.transactional;
+
+import com.lindar.dotmailer.api.AbstractResource;
+import com.lindar.dotmailer.api.TransactionalResource;
+import com.lindar.dotmailer.util.NamedThreadFactory;
+import com.lindar.dotmailer.util.RetryPolicy;
+import com.lindar.wellrested.vo.Result;
+import com.lindar.wellrested.vo.ResultBuilder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * Takes triggered campaign sends without waiting for dotmailer: every send is appended to a log on disk and background
+ * workers deliver it to the API, retrying while it's slow or down.
+ * <pre>
+ * Outbox outbox = new Outbox(dotmailer.transactional(), Paths.get("/var/lib/app/outbox"))
+ *         .withWorkers(4)
+ *         .onDeadLetter((entry, result) -&gt; log.error("Not sent to {}: {}", entry.getToAddresses(), result.getMsg()));
+ * outbox.start();
+ * outbox.send("someone@example.com", campaignId, personalisation);
+ * </pre>
+ * The log is a directory of segment files. Each record is framed with its length and a CRC32: sends, and a marker
+ * for every send delivered or given up on. Records are only ever appended, and a segment is deleted once it and all
+ * the segments before it hold no send still waiting. start() reads the segments left by the previous run and
+ * delivers again what they hold that wasn't marked done, so nothing is lost when the application stops or crashes.
+ * A torn record at the end of a segment (a crash in the middle of a write) ends that segment.
+ * <p>
+ * Delivery is at least once: a send that reached dotmailer but wasn't marked done before a crash, or one that
+ * failed with a server error after being processed, is sent again. Failures that may go away by themselves (I/O
+ * errors, server errors and 429s, the circuit breaker being open, the API usage limit: see
+ * AbstractResource.isTransientFailure) are retried after the delays of the retry policy, by default up to 30 attempts
+ * with delays of up to 5 minutes, about an hour in all. Any other failure, or running out of attempts, is final: the
+ * send is handed to the dead letter listener and dropped. Retry counts aren't persisted, they start over after a
+ * restart.
+ * <p>
+ * With fsync on (the default) every append is forced to the device before send() returns, which costs a disk flush
+ * per send. Without it sends survive the application crashing but not the machine. Sends waiting for delivery are
+ * also held in memory.
+ */
+@Slf4j
+public class Outbox implements AutoCloseable {
+
+    private static final String ERROR_OUTBOX = "ERROR_OUTBOX";
+    private static final String THREAD_PREFIX = "dotmailer-outbox";
+    private static final String EXTENSION = ".segment";
+    private static final int FRAME_HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 16 * 1024 * 1024;
+    private static final long DEFAULT_MAX_SEGMENT_BYTES = 16L * 1024 * 1024;
+    private static final long CLOSE_TIMEOUT_SECONDS = 30;
+
+    private static final byte SEND = 1;
+    private static final byte DONE = 2;
+
+    private static final int DEFAULT_MAX_ATTEMPTS = 30;
+
+    private final TransactionalResource transactionalResource;
+    private final Path directory;
+
+    private int workers = 2;
+    private RetryPolicy retryPolicy = new RetryPolicy(DEFAULT_MAX_ATTEMPTS, 1000, TimeUnit.MINUTES.toMillis(5));
+    private boolean fsync = true;
+    private long maxSegmentBytes = DEFAULT_MAX_SEGMENT_BYTES;
+    private BiConsumer<OutboxEntry, Result<Void>> deadLetterListener = (entry, result) -> { };
+
+    // segments by id, the last one is being appended to
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private final ConcurrentSkipListMap<Long, Pending> pending = new ConcurrentSkipListMap<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private ScheduledThreadPoolExecutor executor;
+    private long nextSequence = 1;
+    private volatile boolean started;
+    private volatile boolean closed;
+    // set once the segment channels are closed, guarded by this
+    private boolean logClosed;
+
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder deadLettered = new LongAdder();
+
+    public Outbox(TransactionalResource transactionalResource, Path directory) {
+        this.transactionalResource = transactionalResource;
+        this.directory = directory;
+    }
+
+    /**
+     * How many sends are delivered at the same time, 2 by default
+     */
+    public Outbox withWorkers(int workers) {
+        this.workers = workers;
+        return this;
+    }
+
+    public Outbox withRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+        return this;
+    }
+
+    public Outbox withFsync(boolean fsync) {
+        this.fsync = fsync;
+        return this;
+    }
+
+    public Outbox withMaxSegmentBytes(long maxSegmentBytes) {
+        this.maxSegmentBytes = maxSegmentBytes;
+        return this;
+    }
+
+    /**
+     * Called on a worker thread with the sends that failed for good, with the Result of their last attempt
+     */
+    public Outbox onDeadLetter(BiConsumer<OutboxEntry, Result<Void>> deadLetterListener) {
+        this.deadLetterListener = deadLetterListener;
+        return this;
+    }
+
+    /**
+     * Reads what the previous run left in the directory, starts the workers and delivers the sends found waiting
+     */
+    public synchronized void start() throws IOException {
+        if (started) {
+            throw new IllegalStateException("The outbox has already been started");
+        }
+        Files.createDirectories(directory);
+        replay();
+        long segmentId = nextSegmentId();
+        segments.put(segmentId, Segment.create(directory, segmentId));
+        deleteDoneSegments();
+
+        executor = new ScheduledThreadPoolExecutor(workers, new NamedThreadFactory(THREAD_PREFIX));
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        started = true;
+        if (!pending.isEmpty()) {
+            log.info("Outbox {}: {} sends left by the previous run will be delivered", directory, pending.size());
+        }
+        pending.values().forEach(waiting -> executor.execute(() -> deliver(waiting)));
+    }
+
+    public Result<Long> send(List<String> toAddresses, int campaignId) {
+        return send(toAddresses, campaignId, null);
+    }
+
+    public Result<Long> send(String email, int campaignId, Map<String, String> personalisation) {
+        return send(Collections.singletonList(email), campaignId, personalisation);
+    }
+
+    public Result<Long> send(String email, int campaignId) {
+        return send(Collections.singletonList(email), campaignId, null);
+    }
+
+    /**
+     * Appends the send to the log and returns; a worker delivers it later
+     *
+     * @return the sequence of the send, failed if it couldn't be written to disk or is too big for a record (16MB)
+     */
+    public Result<Long> send(List<String> toAddresses, int campaignId, Map<String, String> personalisation) {
+        if (!started || closed) {
+            throw new IllegalStateException("The outbox is not running");
+        }
+        Pending waiting;
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("The outbox is not running");
+            }
+            OutboxEntry entry = new OutboxEntry(nextSequence, new Date(), new ArrayList<>(toAddresses), campaignId,
+                                                personalisation != null ? new LinkedHashMap<>(personalisation) : null);
+            Segment segment;
+            try {
+                byte[] record = encodeSend(entry);
+                if (record.length > MAX_RECORD_BYTES) {
+                    // replay would take it for a corrupt length and drop the sends written after it
+                    log.error("Outbox {}: send to campaign {} takes {} bytes, more than the {} a record can hold", directory, campaignId,
+                              record.length, MAX_RECORD_BYTES);
+                    return ResultBuilder.failed().msg("The send takes " + record.length + " bytes, more than the " + MAX_RECORD_BYTES
+                                                      + " an outbox record can hold").code(ERROR_OUTBOX).buildAndIgnoreData();
+                }
+                segment = append(record);
+            } catch (IOException ex) {
+                log.error("Outbox {}: send to campaign {} could not be written: {}", directory, campaignId, ex);
+                return ResultBuilder.failed().msg(ex.getMessage()).code(ERROR_OUTBOX).buildAndIgnoreData();
+            }
+            nextSequence++;
+            segment.waiting.incrementAndGet();
+            waiting = new Pending(entry, segment);
+            pending.put(entry.getSequence(), waiting);
+        }
+        depth.incrementAndGet();
+        try {
+            executor.execute(() -> deliver(waiting));
+        } catch (RejectedExecutionException ex) {
+            log.warn("Outbox {}: closed while adding send {}, it will be delivered after a restart", directory, waiting.entry.getSequence());
+        }
+        return ResultBuilder.successful(waiting.entry.getSequence());
+    }
+
+    private void deliver(Pending waiting) {
+        if (closed) {
+            return;
+        }
+        OutboxEntry entry = waiting.entry;
+        Result<Void> result;
+        try {
+            result = transactionalResource.send(entry.getToAddresses(), entry.getCampaignId(), entry.getPersonalisation());
+        } catch (RuntimeException ex) {
+            log.error("Outbox {}: send {} threw: {}", directory, entry.getSequence(), ex);
+            result = ResultBuilder.failed().msg(String.valueOf(ex.getMessage())).code(ERROR_OUTBOX).buildAndIgnoreData();
+        }
+        if (result.isSuccess()) {
+            delivered.increment();
+            done(waiting);
+            return;
+        }
+
+        waiting.attempts++;
+        if (AbstractResource.isTransientFailure(result) && retryPolicy.canRetry(waiting.attempts)) {
+            long delay = retryPolicy.delayMillis(waiting.attempts);
+            log.warn("Outbox {}: send {} failed on attempt {} ({}), retrying in {}ms", directory, entry.getSequence(), waiting.attempts, result.getCode(), delay);
+            retries.increment();
+            if (!closed) {
+                executor.schedule(() -> deliver(waiting), delay, TimeUnit.MILLISECONDS);
+            }
+            return;
+        }
+        log.error("Outbox {}: giving up on send {} to campaign {} after {} attempts: {} {}", directory, entry.getSequence(), entry.getCampaignId(),
+                  waiting.attempts, result.getCode(), result.getMsg());
+        deadLettered.increment();
+        done(waiting);
+        try {
+            deadLetterListener.accept(entry, result);
+        } catch (RuntimeException ex) {
+            log.error("Outbox {}: dead letter listener failed: {}", directory, ex);
+        }
+    }
+
+    private void done(Pending waiting) {
+        synchronized (this) {
+            if (pending.remove(waiting.entry.getSequence()) == null) {
+                return;
+            }
+            depth.decrementAndGet();
+            waiting.segment.waiting.decrementAndGet();
+            if (logClosed) {
+                // delivered again after a restart
+                return;
+            }
+            try {
+                append(encodeDone(waiting.entry.getSequence()));
+                deleteDoneSegments();
+            } catch (IOException ex) {
+                log.error("Outbox {}: send {} could not be marked done and will be sent again after a restart: {}", directory, waiting.entry.getSequence(), ex);
+            }
+        }
+    }
+
+    /**
+     * @return the segment the record was written to
+     */
+    private Segment append(byte[] record) throws IOException {
+        Segment segment = segments.lastEntry().getValue();
+        try {
+            segment.write(record, fsync);
+        } catch (IOException ex) {
+            // whatever part of the record got written ends this segment, carry on in a new one
+            roll();
+            throw ex;
+        }
+        if (segment.size >= maxSegmentBytes) {
+            roll();
+        }
+        return segment;
+    }
+
+    private void roll() throws IOException {
+        long id = nextSegmentId();
+        segments.lastEntry().getValue().closeChannel();
+        segments.put(id, Segment.create(directory, id));
+    }
+
+    /**
+     * Done markers are written after the send they mark, in the same segment or a later one, so deleting segments
+     * from the oldest keeps every marker of the segments still there
+     */
+    private void deleteDoneSegments() throws IOException {
+        while (segments.size() > 1 && segments.firstEntry().getValue().waiting.get() == 0) {
+            Segment oldest = segments.pollFirstEntry().getValue();
+            oldest.closeChannel();
+            Files.deleteIfExists(oldest.path);
+        }
+    }
+
+    private long nextSegmentId() {
+        return segments.isEmpty() ? 1 : segments.lastKey() + 1;
+    }
+
+    private void replay() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            stream.forEach(files::add);
+        }
+        Map<Long, Pending> found = new HashMap<>();
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            long id;
+            try {
+                id = Long.parseLong(name.substring(0, name.length() - EXTENSION.length()));
+            } catch (NumberFormatException ex) {
+                log.warn("Outbox {}: ignoring {}", directory, file);
+                continue;
+            }
+            segments.put(id, new Segment(file, Files.size(file)));
+        }
+        for (Segment segment : segments.values()) {
+            readRecords(segment, found);
+        }
+        for (Pending waiting : found.values()) {
+            waiting.segment.waiting.incrementAndGet();
+            pending.put(waiting.entry.getSequence(), waiting);
+        }
+        depth.set(found.size());
+    }
+
+    private void readRecords(Segment segment, Map<Long, Pending> found) throws IOException {
+        try (DataInputStream data = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment.path)))) {
+            long position = 0;
+            while (position < segment.size) {
+                byte[] record;
+                try {
+                    int length = data.readInt();
+                    int checksum = data.readInt();
+                    if (length <= 0 || length > MAX_RECORD_BYTES) {
+                        log.warn("Outbox {}: {} has a record of {} bytes, ignoring the rest of it", directory, segment.path, length);
+                        return;
+                    }
+                    record = new byte[length];
+                    data.readFully(record);
+                    if (checksum != crc(record)) {
+                        log.warn("Outbox {}: {} has a corrupt record, ignoring the rest of it", directory, segment.path);
+                        return;
+                    }
+                } catch (EOFException ex) {
+                    log.warn("Outbox {}: {} ends with a torn record", directory, segment.path);
+                    return;
+                }
+                position += FRAME_HEADER_BYTES + record.length;
+
+                DataInputStream recordData = new DataInputStream(new ByteArrayInputStream(record));
+                byte type = recordData.readByte();
+                long sequence = recordData.readLong();
+                nextSequence = Math.max(nextSequence, sequence + 1);
+                if (type == SEND) {
+                    found.put(sequence, new Pending(decodeSend(sequence, recordData), segment));
+                } else if (type == DONE) {
+                    found.remove(sequence);
+                }
+            }
+        }
+    }
+
+    private static byte[] encodeSend(OutboxEntry entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(bytes);
+        data.writeByte(SEND);
+        data.writeLong(entry.getSequence());
+        data.writeLong(entry.getCreatedAt().getTime());
+        data.writeInt(entry.getCampaignId());
+        data.writeInt(entry.getToAddresses().size());
+        for (String address : entry.getToAddresses()) {
+            data.writeUTF(address);
+        }
+        Map<String, String> personalisation = entry.getPersonalisation();
+        data.writeInt(personalisation == null ? -1 : personalisation.size());
+        if (personalisation != null) {
+            for (Map.Entry<String, String> value : personalisation.entrySet()) {
+                data.writeUTF(value.getKey());
+                data.writeBoolean(value.getValue() != null);
+                if (value.getValue() != null) {
+                    data.writeUTF(value.getValue());
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static OutboxEntry decodeSend(long sequence, DataInputStream data) throws IOException {
+        Date createdAt = new Date(data.readLong());
+        int campaignId = data.readInt();
+        int addressCount = data.readInt();
+        List<String> toAddresses = new ArrayList<>(addressCount);
+        for (int i = 0; i < addressCount; i++) {
+            toAddresses.add(data.readUTF());
+        }
+        int personalisationSize = data.readInt();
+        Map<String, String> personalisation = null;
+        if (personalisationSize >= 0) {
+            personalisation = new LinkedHashMap<>();
+            for (int i = 0; i < personalisationSize; i++) {
+                String key = data.readUTF();
+                personalisation.put(key, data.readBoolean() ? data.readUTF() : null);
+            }
+        }
+        return new OutboxEntry(sequence, createdAt, toAddresses, campaignId, personalisation);
+    }
+
+    private static byte[] encodeDone(long sequence) {
+        return ByteBuffer.allocate(9).put(DONE).putLong(sequence).array();
+    }
+
+    private static int crc(byte[] record) {
+        CRC32 crc = new CRC32();
+        crc.update(record, 0, record.length);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Stops the workers, letting the sends being delivered finish for up to 30 seconds. The sends still waiting stay
+     * in the log for the next start().
+     */
+    @Override
+    public void close() throws IOException {
+        if (!started || closed) {
+            return;
+        }
+        closed = true;
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("Outbox {}: sends still being delivered at close will be sent again after a restart", directory);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        // deliveries that finished while waiting have written their done markers
+        synchronized (this) {
+            logClosed = true;
+            for (Segment segment : segments.values()) {
+                segment.closeChannel();
+            }
+        }
+    }
+
+    /**
+     * @return how many sends are waiting to be delivered
+     */
+    public int getDepth() {
+        return depth.get();
+    }
+
+    /**
+     * @return how long ago the oldest send still waiting was added, 0 when none is waiting
+     */
+    public long getLagMillis() {
+        Map.Entry<Long, Pending> oldest = pending.firstEntry();
+        return oldest == null ? 0 : Math.max(0, System.currentTimeMillis() - oldest.getValue().entry.getCreatedAt().getTime());
+    }
+
+    public long getDelivered() {
+        return delivered.sum();
+    }
+
+    /**
+     * @return how many failed attempts were scheduled again
+     */
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    public long getDeadLettered() {
+        return deadLettered.sum();
+    }
+
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    public synchronized long getSizeOnDisk() {
+        return segments.values().stream().mapToLong(segment -> segment.size).sum();
+    }
+
+    private static class Pending {
+        private final OutboxEntry entry;
+        private final Segment segment;
+        // only touched by the worker delivering it
+        private int attempts;
+
+        Pending(OutboxEntry entry, Segment segment) {
+            this.entry = entry;
+            this.segment = segment;
+        }
+    }
+
+    private static class Segment {
+        private final Path path;
+        private final AtomicInteger waiting = new AtomicInteger();
+        private FileChannel channel;
+        private long size;
+
+        Segment(Path path, long size) {
+            this.path = path;
+            this.size = size;
+        }
+
+        static Segment create(Path directory, long id) throws IOException {
+            Segment segment = new Segment(directory.resolve(String.format("%020d", id) + EXTENSION), 0);
+            segment.channel = FileChannel.open(segment.path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            return segment;
+        }
+
+        void write(byte[] record, boolean fsync) throws IOException {
+            ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER_BYTES + record.length);
+            frame.putInt(record.length).putInt(crc(record)).put(record);
+            // through Buffer: built with a newer JDK, ByteBuffer.flip() links to an override Java 8 doesn't have
+            ((Buffer) frame).flip();
+            while (frame.hasRemaining()) {
+                channel.write(frame);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+            size += FRAME_HEADER_BYTES + record.length;
+        }
+
+        void closeChannel() throws IOException {
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.lindar.dotmailer.transactional;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A triggered campaign send waiting in the Outbox
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEntry {
+
+    /**
+     * Increasing with every send added to the outbox, never reused
+     */
+    private long sequence;
+    private Date createdAt;
+    private List<String> toAddresses;
+    private int campaignId;
+    private Map<String, String> personalisation;
+}
@@ -0,0 +1,44 @@
+package com.lindar.dotmailer.transport;
+
+import java.io.InputStream;
+import java.util.Locale;
+
+/**
+ * The content codings the client can negotiate with Dotmailer
+ */
+public final class ContentEncoding {
+
+    public static final String GZIP = "gzip";
+    public static final String DEFLATE = "deflate";
+    public static final String IDENTITY = "identity";
+
+    /**
+     * Value of the Accept-Encoding header sent when response compression is on
+     */
+    public static final String ACCEPTED = GZIP + ", " + DEFLATE;
+
+    private ContentEncoding() {
+    }
+
+    /**
+     * @return the normalised coding (gzip or deflate) or null if the body isn't encoded or uses a coding the client
+     * can't decode
+     */
+    public static String of(String contentEncodingHeader) {
+        if (contentEncodingHeader == null) {
+            return null;
+        }
+        String encoding = contentEncodingHeader.trim().toLowerCase(Locale.ROOT);
+        if (GZIP.equals(encoding) || "x-gzip".equals(encoding)) {
+            return GZIP;
+        }
+        if (DEFLATE.equals(encoding)) {
+            return DEFLATE;
+        }
+        return null;
+    }
+
+    static InputStream decode(String encoding, InputStream body) {
+        return new DecodingInputStream(encoding, body);
+    }
+}
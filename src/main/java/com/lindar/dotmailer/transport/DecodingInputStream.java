@@ -0,0 +1,86 @@
+package com.lindar.dotmailer.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Decompresses a gzip or deflate encoded body while it's being read. The decoder is only created on the first read,
+ * so empty bodies (e.g. of a 204 sent with a Content-Encoding header) never fail on a missing gzip header.
+ */
+class DecodingInputStream extends InputStream {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final String encoding;
+    private final PushbackInputStream source;
+    private InputStream decoder;
+    private Inflater inflater;
+
+    DecodingInputStream(String encoding, InputStream source) {
+        this.encoding = encoding;
+        this.source = new PushbackInputStream(source, 2);
+    }
+
+    private InputStream decoder() throws IOException {
+        if (decoder != null) {
+            return decoder;
+        }
+        int first = source.read();
+        if (first == -1) {
+            decoder = source;
+            return decoder;
+        }
+        int second = source.read();
+        if (second != -1) {
+            source.unread(second);
+        }
+        source.unread(first);
+
+        if (ContentEncoding.GZIP.equals(encoding)) {
+            decoder = new GZIPInputStream(source, BUFFER_SIZE);
+        } else {
+            // "deflate" should be zlib wrapped but some servers send the raw stream, so look at the header first
+            inflater = new Inflater(!isZlibHeader(first, second));
+            decoder = new InflaterInputStream(source, inflater, BUFFER_SIZE);
+        }
+        return decoder;
+    }
+
+    private static boolean isZlibHeader(int first, int second) {
+        return second != -1 && (first & 0x0F) == 8 && ((first << 8) | second) % 31 == 0;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return decoder().read();
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        return decoder().read(buffer, offset, length);
+    }
+
+    @Override
+    public int available() throws IOException {
+        return decoder != null ? decoder.available() : 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (decoder != null) {
+                decoder.close();
+            } else {
+                source.close();
+            }
+        } finally {
+            if (inflater != null) {
+                inflater.end();
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.lindar.dotmailer.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * The HTTP layer all resources go through. One transport is shared by every resource of a Dotmailer facade, so an
+ * implementation is free to pool and reuse connections across calls (and across the pages of a list).
+ *
+ * Implementations must be thread safe.
+ */
+public interface DotmailerTransport extends Closeable {
+
+    /**
+     * Executes the request and returns the response with its body still unread. The caller closes the response.
+     *
+     * @throws IOException if the request could not be sent or the response could not be received
+     */
+    TransportResponse execute(TransportRequest request) throws IOException;
+
+    @Override
+    default void close() throws IOException {
+    }
+}
@@ -0,0 +1,49 @@
+package com.lindar.dotmailer.transport;
+
+import lombok.Getter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzipped copy of another request body. It's compressed once up front, so the length is known and the body can be
+ * sent again when a request is retried.
+ */
+public class GzipRequestBody implements RequestBody {
+
+    @Getter
+    private final String contentType;
+    private final byte[] compressed;
+    @Getter
+    private final long uncompressedLength;
+
+    public GzipRequestBody(RequestBody body) {
+        this.contentType = body.getContentType();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(body.getContentLength() > 0 ? (int) (body.getContentLength() / 4) : 512);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+            body.writeTo(gzip);
+        } catch (IOException ex) {
+            // only in memory streams are involved
+            throw new UncheckedIOException(ex);
+        }
+        this.compressed = buffer.toByteArray();
+        this.uncompressedLength = body.getContentLength();
+    }
+
+    @Override
+    public long getContentLength() {
+        return compressed.length;
+    }
+
+    public String getContentEncoding() {
+        return ContentEncoding.GZIP;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(compressed);
+    }
+}
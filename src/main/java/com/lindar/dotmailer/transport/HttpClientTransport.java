@@ -0,0 +1,125 @@
+package com.lindar.dotmailer.transport;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.util.EntityUtils;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Default transport: one pooled Apache HttpClient shared by all the resources of a Dotmailer facade. Connections (and
+ * with them their TLS sessions) are kept alive and reused across calls and across the pages of a list.
+ */
+public class HttpClientTransport implements DotmailerTransport {
+
+    public static final int DEFAULT_MAX_CONNECTIONS = 200;
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 50;
+    public static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 10_000;
+    public static final int DEFAULT_SOCKET_TIMEOUT_MILLIS = 120_000;
+
+    private static final long IDLE_CONNECTION_EVICTION_SECONDS = 60;
+
+    private final CloseableHttpClient httpClient;
+
+    public HttpClientTransport() {
+        this(DEFAULT_MAX_CONNECTIONS, DEFAULT_MAX_CONNECTIONS_PER_ROUTE, DEFAULT_CONNECT_TIMEOUT_MILLIS, DEFAULT_SOCKET_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * @param maxConnections total size of the connection pool
+     * @param maxConnectionsPerRoute how many connections can be open to the Dotmailer API at the same time
+     * @param connectTimeoutMillis
+     * @param socketTimeoutMillis
+     */
+    public HttpClientTransport(int maxConnections, int maxConnectionsPerRoute, int connectTimeoutMillis, int socketTimeoutMillis) {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeoutMillis)
+                .setConnectionRequestTimeout(connectTimeoutMillis)
+                .setSocketTimeout(socketTimeoutMillis)
+                .build();
+        this.httpClient = HttpClientBuilder.create()
+                .useSystemProperties()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setDefaultRequestConfig(requestConfig)
+                .evictIdleConnections(IDLE_CONNECTION_EVICTION_SECONDS, TimeUnit.SECONDS)
+                // Accept-Encoding is negotiated by the resources and bodies are decoded by TransportResponse, which
+                // keeps the compressed size visible to the metrics
+                .disableContentCompression()
+                // failed requests are retried by the resources' RetryPolicy, with backoff and seen by the circuit breaker
+                .disableAutomaticRetries()
+                .build();
+    }
+
+    /**
+     * Uses an already configured client, e.g. one with a proxy or custom SSL context. Build it with
+     * disableContentCompression() to get compression ratios in the metrics, otherwise the client decompresses
+     * responses before they're measured, and with disableAutomaticRetries() so failures aren't retried twice.
+     */
+    public HttpClientTransport(CloseableHttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    @Override
+    public TransportResponse execute(TransportRequest request) throws IOException {
+        HttpRequestBase httpRequest = toHttpRequest(request);
+        request.getHeaders().forEach(httpRequest::setHeader);
+
+        CloseableHttpResponse response = httpClient.execute(httpRequest);
+        HttpEntity entity = response.getEntity();
+
+        Map<String, String> headers = new HashMap<>();
+        for (Header header : response.getAllHeaders()) {
+            headers.put(header.getName(), header.getValue());
+        }
+        Charset charset = Optional.ofNullable(entity).map(ContentType::get).map(ContentType::getCharset).orElse(StandardCharsets.UTF_8);
+
+        return new TransportResponse(response.getStatusLine().getStatusCode(), headers, entity != null ? entity.getContent() : null, charset, () -> {
+            // consuming what's left of the body hands the connection back to the pool instead of dropping it
+            EntityUtils.consumeQuietly(entity);
+            response.close();
+        });
+    }
+
+    private HttpRequestBase toHttpRequest(TransportRequest request) {
+        switch (request.getMethod()) {
+            case POST:
+                return withBody(new HttpPost(request.getUrl()), request.getBody());
+            case PUT:
+                return withBody(new HttpPut(request.getUrl()), request.getBody());
+            case DELETE:
+                return new HttpDelete(request.getUrl());
+            default:
+                return new HttpGet(request.getUrl());
+        }
+    }
+
+    private HttpRequestBase withBody(HttpEntityEnclosingRequestBase httpRequest, RequestBody body) {
+        if (body != null) {
+            httpRequest.setEntity(new RequestBodyEntity(body));
+        }
+        return httpRequest;
+    }
+
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+    }
+}
@@ -0,0 +1,8 @@
+package com.lindar.dotmailer.transport;
+
+public enum HttpMethod {
+    GET,
+    POST,
+    PUT,
+    DELETE
+}
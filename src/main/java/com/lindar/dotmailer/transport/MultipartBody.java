@@ -0,0 +1,74 @@
+package com.lindar.dotmailer.transport;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * multipart/form-data body made of a single file part whose content is written on demand
+ */
+public class MultipartBody implements RequestBody {
+
+    public static final String FILE_FIELD = "file";
+
+    private static final String CRLF = "\r\n";
+    private static final String PART_CONTENT_TYPE = "multipart/form-data";
+
+    @FunctionalInterface
+    public interface PartWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private final String boundary = UUID.randomUUID().toString().replace("-", "");
+    private final byte[] head;
+    private final byte[] tail;
+    private final long partLength;
+    private final boolean repeatable;
+    private final PartWriter partWriter;
+
+    /**
+     * @param partLength the length of the part content in bytes or -1 if not known, in which case the body is sent
+     * chunked
+     */
+    public MultipartBody(String fieldName, String fileName, long partLength, PartWriter partWriter) {
+        this(fieldName, fileName, partLength, true, partWriter);
+    }
+
+    /**
+     * @param repeatable false if the part writer can only be called once
+     */
+    public MultipartBody(String fieldName, String fileName, long partLength, boolean repeatable, PartWriter partWriter) {
+        this.partLength = partLength;
+        this.repeatable = repeatable;
+        this.partWriter = partWriter;
+        this.head = ("--" + boundary + CRLF
+                + "Content-Disposition: form-data; name=\"" + fieldName + "\"; filename=\"" + fileName + "\"" + CRLF
+                + "Content-Type: " + PART_CONTENT_TYPE + CRLF
+                + "Content-Transfer-Encoding: binary" + CRLF
+                + CRLF).getBytes(StandardCharsets.UTF_8);
+        this.tail = (CRLF + "--" + boundary + "--" + CRLF).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String getContentType() {
+        return "multipart/form-data; boundary=" + boundary;
+    }
+
+    @Override
+    public long getContentLength() {
+        return partLength < 0 ? -1 : head.length + partLength + tail.length;
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return repeatable;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(head);
+        partWriter.writeTo(out);
+        out.write(tail);
+    }
+}
@@ -0,0 +1,85 @@
+package com.lindar.dotmailer.transport;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * A request body written straight to the connection, so large bodies never have to be fully buffered by the
+ * transport
+ */
+public interface RequestBody {
+
+    String JSON_CONTENT_TYPE = "application/json; charset=UTF-8";
+
+    String getContentType();
+
+    /**
+     * @return the length in bytes or -1 if it's not known up front, in which case the body is sent chunked
+     */
+    long getContentLength();
+
+    void writeTo(OutputStream out) throws IOException;
+
+    /**
+     * @return false if the body can only be written once (e.g. it's read from a stream), in which case the request is
+     * never sent again
+     */
+    default boolean isRepeatable() {
+        return true;
+    }
+
+    static RequestBody json(String json) {
+        return bytes(json.getBytes(StandardCharsets.UTF_8), JSON_CONTENT_TYPE);
+    }
+
+    static RequestBody bytes(byte[] content, String contentType) {
+        return new RequestBody() {
+            @Override
+            public String getContentType() {
+                return contentType;
+            }
+
+            @Override
+            public long getContentLength() {
+                return content.length;
+            }
+
+            @Override
+            public void writeTo(OutputStream out) throws IOException {
+                out.write(content);
+            }
+        };
+    }
+
+    /**
+     * Gzips the body, see GzipRequestBody. The request has to be sent with a "Content-Encoding: gzip" header.
+     */
+    static GzipRequestBody gzip(RequestBody body) {
+        return new GzipRequestBody(body);
+    }
+
+    /**
+     * Multipart form body with the file as its only part, the way Dotmailer expects imports to be uploaded
+     */
+    static RequestBody multipartFile(File file) {
+        return new MultipartBody(MultipartBody.FILE_FIELD, file.getName(), file.length(), out -> Files.copy(file.toPath(), out));
+    }
+
+    /**
+     * Multipart form body with the content of the stream as its file part, sent chunked. The stream is read once,
+     * while the request is sent, and isn't closed.
+     */
+    static RequestBody multipartStream(String fileName, InputStream in) {
+        return new MultipartBody(MultipartBody.FILE_FIELD, fileName, -1, false, out -> {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, read);
+            }
+        });
+    }
+}
@@ -0,0 +1,46 @@
+package com.lindar.dotmailer.transport;
+
+import org.apache.http.entity.AbstractHttpEntity;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Adapts a RequestBody to Apache HttpClient, writing it straight to the connection
+ */
+class RequestBodyEntity extends AbstractHttpEntity {
+
+    private final RequestBody body;
+
+    RequestBodyEntity(RequestBody body) {
+        this.body = body;
+        setContentType(body.getContentType());
+        setChunked(body.getContentLength() < 0);
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return false;
+    }
+
+    @Override
+    public long getContentLength() {
+        return body.getContentLength();
+    }
+
+    @Override
+    public InputStream getContent() {
+        throw new UnsupportedOperationException("Request bodies can only be written");
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        body.writeTo(out);
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+}
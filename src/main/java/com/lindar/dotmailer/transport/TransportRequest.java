@@ -0,0 +1,32 @@
+package com.lindar.dotmailer.transport;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Getter
+@ToString(exclude = {"headers", "body"})
+public class TransportRequest {
+
+    private final HttpMethod method;
+    private final String url;
+    private final RequestBody body;
+    private final Map<String, String> headers = new LinkedHashMap<>();
+
+    public TransportRequest(HttpMethod method, String url) {
+        this(method, url, null);
+    }
+
+    public TransportRequest(HttpMethod method, String url, RequestBody body) {
+        this.method = method;
+        this.url = url;
+        this.body = body;
+    }
+
+    public TransportRequest header(String name, String value) {
+        headers.put(name, value);
+        return this;
+    }
+}
@@ -0,0 +1,134 @@
+package com.lindar.dotmailer.transport;
+
+import lombok.Getter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Response with its body still on the wire. It has to be closed so the underlying connection can be reused.
+ * <p>
+ * A gzip or deflate encoded body is decompressed as it's read; getBytesRead() counts the bytes taken off the wire
+ * and getDecodedBytesRead() the bytes they were decompressed to.
+ */
+public class TransportResponse implements Closeable {
+
+    @Getter
+    private final int statusCode;
+    private final Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final CountingInputStream body;
+    private final CountingInputStream decodedBody;
+    @Getter
+    private final String contentEncoding;
+    @Getter
+    private final Charset charset;
+    private final Closeable resource;
+    private final List<Runnable> closeListeners = new ArrayList<>(1);
+    private boolean closed;
+
+    public TransportResponse(int statusCode, Map<String, String> headers, InputStream body, Charset charset, Closeable resource) {
+        this.statusCode = statusCode;
+        if (headers != null) {
+            this.headers.putAll(headers);
+        }
+        this.body = body != null ? new CountingInputStream(body) : null;
+        this.contentEncoding = ContentEncoding.of(this.headers.get("Content-Encoding"));
+        this.decodedBody = this.body != null && contentEncoding != null ? new CountingInputStream(ContentEncoding.decode(contentEncoding, this.body)) : null;
+        this.charset = charset;
+        this.resource = resource;
+    }
+
+    public String getHeader(String name) {
+        return headers.get(name);
+    }
+
+    public Map<String, String> getHeaders() {
+        return Collections.unmodifiableMap(headers);
+    }
+
+    /**
+     * @return the decompressed body stream or null if the response has no body
+     */
+    public InputStream getBody() {
+        return decodedBody != null ? decodedBody : body;
+    }
+
+    /**
+     * @return whether the body is gzip or deflate encoded
+     */
+    public boolean isCompressed() {
+        return decodedBody != null;
+    }
+
+    /**
+     * @return how many bytes of the body have been read off the wire so far
+     */
+    public long getBytesRead() {
+        return body != null ? body.getCount() : 0;
+    }
+
+    /**
+     * @return how many bytes of the decompressed body have been read so far, the same as getBytesRead() when the body
+     * isn't compressed
+     */
+    public long getDecodedBytesRead() {
+        return decodedBody != null ? decodedBody.getCount() : getBytesRead();
+    }
+
+    /**
+     * Runs the listener once the response has been closed, i.e. when the caller is done with it
+     */
+    public void addCloseListener(Runnable listener) {
+        closeListeners.add(listener);
+    }
+
+    public Reader bodyReader() {
+        return new InputStreamReader(getBody(), charset);
+    }
+
+    /**
+     * Reads the whole body. Only meant for small bodies such as single objects and error messages.
+     */
+    public String bodyAsString() throws IOException {
+        if (body == null) {
+            return null;
+        }
+        StringBuilder content = new StringBuilder();
+        char[] buffer = new char[4096];
+        try (Reader reader = bodyReader()) {
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                content.append(buffer, 0, read);
+            }
+        }
+        return content.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (decodedBody != null) {
+                // releases the inflater, the wire stream itself is left to the resource
+                decodedBody.close();
+            }
+            if (resource != null) {
+                resource.close();
+            }
+        } finally {
+            closeListeners.forEach(Runnable::run);
+        }
+    }
+}
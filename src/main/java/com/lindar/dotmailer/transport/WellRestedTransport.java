@@ -0,0 +1,61 @@
+package com.lindar.dotmailer.transport;
+
+import com.lindar.wellrested.WellRestedRequest;
+import com.lindar.wellrested.vo.WellRestedResponse;
+import org.apache.http.HttpHeaders;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Transport built on WellRested, which is how the client used to talk to Dotmailer. Every call builds a new
+ * WellRestedRequest and the whole body is buffered in memory before it's handed back, so there is no connection
+ * reuse or streaming; use it only if you depend on WellRested specific behaviour.
+ */
+public class WellRestedTransport implements DotmailerTransport {
+
+    @Override
+    public TransportResponse execute(TransportRequest request) throws IOException {
+        WellRestedRequest wellRestedRequest = WellRestedRequest.builder()
+                .url(request.getUrl())
+                .globalHeaders(request.getHeaders())
+                .build();
+
+        WellRestedResponse response;
+        switch (request.getMethod()) {
+            case POST:
+                response = request.getBody() != null
+                        ? wellRestedRequest.post().httpEntity(new RequestBodyEntity(request.getBody())).submit()
+                        : wellRestedRequest.post().submit();
+                break;
+            case PUT:
+                response = request.getBody() != null
+                        ? wellRestedRequest.put().httpEntity(new RequestBodyEntity(request.getBody())).submit()
+                        : wellRestedRequest.put().submit();
+                break;
+            case DELETE:
+                response = wellRestedRequest.delete().submit();
+                break;
+            default:
+                response = wellRestedRequest.get().submit();
+        }
+
+        // WellRested swallows connection errors and hands back a response without a status code
+        if (response == null || response.getStatusCode() <= 0) {
+            throw new IOException("WellRested could not complete the request to " + request.getUrl());
+        }
+
+        String serverResponse = response.getServerResponse() != null ? response.getServerResponse() : "";
+        // the body has already been decompressed, don't let TransportResponse decode it a second time
+        Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        if (response.getResponseHeaders() != null) {
+            headers.putAll(response.getResponseHeaders());
+        }
+        headers.remove(HttpHeaders.CONTENT_ENCODING);
+        return new TransportResponse(response.getStatusCode(), headers,
+                                     new ByteArrayInputStream(serverResponse.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8, null);
+    }
+}
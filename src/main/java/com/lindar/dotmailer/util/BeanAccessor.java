@@ -0,0 +1,176 @@
+package com.lindar.dotmailer.util;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.SoftReference;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.function.Function;
+
+/**
+ * The getters of a class, found once and compiled into functions so reading a property costs about as much as calling
+ * the getter. Used by CsvUtil to turn beans into CSV rows.
+ * <p>
+ * Properties are sorted by name: getMethods() returns methods in no particular order, which would change the columns
+ * of a CSV from one JVM to the next. A property is read with getX(), or isX() when it's a boolean and there's no
+ * getX(). Getters of classes that aren't public are called through a method handle, a bit slower.
+ * <p>
+ * The getters refer to their class, so the cache holds its classes weakly and its accessors softly: a ClassValue or a
+ * strongly held value would keep the class, and with it the class loader of e.g. an undeployed web app, forever.
+ */
+final class BeanAccessor {
+
+    private static final String GET_METHOD_PREFIX = "get";
+    private static final String IS_METHOD_PREFIX = "is";
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final Map<Class<?>, SoftReference<BeanAccessor>> ACCESSORS = new WeakHashMap<>();
+
+    private final String typeName;
+    private final Map<String, Function<Object, Object>> getters;
+    private final List<String> propertyNames;
+
+    private BeanAccessor(Class<?> type) {
+        this.typeName = type.getName();
+        Map<String, Method> methods = new TreeMap<>();
+        for (Method method : type.getMethods()) {
+            String name = propertyName(method);
+            if (name != null && (!methods.containsKey(name) || preferred(method, methods.get(name)))) {
+                methods.put(name, method);
+            }
+        }
+        Map<String, Function<Object, Object>> compiled = new TreeMap<>();
+        methods.forEach((name, method) -> compiled.put(name, compile(method)));
+        this.getters = Collections.unmodifiableMap(compiled);
+        this.propertyNames = Collections.unmodifiableList(new ArrayList<>(compiled.keySet()));
+    }
+
+    static BeanAccessor forClass(Class<?> type) {
+        synchronized (ACCESSORS) {
+            SoftReference<BeanAccessor> cached = ACCESSORS.get(type);
+            BeanAccessor accessor = cached != null ? cached.get() : null;
+            if (accessor == null) {
+                accessor = new BeanAccessor(type);
+                ACCESSORS.put(type, new SoftReference<>(accessor));
+            }
+            return accessor;
+        }
+    }
+
+    /**
+     * @return the names of all the properties with a getter (including "class"), sorted
+     */
+    List<String> getPropertyNames() {
+        return propertyNames;
+    }
+
+    /**
+     * @return a getter for each name, in the same order
+     * @throws IllegalArgumentException if one of the properties has no getter
+     */
+    @SuppressWarnings("unchecked")
+    Function<Object, Object>[] getters(String[] names) {
+        Function<Object, Object>[] selected = new Function[names.length];
+        for (int i = 0; i < names.length; i++) {
+            selected[i] = getters.get(names[i]);
+            if (selected[i] == null) {
+                throw new IllegalArgumentException("No getter for " + names[i] + " in " + typeName);
+            }
+        }
+        return selected;
+    }
+
+    private static String propertyName(Method method) {
+        if (Modifier.isStatic(method.getModifiers()) || method.getParameterCount() > 0 || method.getReturnType() == void.class) {
+            return null;
+        }
+        String name = method.getName();
+        String stripped;
+        if (name.startsWith(GET_METHOD_PREFIX) && name.length() > GET_METHOD_PREFIX.length()) {
+            stripped = name.substring(GET_METHOD_PREFIX.length());
+        } else if (name.startsWith(IS_METHOD_PREFIX) && name.length() > IS_METHOD_PREFIX.length() && isBoolean(method.getReturnType())) {
+            stripped = name.substring(IS_METHOD_PREFIX.length());
+        } else {
+            return null;
+        }
+        return StringUtils.uncapitalize(stripped);
+    }
+
+    /**
+     * getX() over isX(), and the override itself over the bridge methods of a covariant return type
+     */
+    private static boolean preferred(Method candidate, Method current) {
+        boolean candidateGet = candidate.getName().startsWith(GET_METHOD_PREFIX);
+        boolean currentGet = current.getName().startsWith(GET_METHOD_PREFIX);
+        if (candidateGet != currentGet) {
+            return candidateGet;
+        }
+        return current.isBridge() && !candidate.isBridge();
+    }
+
+    private static boolean isBoolean(Class<?> type) {
+        return type == boolean.class || type == Boolean.class;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> compile(Method method) {
+        if (!visible(method.getDeclaringClass())) {
+            return handleGetter(method);
+        }
+        try {
+            MethodHandle getter = LOOKUP.unreflect(method);
+            CallSite site = LambdaMetafactory.metafactory(LOOKUP, "apply", MethodType.methodType(Function.class), GETTER_TYPE,
+                                                          getter, getter.type().wrap());
+            return (Function<Object, Object>) site.getTarget().invokeExact();
+        } catch (Throwable ex) {
+            // not accessible from here, e.g. a public getter of a class that isn't public
+            return handleGetter(method);
+        }
+    }
+
+    /**
+     * The compiled function refers to the class by name from this class' loader, which may not see it (e.g. a class of
+     * a web app when the client is a server library)
+     */
+    private static boolean visible(Class<?> type) {
+        try {
+            return Class.forName(type.getName(), false, BeanAccessor.class.getClassLoader()) == type;
+        } catch (ClassNotFoundException | LinkageError ex) {
+            return false;
+        }
+    }
+
+    private static Function<Object, Object> handleGetter(Method method) {
+        MethodHandle getter;
+        try {
+            method.setAccessible(true);
+            getter = LOOKUP.unreflect(method).asType(GETTER_TYPE);
+        } catch (IllegalAccessException | RuntimeException ex) {
+            return bean -> {
+                throw new IllegalStateException("Getter " + method + " can't be called", ex);
+            };
+        }
+        return bean -> {
+            try {
+                return getter.invokeExact(bean);
+            } catch (RuntimeException | Error ex) {
+                throw ex;
+            } catch (Throwable ex) {
+                throw new IllegalStateException(ex);
+            }
+        };
+    }
+}
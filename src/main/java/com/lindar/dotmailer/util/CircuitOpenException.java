@@ -0,0 +1,13 @@
+package com.lindar.dotmailer.util;
+
+import java.io.IOException;
+
+/**
+ * Thrown instead of sending a request while the circuit breaker is open
+ */
+public class CircuitOpenException extends IOException {
+
+    public CircuitOpenException(String message) {
+        super(message);
+    }
+}
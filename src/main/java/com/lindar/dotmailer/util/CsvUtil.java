@@ -2,28 +2,32 @@ package com.lindar.dotmailer.util;
 
 import com.lindar.wellrested.vo.Result;
 import com.lindar.wellrested.vo.ResultBuilder;
+import com.lindar.dotmailer.transport.MultipartBody;
+import com.lindar.dotmailer.transport.RequestBody;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.RandomStringUtils;
-import org.apache.commons.lang3.StringUtils;
 import org.supercsv.cellprocessor.ift.CellProcessor;
-import org.supercsv.io.CsvBeanWriter;
-import org.supercsv.io.ICsvBeanWriter;
+import org.supercsv.io.CsvListWriter;
+import org.supercsv.io.ICsvListWriter;
 import org.supercsv.prefs.CsvPreference;
 
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.lang.reflect.Method;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 
 @Slf4j
 public class CsvUtil {
-    private static final String GET_METHOD_PREFIX = "get";
-    private static final String IS_METHOD_PREFIX = "is";
-
     private static final String CSV_FILE_NAME = "dotmailerContacts-%s.csv";
+    private static final String UPLOAD_FILE_NAME = "dotmailerContacts.csv";
 
     private static final String ERROR_CSV = "ERROR_CSV";
 
@@ -56,50 +60,178 @@ public class CsvUtil {
             csvHeaders = fieldNames;
         }
 
+        String[] fieldNamesArray = fieldNames.toArray(new String[]{});
+        String missingGetter = missingGetter(objectsToWrite.get(0), fieldNamesArray);
+        if (missingGetter != null) {
+            return ResultBuilder.failed().msg(missingGetter).code(ERROR_CSV).buildAndIgnoreData();
+        }
+
         // generate a unique file name everytime for parallel processing
         String filePath = System.getProperty("user.home") + File.separator + String.format(CSV_FILE_NAME, RandomStringUtils.random(10, true, true));
-        try (ICsvBeanWriter beanWriter = new CsvBeanWriter(new FileWriter(filePath), CsvPreference.STANDARD_PREFERENCE)) {
+        try (ICsvListWriter listWriter = new CsvListWriter(new FileWriter(filePath), CsvPreference.STANDARD_PREFERENCE)) {
+            listWriter.writeHeader(csvHeaders.toArray(new String[]{}));
+            writeRows(listWriter, objectsToWrite.iterator(), fieldNamesArray, processors);
+            return ResultBuilder.successful(filePath);
+        } catch (IOException e) {
+            log.error("Error occured while writing csv file: {}", e);
+            return ResultBuilder.failed().msg(e.getMessage()).code(ERROR_CSV).buildAndIgnoreData();
+        }
+    }
+    
+    public static <T> Result<RequestBody> csvBody(final List<T> objectsToWrite) {
+        return csvBody(objectsToWrite, null, null, null);
+    }
+
+    /**
+     * Upload body for an import that encodes the objects to CSV while the request is being sent, instead of writing a
+     * file first. The list is read again if the request is sent again.
+     */
+    public static <T> Result<RequestBody> csvBody(final List<T> objectsToWrite, List<String> csvHeaders, List<String> fieldNames, final CellProcessor[] processors) {
+        if (objectsToWrite == null || objectsToWrite.isEmpty() || objectsToWrite.get(0) == null) {
+            log.warn("Nothing to write. The list of objects is empty or null elements provided");
+            return ResultBuilder.failed().msg("List is empty, nothing to write").code(ERROR_CSV).buildAndIgnoreData();
+        }
+        return csvBody(objectsToWrite.get(0), objectsToWrite::iterator, true, csvHeaders, fieldNames, processors);
+    }
 
-            // write the header
-            beanWriter.writeHeader(csvHeaders.toArray(new String[]{}));
+    public static <T> Result<RequestBody> csvBody(final Iterator<T> objectsToWrite) {
+        return csvBody(objectsToWrite, null, null, null);
+    }
 
-            String[] fieldNamesArray = fieldNames.toArray(new String[]{});
+    /**
+     * Same as for a list, but every object is taken from the iterator only when its row is sent, so they never have
+     * to be all in memory. The body can only be sent once.
+     */
+    public static <T> Result<RequestBody> csvBody(final Iterator<T> objectsToWrite, List<String> csvHeaders, List<String> fieldNames, final CellProcessor[] processors) {
+        T first = objectsToWrite != null && objectsToWrite.hasNext() ? objectsToWrite.next() : null;
+        if (first == null) {
+            log.warn("Nothing to write. The iterator is empty or its first element is null");
+            return ResultBuilder.failed().msg("Nothing to write").code(ERROR_CSV).buildAndIgnoreData();
+        }
+        AtomicBoolean read = new AtomicBoolean();
+        RowSource<T> rows = () -> {
+            if (read.getAndSet(true)) {
+                throw new IOException("The rows of the CSV have already been sent");
+            }
+            return new PeekedIterator<>(first, objectsToWrite);
+        };
+        return csvBody(first, rows, false, csvHeaders, fieldNames, processors);
+    }
 
-            // write the beans
-            for (final T obj : objectsToWrite) {
+    private static <T> Result<RequestBody> csvBody(T first, RowSource<T> rows, boolean repeatable, List<String> csvHeaders, List<String> fieldNames,
+                                                   CellProcessor[] processors) {
+        if (fieldNames == null || fieldNames.isEmpty()) {
+            fieldNames = listAllVariablesWithGettersIgnoreGetClass(first);
+        }
+        if (csvHeaders == null || csvHeaders.isEmpty()) {
+            csvHeaders = fieldNames;
+        }
+        String[] headersArray = csvHeaders.toArray(new String[]{});
+        String[] fieldNamesArray = fieldNames.toArray(new String[]{});
+        String missingGetter = missingGetter(first, fieldNamesArray);
+        if (missingGetter != null) {
+            return ResultBuilder.failed().msg(missingGetter).code(ERROR_CSV).buildAndIgnoreData();
+        }
+        return ResultBuilder.successful(new MultipartBody(MultipartBody.FILE_FIELD, UPLOAD_FILE_NAME, -1, repeatable,
+                                                          out -> writeRows(out, rows.open(), headersArray, fieldNamesArray, processors)));
+    }
+
+    private static <T> void writeRows(OutputStream out, Iterator<T> rows, String[] csvHeaders, String[] fieldNames, CellProcessor[] processors) throws IOException {
+        // flushed, not closed: the stream is the connection
+        ICsvListWriter listWriter = new CsvListWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), CsvPreference.STANDARD_PREFERENCE);
+        listWriter.writeHeader(csvHeaders);
+        writeRows(listWriter, rows, fieldNames, processors);
+        listWriter.flush();
+    }
+
+    /**
+     * Reads the columns with the getters compiled for the class of the objects (see BeanAccessor) instead of looking
+     * them up for every cell like CsvBeanWriter does
+     */
+    private static <T> void writeRows(ICsvListWriter listWriter, Iterator<T> rows, String[] fieldNames, CellProcessor[] processors) throws IOException {
+        Class<?> rowClass = null;
+        Function<Object, Object>[] getters = null;
+        Object[] row = new Object[fieldNames.length];
+        List<Object> columns = Arrays.asList(row);
+        while (rows.hasNext()) {
+            T obj = rows.next();
+            try {
+                if (obj == null) {
+                    throw new IllegalArgumentException("the object is null");
+                }
+                // the rows are usually all of the same class, but not necessarily
+                if (rowClass != obj.getClass()) {
+                    rowClass = obj.getClass();
+                    getters = BeanAccessor.forClass(rowClass).getters(fieldNames);
+                }
+                for (int i = 0; i < getters.length; i++) {
+                    row[i] = getters[i].apply(obj);
+                }
                 if (processors != null) {
-                    beanWriter.write(obj, fieldNamesArray, processors);
+                    listWriter.write(columns, processors);
                 } else {
-                    beanWriter.write(obj, fieldNamesArray);
+                    listWriter.write(columns);
                 }
+            } catch (RuntimeException ex) {
+                // abort the upload rather than send a partial file
+                throw new IOException("Row " + (listWriter.getRowNumber() + 1) + " could not be written: " + ex.getMessage(), ex);
             }
-            return ResultBuilder.successful(filePath);
-        } catch (IOException e) {
-            log.error("Error occured while writing csv file: {}", e);
-            return ResultBuilder.failed().msg(e.getMessage()).code(ERROR_CSV).buildAndIgnoreData();
         }
     }
-    
+
+    private static String missingGetter(Object first, String[] fieldNames) {
+        try {
+            BeanAccessor.forClass(first.getClass()).getters(fieldNames);
+            return null;
+        } catch (IllegalArgumentException ex) {
+            log.warn("Can't write {} to CSV: {}", first.getClass().getName(), ex.getMessage());
+            return ex.getMessage();
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowSource<T> {
+        Iterator<T> open() throws IOException;
+    }
+
+    private static class PeekedIterator<T> implements Iterator<T> {
+        private final Iterator<T> rest;
+        private T first;
+
+        PeekedIterator(T first, Iterator<T> rest) {
+            this.first = first;
+            this.rest = rest;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return first != null || rest.hasNext();
+        }
+
+        @Override
+        public T next() {
+            if (first != null) {
+                T next = first;
+                first = null;
+                return next;
+            }
+            return rest.next();
+        }
+    }
+
     public static <T> List<String> listAllVariablesWithGettersIgnoreGetClass(T object) {
         return listAllVariablesWithGetters(object, Arrays.asList("class"));
     }
     
+    /**
+     * @return the properties of the object's class that have a getter, sorted by name
+     */
     public static <T> List<String> listAllVariablesWithGetters(T object, List<String> namesToIgnore) {
-        Method[] objMethods = object.getClass().getMethods();
-        List<String> names = new ArrayList<>(objMethods.length);
-        for (Method firstObjMethod : objMethods) {
-            String objMethodName = firstObjMethod.getName();
-            String objStrippedMethodName;
-            if (objMethodName.startsWith(GET_METHOD_PREFIX)) {
-                objStrippedMethodName = objMethodName.substring(objMethodName.indexOf(GET_METHOD_PREFIX) + GET_METHOD_PREFIX.length());
-            } else if (objMethodName.startsWith(IS_METHOD_PREFIX)) {
-                objStrippedMethodName = objMethodName.substring(objMethodName.indexOf(IS_METHOD_PREFIX) + IS_METHOD_PREFIX.length());
-            } else {
-                continue;
-            }
-            String uncapitalizedName = StringUtils.uncapitalize(objStrippedMethodName);
-            if (namesToIgnore == null || !namesToIgnore.contains(uncapitalizedName)) {
-                names.add(uncapitalizedName);
+        List<String> propertyNames = BeanAccessor.forClass(object.getClass()).getPropertyNames();
+        List<String> names = new ArrayList<>(propertyNames.size());
+        for (String name : propertyNames) {
+            if (namesToIgnore == null || !namesToIgnore.contains(name)) {
+                names.add(name);
             }
         }
         return names;
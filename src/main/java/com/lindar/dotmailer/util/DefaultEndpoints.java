@@ -1,6 +1,13 @@
 package com.lindar.dotmailer.util;
 
 import lombok.Getter;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 /**
  *
@@ -45,10 +52,40 @@ public enum DefaultEndpoints {
 
 
 
+    private static final String PARAM = "%s";
+    private static final List<DefaultEndpoints> RESOURCE_ENDPOINTS = Arrays.stream(values())
+            .filter(endpoint -> endpoint != API_URL && endpoint != VERSION)
+            // the most specific template wins, e.g. /contacts/import over /contacts/%s
+            .sorted(Comparator.comparingInt(DefaultEndpoints::paramCount))
+            .collect(Collectors.toList());
+
     @Getter
     private String path;
+
+    private final Pattern pattern;
     
     private DefaultEndpoints(String path) {
         this.path = path;
+        this.pattern = Pattern.compile(Arrays.stream(path.split(PARAM, -1)).map(Pattern::quote).collect(Collectors.joining("[^/]+")));
+    }
+
+    /**
+     * Finds the endpoint a resolved resource path (e.g. /contacts/123/address-books?select=1000) was built from
+     *
+     * @param resourcePath
+     * @return the matching endpoint or null if the path doesn't belong to any of them
+     */
+    public static DefaultEndpoints fromPath(String resourcePath) {
+        String path = StringUtils.removeEnd(StringUtils.substringBefore(resourcePath, "?"), "/");
+        for (DefaultEndpoints endpoint : RESOURCE_ENDPOINTS) {
+            if (endpoint.pattern.matcher(path).matches()) {
+                return endpoint;
+            }
+        }
+        return null;
+    }
+
+    private int paramCount() {
+        return StringUtils.countMatches(path, PARAM);
     }
 }
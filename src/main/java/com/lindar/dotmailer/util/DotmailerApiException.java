@@ -0,0 +1,23 @@
+package com.lindar.dotmailer.util;
+
+import lombok.Getter;
+
+/**
+ * Thrown by the lazy (stream based) methods when a page can't be fetched, since they have no Result to report the
+ * failure through. Carries the same code and message a failed Result would.
+ */
+public class DotmailerApiException extends RuntimeException {
+
+    @Getter
+    private final String code;
+
+    public DotmailerApiException(String message, String code) {
+        super(message);
+        this.code = code;
+    }
+
+    public DotmailerApiException(String message, String code, Throwable cause) {
+        super(message, cause);
+        this.code = code;
+    }
+}
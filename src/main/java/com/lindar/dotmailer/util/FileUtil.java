@@ -0,0 +1,51 @@
+package com.lindar.dotmailer.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Replaces files without ever leaving them half written: the new content is written next to the old file and moved
+ * over it, so a crash while writing leaves the previous version intact.
+ */
+public class FileUtil {
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * Writes a temporary file in the same directory as <b>target</b> (creating the directory if needed) and moves it
+     * over <b>target</b>. The temporary file is deleted if <b>writer</b> fails.
+     */
+    public static void atomicReplace(Path target, ContentWriter writer) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path tempFile = Files.createTempFile(directory, target.getFileName().toString(), TEMP_SUFFIX);
+        try {
+            try (OutputStream out = Files.newOutputStream(tempFile)) {
+                writer.write(out);
+            }
+            atomicMove(tempFile, target);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Moves <b>source</b> over <b>target</b> atomically, or with a plain move on file systems that can't
+     */
+    public static void atomicMove(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @FunctionalInterface
+    public interface ContentWriter {
+        void write(OutputStream out) throws IOException;
+    }
+}
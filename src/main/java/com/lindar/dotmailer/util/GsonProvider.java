@@ -0,0 +1,44 @@
+package com.lindar.dotmailer.util;
+
+import com.fatboyindustrial.gsonjavatime.Converters;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializer;
+import com.lindar.wellrested.util.DateDeserializer;
+import com.lindar.wellrested.util.StringDateSerializer;
+
+import java.util.Date;
+
+/**
+ * Gson instances configured the same way WellRested configures them, so requests and responses are (de)serialized
+ * exactly as they were when all calls went through WellRested
+ */
+public class GsonProvider {
+
+    private static final Gson RESPONSE_GSON = Converters.registerAll(new GsonBuilder())
+            .registerTypeAdapter(Date.class, new DateDeserializer())
+            .create();
+
+    private static final Gson REQUEST_GSON = Converters.registerAll(new GsonBuilder())
+            .registerTypeAdapter(Date.class, new StringDateSerializer())
+            .registerTypeAdapter(Date.class, new DateDeserializer())
+            .create();
+
+    private GsonProvider() {
+    }
+
+    public static Gson responseGson() {
+        return RESPONSE_GSON;
+    }
+
+    public static <K> Gson responseGson(Class<K> clazz, JsonDeserializer<K> jsonDeserializer) {
+        if (clazz == null || jsonDeserializer == null) {
+            return RESPONSE_GSON;
+        }
+        return RESPONSE_GSON.newBuilder().registerTypeAdapter(clazz, jsonDeserializer).create();
+    }
+
+    public static Gson requestGson() {
+        return REQUEST_GSON;
+    }
+}
@@ -0,0 +1,68 @@
+package com.lindar.dotmailer.util;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Decodes JSON arrays record by record straight from the response body, so a page never has to be held in memory as
+ * one big String plus a parsed tree before it's turned into objects.
+ */
+public class JsonStreamDecoder {
+
+    private JsonStreamDecoder() {
+    }
+
+    /**
+     * Returns the type of the elements of a list type token, e.g. Contact for TypeToken&lt;List&lt;Contact&gt;&gt;
+     */
+    public static <T> Type elementType(TypeToken<List<T>> typeToken) {
+        Type listType = typeToken.getType();
+        if (listType instanceof ParameterizedType) {
+            return ((ParameterizedType) listType).getActualTypeArguments()[0];
+        }
+        return Object.class;
+    }
+
+    /**
+     * Reads a JSON array from the reader and hands every element to the consumer as soon as it's parsed.
+     *
+     * @return the number of elements decoded
+     * @throws java.io.EOFException if the reader is empty
+     */
+    public static <T> int decodeArray(Reader reader, Gson gson, Type elementType, Consumer<? super T> consumer) throws IOException {
+        JsonReader jsonReader = new JsonReader(reader);
+        if (jsonReader.peek() == JsonToken.NULL) {
+            jsonReader.nextNull();
+            return 0;
+        }
+
+        int count = 0;
+        jsonReader.beginArray();
+        while (jsonReader.hasNext()) {
+            T element;
+            try {
+                element = gson.fromJson(jsonReader, elementType);
+            } catch (JsonParseException ex) {
+                // Gson reports the connection failing in the middle of a record as a syntax error
+                if (ex.getCause() instanceof IOException) {
+                    throw (IOException) ex.getCause();
+                }
+                throw ex;
+            }
+            consumer.accept(element);
+            count++;
+        }
+        jsonReader.endArray();
+        return count;
+    }
+}
@@ -0,0 +1,132 @@
+package com.lindar.dotmailer.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket shared by all the resources of a Dotmailer facade (or of several facades using the same account).
+ * <p>
+ * When the API answers 429 every caller is held back until the Retry-After delay has passed and the rate is lowered,
+ * then it's slowly raised back to the configured maximum with every successful call. This keeps the client just under
+ * the limit the API is actually enforcing instead of bursting into it over and over again.
+ */
+public class RateLimiter {
+
+    private static final double THROTTLED_RATE_FACTOR = 0.75;
+    private static final double MIN_RATE_FRACTION = 0.05;
+    private static final double RECOVERY_STEP_FRACTION = 0.01;
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final double maxPermitsPerSecond;
+    private final double burst;
+
+    private double permitsPerSecond;
+    private double availablePermits;
+    private long lastRefillNanos;
+
+    /**
+     * @param permitsPerSecond the maximum sustained number of requests per second. 0 or less means unlimited, in
+     *                         which case only the Retry-After pauses are applied
+     * @param burst            how many requests can go out back to back after the limiter has been idle
+     */
+    public RateLimiter(double permitsPerSecond, int burst) {
+        if (burst < 1) {
+            throw new IllegalArgumentException("burst must be at least 1");
+        }
+        this.maxPermitsPerSecond = permitsPerSecond;
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.availablePermits = burst;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    public RateLimiter(double permitsPerSecond) {
+        this(permitsPerSecond, Math.max(1, (int) Math.ceil(permitsPerSecond)));
+    }
+
+    /**
+     * A limiter that never slows callers down except while the API asks us to back off
+     */
+    public static RateLimiter unlimited() {
+        return new RateLimiter(0, 1);
+    }
+
+    /**
+     * Blocks until the caller is allowed to send one request
+     */
+    public void acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    private synchronized long reserve() {
+        long now = System.nanoTime();
+        refill(now);
+        long pauseNanos = Math.max(0, lastRefillNanos - now);
+        if (!isLimited()) {
+            return pauseNanos;
+        }
+        availablePermits -= 1;
+        long debtNanos = availablePermits < 0 ? (long) (-availablePermits / permitsPerSecond * NANOS_PER_SECOND) : 0;
+        return pauseNanos + debtNanos;
+    }
+
+    /**
+     * Holds back every caller for the given time and lowers the rate. Called when the API answers 429.
+     * <p>
+     * The rate is lowered once per pause: the other 429s received before it's over answer requests that were already
+     * in flight when the first one arrived, so they only extend the pause.
+     *
+     * @param retryAfterMillis how long the API asked us to wait
+     */
+    public synchronized void onThrottled(long retryAfterMillis) {
+        long now = System.nanoTime();
+        refill(now);
+        boolean paused = lastRefillNanos - now > 0;
+        long resumeAt = now + TimeUnit.MILLISECONDS.toNanos(retryAfterMillis);
+        if (resumeAt - lastRefillNanos > 0) {
+            // nothing accumulates while paused and the callers already waiting keep their place in the queue
+            availablePermits = Math.min(availablePermits, 0);
+            lastRefillNanos = resumeAt;
+        }
+        if (isLimited() && !paused) {
+            permitsPerSecond = Math.max(maxPermitsPerSecond * MIN_RATE_FRACTION, permitsPerSecond * THROTTLED_RATE_FACTOR);
+        }
+    }
+
+    /**
+     * Slowly raises the rate back to the configured maximum after it was lowered by a 429
+     */
+    public synchronized void onSuccess() {
+        if (isLimited() && permitsPerSecond < maxPermitsPerSecond) {
+            refill(System.nanoTime());
+            permitsPerSecond = Math.min(maxPermitsPerSecond, permitsPerSecond + maxPermitsPerSecond * RECOVERY_STEP_FRACTION);
+        }
+    }
+
+    /**
+     * @return the rate currently applied, which is lower than the configured one after the API throttled us
+     */
+    public synchronized double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    public double getMaxPermitsPerSecond() {
+        return maxPermitsPerSecond;
+    }
+
+    private boolean isLimited() {
+        return maxPermitsPerSecond > 0;
+    }
+
+    private void refill(long now) {
+        if (now - lastRefillNanos <= 0) {
+            return;
+        }
+        if (isLimited()) {
+            availablePermits = Math.min(burst, availablePermits + (double) (now - lastRefillNanos) / NANOS_PER_SECOND * permitsPerSecond);
+        }
+        lastRefillNanos = now;
+    }
+}
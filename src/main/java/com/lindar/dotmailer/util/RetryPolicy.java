@@ -0,0 +1,67 @@
+package com.lindar.dotmailer.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides whether and when a failed idempotent request (GET) is sent again. Delays grow exponentially from
+ * baseDelayMillis up to maxDelayMillis and are fully jittered, so clients that failed together don't retry together.
+ */
+public class RetryPolicy {
+
+    private static final int DEFAULT_MAX_ATTEMPTS = 4;
+    private static final long DEFAULT_BASE_DELAY_MILLIS = 200L;
+    private static final long DEFAULT_MAX_DELAY_MILLIS = 10000L;
+
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+
+    /**
+     * @param maxAttempts     how many times a request is sent in total, 1 means it's never retried
+     * @param baseDelayMillis the upper bound of the delay before the first retry
+     * @param maxDelayMillis  the upper bound of any delay
+     */
+    public RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be at least 1");
+        }
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    public RetryPolicy() {
+        this(DEFAULT_MAX_ATTEMPTS, DEFAULT_BASE_DELAY_MILLIS, DEFAULT_MAX_DELAY_MILLIS);
+    }
+
+    public static RetryPolicy noRetries() {
+        return new RetryPolicy(1, 0, 0);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * @param attempt the attempt that just failed, starting from 1
+     */
+    public boolean canRetry(int attempt) {
+        return attempt < maxAttempts;
+    }
+
+    /**
+     * Only errors that may go away by themselves are worth retrying: gateway errors and an unavailable service
+     */
+    public boolean isRetryableStatus(int statusCode) {
+        return statusCode == 500 || statusCode == 502 || statusCode == 503 || statusCode == 504;
+    }
+
+    /**
+     * @param attempt the attempt that just failed, starting from 1
+     * @return a random delay between 0 and baseDelayMillis * 2^(attempt - 1), capped at maxDelayMillis
+     */
+    public long delayMillis(int attempt) {
+        long ceiling = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt - 1, 30));
+        return ceiling > 0 ? ThreadLocalRandom.current().nextLong(ceiling + 1) : 0;
+    }
+}
@@ -0,0 +1,66 @@
+package com.lindar.dotmailer.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Lets concurrent callers asking for the same key share a single call: the first caller runs it and everyone who
+ * arrives while it's in flight waits for it and gets the same value (or exception). Nothing is kept once the call is
+ * done, so a caller arriving afterwards always triggers a new one.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder sharedCalls = new LongAdder();
+
+    public V execute(K key, Supplier<V> call) {
+        CompletableFuture<V> ownCall = new CompletableFuture<>();
+        CompletableFuture<V> runningCall = inFlight.putIfAbsent(key, ownCall);
+        if (runningCall != null) {
+            sharedCalls.increment();
+            return await(runningCall);
+        }
+        try {
+            V value = call.get();
+            ownCall.complete(value);
+            return value;
+        } catch (RuntimeException | Error ex) {
+            ownCall.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, ownCall);
+        }
+    }
+
+    private V await(CompletableFuture<V> runningCall) {
+        try {
+            return runningCall.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            if (ex.getCause() instanceof Error) {
+                throw (Error) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * @return how many callers got the value of a call started by someone else
+     */
+    public long getSharedCalls() {
+        return sharedCalls.sum();
+    }
+
+    /**
+     * @return how many calls are running right now
+     */
+    public int getInFlight() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,269 @@
+package com.lindar.dotmailer.vo.internal;
+
+import com.lindar.dotmailer.cache.ResponseCache;
+import com.lindar.dotmailer.cache.ResponseCachePolicy;
+import com.lindar.dotmailer.index.SuppressionAction;
+import com.lindar.dotmailer.index.SuppressionFilter;
+import com.lindar.dotmailer.metrics.MetricsListener;
+import com.lindar.dotmailer.transport.DotmailerTransport;
+import com.lindar.dotmailer.transport.HttpClientTransport;
+import com.lindar.dotmailer.util.CircuitBreaker;
+import com.lindar.dotmailer.util.NamedThreadFactory;
+import com.lindar.dotmailer.util.RateLimiter;
+import com.lindar.dotmailer.util.RetryPolicy;
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Client side settings shared by all the resources created from the same Dotmailer facade
+ */
+@Slf4j
+@Data
+public class DMClientConfig {
+
+    private static final String PAGE_FETCH_THREAD_PREFIX = "dotmailer-page-fetch";
+    private static final String ASYNC_THREAD_PREFIX = "dotmailer-async";
+
+    /**
+     * How many pages a full list call is allowed to have in flight at the same time. 1 means the pages are fetched
+     * one after the other.
+     */
+    private int parallelPageFetches = 1;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private ExecutorService pageFetchExecutor;
+
+    /**
+     * The HTTP layer used by all resources. Defaults to a pooled HttpClientTransport created on first use.
+     */
+    @Getter(AccessLevel.NONE)
+    private DotmailerTransport transport;
+
+    /**
+     * Where the calls made through Dotmailer.async() run. Defaults to one virtual thread per call when the JVM
+     * supports them and to a cached pool of daemon threads otherwise.
+     */
+    @Getter(AccessLevel.NONE)
+    private Executor asyncExecutor;
+
+    /**
+     * The async executor created by asyncExecutor(), shut down on close. One set by the caller is left to its owner.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private ExecutorService defaultAsyncExecutor;
+
+    /**
+     * Asks dotmailer for gzip or deflate encoded responses, which are decompressed while they're read
+     */
+    private boolean responseCompression = true;
+
+    /**
+     * JSON request bodies of at least this many bytes are sent gzipped. Negative (the default) never compresses them.
+     */
+    private int requestCompressionMinBytes = -1;
+
+    /**
+     * Whether identical GETs (same url) made at the same time share one request and its Result. Off by default: the
+     * callers then get the same (mutable) objects.
+     */
+    private boolean requestCoalescing;
+
+    /**
+     * Where the responses of the slow changing GETs are cached. Null (the default) turns caching off.
+     */
+    private ResponseCache responseCache;
+
+    /**
+     * Which endpoints are cached and for how long. Defaults to ResponseCachePolicy.defaults().
+     */
+    @Getter(AccessLevel.NONE)
+    private ResponseCachePolicy responseCachePolicy;
+
+    /**
+     * Paces the requests of all resources. Defaults to an unlimited limiter that only honours the Retry-After of
+     * throttled (429) responses. Share the same instance between facades that use the same account.
+     */
+    @Getter(AccessLevel.NONE)
+    private RateLimiter rateLimiter;
+
+    /**
+     * How many times a throttled (429) request is sent again before its failure is returned
+     */
+    private int maxThrottledRetries = 3;
+
+    /**
+     * The longest a 429's Retry-After is honoured for, so a huge or bogus header can't stall every caller sharing the
+     * rate limiter. Longer delays are cut to this.
+     */
+    private long maxRetryAfterMillis = 60000L;
+
+    /**
+     * How GETs that failed with a server or I/O error are retried. Other methods are never retried since they may have
+     * been processed already.
+     */
+    @Getter(AccessLevel.NONE)
+    private RetryPolicy retryPolicy;
+
+    /**
+     * Fails calls fast while dotmailer keeps answering with server errors
+     */
+    @Getter(AccessLevel.NONE)
+    private CircuitBreaker circuitBreaker;
+
+    /**
+     * Receives the latency, status, size, page and record measurements of every call. Nothing is recorded by default.
+     */
+    @Getter(AccessLevel.NONE)
+    private MetricsListener metricsListener;
+
+    /**
+     * Checked by TransactionalResource.send before the request is made. Null (the default) sends to every recipient.
+     */
+    private SuppressionFilter suppressionFilter;
+
+    /**
+     * What send does with the recipients the suppression filter reports as suppressed
+     */
+    private SuppressionAction suppressionAction = SuppressionAction.FLAG;
+
+    public synchronized void setParallelPageFetches(int parallelPageFetches) {
+        if (parallelPageFetches < 1) {
+            throw new IllegalArgumentException("parallelPageFetches must be at least 1");
+        }
+        ExecutorService previous = this.parallelPageFetches != parallelPageFetches ? pageFetchExecutor : null;
+        this.parallelPageFetches = parallelPageFetches;
+        if (previous != null) {
+            // list calls in progress pick up the new pool for their next pages, the old one finishes what it was given
+            pageFetchExecutor = newPageFetchExecutor();
+            previous.shutdown();
+        }
+    }
+
+    /**
+     * Bounded worker pool used for parallel pagination. It's created on first use and shared by all resources, so
+     * concurrent list calls queue up for the same workers instead of multiplying the number of connections.
+     */
+    public synchronized ExecutorService pageFetchExecutor() {
+        if (pageFetchExecutor == null) {
+            pageFetchExecutor = newPageFetchExecutor();
+        }
+        return pageFetchExecutor;
+    }
+
+    private ExecutorService newPageFetchExecutor() {
+        return Executors.newFixedThreadPool(parallelPageFetches, new NamedThreadFactory(PAGE_FETCH_THREAD_PREFIX));
+    }
+
+    /**
+     * Closes the transport being replaced, so its pooled connections aren't left open
+     */
+    public synchronized void setTransport(DotmailerTransport transport) {
+        DotmailerTransport previous = this.transport;
+        this.transport = transport;
+        if (previous != null && previous != transport) {
+            closeTransport(previous);
+        }
+    }
+
+    public synchronized DotmailerTransport transport() {
+        if (transport == null) {
+            transport = new HttpClientTransport();
+        }
+        return transport;
+    }
+
+    public synchronized RateLimiter rateLimiter() {
+        if (rateLimiter == null) {
+            rateLimiter = RateLimiter.unlimited();
+        }
+        return rateLimiter;
+    }
+
+    public synchronized RetryPolicy retryPolicy() {
+        if (retryPolicy == null) {
+            retryPolicy = new RetryPolicy();
+        }
+        return retryPolicy;
+    }
+
+    public synchronized CircuitBreaker circuitBreaker() {
+        if (circuitBreaker == null) {
+            circuitBreaker = new CircuitBreaker();
+        }
+        return circuitBreaker;
+    }
+
+    public synchronized ResponseCachePolicy responseCachePolicy() {
+        if (responseCachePolicy == null) {
+            responseCachePolicy = ResponseCachePolicy.defaults();
+        }
+        return responseCachePolicy;
+    }
+
+    public synchronized MetricsListener metricsListener() {
+        if (metricsListener == null) {
+            metricsListener = MetricsListener.NONE;
+        }
+        return metricsListener;
+    }
+
+    public synchronized Executor asyncExecutor() {
+        if (asyncExecutor == null) {
+            defaultAsyncExecutor = newAsyncExecutor();
+            asyncExecutor = defaultAsyncExecutor;
+        }
+        return asyncExecutor;
+    }
+
+    /**
+     * Closes the transport and shuts down the page fetch pool and the default async executor. The calls already
+     * running are let finish, the executors set by the caller aren't touched.
+     */
+    public synchronized void close() {
+        if (transport != null) {
+            closeTransport(transport);
+            transport = null;
+        }
+        if (pageFetchExecutor != null) {
+            pageFetchExecutor.shutdown();
+            pageFetchExecutor = null;
+        }
+        if (defaultAsyncExecutor != null) {
+            defaultAsyncExecutor.shutdown();
+            if (asyncExecutor == defaultAsyncExecutor) {
+                asyncExecutor = null;
+            }
+            defaultAsyncExecutor = null;
+        }
+    }
+
+    private static void closeTransport(DotmailerTransport transport) {
+        try {
+            transport.close();
+        } catch (IOException ex) {
+            log.warn("Transport {} could not be closed: {}", transport, ex);
+        }
+    }
+
+    /**
+     * The library targets Java 8, so virtual threads are looked up reflectively and only used on JVMs that have them
+     */
+    private static ExecutorService newAsyncExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            log.debug("Virtual threads are not available, async calls will use a cached thread pool");
+            return Executors.newCachedThreadPool(new NamedThreadFactory(ASYNC_THREAD_PREFIX));
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.lindar.dotmailer.api;
+
+import com.lindar.dotmailer.process.ProcessOptions;
+import com.lindar.wellrested.vo.Result;
+import com.lindar.wellrested.vo.ResultBuilder;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ChunkPipelineTest {
+
+    private static final int RECORDS = 1000;
+    private static final int CHUNK_SIZE = 10;
+    private static final int PREFETCH = 2;
+    private static final int CONSUMERS = 3;
+
+    @Test
+    public void processesEveryRecordAndReportsProgressInOrder() throws Exception {
+        ListFetcher fetcher = new ListFetcher(RECORDS);
+        List<Integer> seen = new CopyOnWriteArrayList<>();
+        List<int[]> progress = new CopyOnWriteArrayList<>();
+
+        Result<Long> result = pipeline(fetcher, seen::addAll, (skip, chunks) -> progress.add(new int[]{skip, chunks})).run(0, 5);
+
+        assertTrue(result.isSuccess());
+        assertEquals(RECORDS, result.getData().longValue());
+        assertEquals(RECORDS, seen.size());
+        assertEquals(RECORDS, seen.stream().distinct().count());
+        // every chunk but the last one, which is the empty page that ends the list
+        assertEquals(RECORDS / CHUNK_SIZE, progress.size());
+        for (int i = 0; i < progress.size(); i++) {
+            assertEquals((i + 1) * CHUNK_SIZE, progress.get(i)[0]);
+            assertEquals(5 + i + 1, progress.get(i)[1]);
+        }
+        assertNoConsumerLeft();
+    }
+
+    @Test
+    public void consumerExceptionIsRethrownOnceTheConsumersHaveStopped() throws Exception {
+        ListFetcher fetcher = new ListFetcher(RECORDS);
+        IllegalStateException failure = new IllegalStateException("consumer failed");
+        List<Integer> progress = new CopyOnWriteArrayList<>();
+
+        Consumer<List<Integer>> consumer = chunk -> {
+            if (chunk.get(0) == 0) {
+                throw failure;
+            }
+            sleep(50);
+        };
+        try {
+            pipeline(fetcher, consumer, (skip, chunks) -> progress.add(skip)).run(0, 0);
+            fail("the consumer exception should have been rethrown");
+        } catch (IllegalStateException ex) {
+            assertSame(failure, ex);
+        }
+
+        assertNoConsumerLeft();
+        // the failed first chunk holds back any progress
+        assertTrue(progress.isEmpty());
+        // the download stopped instead of walking the whole list
+        assertTrue("fetched " + fetcher.fetched.get() + " chunks", fetcher.fetched.get() <= PREFETCH + CONSUMERS + 2);
+    }
+
+    @Test
+    public void progressListenerFailureFailsTheWalk() throws Exception {
+        ListFetcher fetcher = new ListFetcher(RECORDS);
+
+        Result<Long> result = pipeline(fetcher, chunk -> { }, (skip, chunks) -> {
+            throw new IOException("disk full");
+        }).run(0, 0);
+
+        assertFalse(result.isSuccess());
+        assertEquals(AbstractResource.ERROR_CHECKPOINT, result.getCode());
+        assertNoConsumerLeft();
+    }
+
+    @Test
+    public void failedChunkEndsTheWalkWithWhatWasProcessed() throws Exception {
+        ListFetcher fetcher = new ListFetcher(RECORDS);
+        fetcher.failAt = 50;
+
+        Result<Long> result = pipeline(fetcher, chunk -> { }, (skip, chunks) -> { }).run(0, 0);
+
+        assertFalse(result.isSuccess());
+        assertEquals("ERROR_FETCH", result.getCode());
+        assertEquals(50, result.getData().longValue());
+        assertNoConsumerLeft();
+    }
+
+    private static ChunkPipeline<Integer> pipeline(ListFetcher fetcher, Consumer<List<Integer>> consumer,
+                                                   ChunkPipeline.ProgressListener listener) {
+        ChunkSizer sizer = ChunkSizer.of(ProcessOptions.defaults().chunkSize(CHUNK_SIZE), CHUNK_SIZE, CHUNK_SIZE);
+        return new ChunkPipeline<>(fetcher, sizer, PREFETCH, CONSUMERS, consumer, listener);
+    }
+
+    private static void assertNoConsumerLeft() throws InterruptedException {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("dotmailer-process")) {
+                // a pool reports itself terminated just before its last thread exits
+                thread.join(1000);
+                assertFalse(thread.getName() + " still running", thread.isAlive());
+            }
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Pages through the numbers from 0 to size - 1, failing the chunk starting at <b>failAt</b> if set
+     */
+    private static class ListFetcher implements ChunkSizer.ChunkFetcher<Integer> {
+
+        private final int size;
+        private final AtomicInteger fetched = new AtomicInteger();
+        private int failAt = -1;
+
+        ListFetcher(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public Result<List<Integer>> fetch(int skip, int chunkSize, LongAdder bodyBytes) {
+            fetched.incrementAndGet();
+            if (skip == failAt) {
+                return ResultBuilder.<List<Integer>>failed().msg("fetch failed").code("ERROR_FETCH").build();
+            }
+            List<Integer> records = new ArrayList<>();
+            for (int i = skip; i < Math.min(size, skip + chunkSize); i++) {
+                records.add(i);
+            }
+            return ResultBuilder.successful(records);
+        }
+    }
+}
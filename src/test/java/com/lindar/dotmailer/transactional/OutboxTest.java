@@ -0,0 +1,200 @@
+package com.lindar.dotmailer.transactional;
+
+import com.lindar.dotmailer.api.TransactionalResource;
+import com.lindar.dotmailer.util.RetryPolicy;
+import com.lindar.dotmailer.vo.internal.DMAccessCredentials;
+import com.lindar.wellrested.vo.Result;
+import com.lindar.wellrested.vo.ResultBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class OutboxTest {
+
+    private static final int CAMPAIGN_ID = 42;
+    private static final long TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(10);
+    // failed sends stay waiting for the whole test
+    private static final RetryPolicy RETRY_LATER = new RetryPolicy(1000, TimeUnit.HOURS.toMillis(1), TimeUnit.HOURS.toMillis(1));
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("outbox-test");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    public void restartDeliversOnlyTheSendsNotMarkedDone() throws Exception {
+        StubResource failingSome = new StubResource("later-");
+        Outbox outbox = outbox(failingSome);
+        outbox.start();
+        send(outbox, "sent-1@example.com", "later-1@example.com", "sent-2@example.com", "later-2@example.com");
+        await(outbox::getDelivered, 2);
+        await(() -> failingSome.attempts.size(), 4);
+        outbox.close();
+        assertEquals(2, outbox.getDepth());
+
+        StubResource succeeding = new StubResource(null);
+        Outbox restarted = outbox(succeeding);
+        restarted.start();
+        await(restarted::getDelivered, 2);
+        restarted.close();
+        assertEquals(0, restarted.getDepth());
+        assertEquals(set("later-1@example.com", "later-2@example.com"), succeeding.deliveredSet());
+
+        StubResource afterwards = new StubResource(null);
+        Outbox again = outbox(afterwards);
+        again.start();
+        assertEquals(0, again.getDepth());
+        again.close();
+        assertTrue(afterwards.attempts.isEmpty());
+    }
+
+    @Test
+    public void tornRecordEndsTheSegmentAndKeepsTheSendsBeforeIt() throws Exception {
+        Outbox outbox = outbox(new StubResource("later-"));
+        outbox.start();
+        send(outbox, "later-1@example.com", "later-2@example.com");
+        outbox.close();
+
+        // a crash in the middle of a write: the header promises more bytes than made it to disk
+        Path segment = lastSegment();
+        byte[] torn = ByteBuffer.allocate(18).putInt(100).putInt(0).put(new byte[10]).array();
+        Files.write(segment, torn, StandardOpenOption.APPEND);
+
+        StubResource succeeding = new StubResource(null);
+        Outbox restarted = outbox(succeeding);
+        restarted.start();
+        await(restarted::getDelivered, 2);
+        restarted.close();
+        assertEquals(0, restarted.getDepth());
+        assertEquals(set("later-1@example.com", "later-2@example.com"), succeeding.deliveredSet());
+
+        // sends after the torn record go to a new segment and are replayed as usual
+        Outbox failing = outbox(new StubResource("later-"));
+        failing.start();
+        send(failing, "later-3@example.com");
+        failing.close();
+
+        StubResource last = new StubResource(null);
+        Outbox replayed = outbox(last);
+        replayed.start();
+        await(replayed::getDelivered, 1);
+        replayed.close();
+        assertEquals(set("later-3@example.com"), last.deliveredSet());
+    }
+
+    @Test
+    public void corruptRecordEndsTheSegment() throws Exception {
+        Outbox outbox = outbox(new StubResource("later-"));
+        outbox.start();
+        send(outbox, "later-1@example.com");
+        outbox.close();
+
+        byte[] corrupt = ByteBuffer.allocate(12).putInt(4).putInt(12345).putInt(0).array();
+        Files.write(lastSegment(), corrupt, StandardOpenOption.APPEND);
+
+        StubResource succeeding = new StubResource(null);
+        Outbox restarted = outbox(succeeding);
+        restarted.start();
+        await(restarted::getDelivered, 1);
+        restarted.close();
+        assertEquals(set("later-1@example.com"), succeeding.deliveredSet());
+    }
+
+    private Outbox outbox(TransactionalResource resource) {
+        return new Outbox(resource, directory).withRetryPolicy(RETRY_LATER).withFsync(false);
+    }
+
+    private static void send(Outbox outbox, String... emails) {
+        for (String email : emails) {
+            assertTrue(outbox.send(email, CAMPAIGN_ID).isSuccess());
+        }
+    }
+
+    private Path lastSegment() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.segment")) {
+            files.forEach(segments::add);
+        }
+        Collections.sort(segments);
+        return segments.get(segments.size() - 1);
+    }
+
+    private static void await(LongSupplier value, long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (value.getAsLong() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, value.getAsLong());
+    }
+
+    private static Set<String> set(String... values) {
+        Set<String> set = ConcurrentHashMap.newKeySet();
+        Collections.addAll(set, values);
+        return set;
+    }
+
+    /**
+     * Delivers every send, except those to addresses starting with <b>failingPrefix</b> which fail as if the API
+     * was down
+     */
+    private static class StubResource extends TransactionalResource {
+
+        private final String failingPrefix;
+        private final List<String> attempts = new CopyOnWriteArrayList<>();
+        private final List<String> delivered = new CopyOnWriteArrayList<>();
+
+        StubResource(String failingPrefix) {
+            super(new DMAccessCredentials());
+            this.failingPrefix = failingPrefix;
+        }
+
+        @Override
+        public Result<Void> send(List<String> toAddresses, int campaignId, Map<String, String> personalisation) {
+            String email = toAddresses.get(0);
+            attempts.add(email);
+            if (failingPrefix != null && email.startsWith(failingPrefix)) {
+                return ResultBuilder.failed().msg("Service unavailable").code("ERROR_SERVICE_UNAVAILABLE").buildAndIgnoreData();
+            }
+            delivered.add(email);
+            return ResultBuilder.successfulWithoutData("Success");
+        }
+
+        Set<String> deliveredSet() {
+            Set<String> set = ConcurrentHashMap.newKeySet();
+            set.addAll(delivered);
+            assertEquals("delivered more than once: " + delivered, delivered.size(), set.size());
+            return set;
+        }
+    }
+}